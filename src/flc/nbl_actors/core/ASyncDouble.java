@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2026 agent
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package flc.nbl_actors.core;
+
+import java.util.function.DoubleConsumer;
+
+/**
+ * Asynchronous double value; {@link ASyncValue} without boxing.
+ * <p>Date: 18.10.2026
+ * </p>
+ *
+ * @author agent
+ */
+public class ASyncDouble implements IASyncDouble, DoubleConsumer {
+    private boolean isSet;
+    private double value;
+    private DoubleConsumer cons;
+
+    /**
+     * Set result value.
+     *
+     * @param data value
+     */
+    @Override
+    public void accept(double data) {
+        final DoubleConsumer c;
+        synchronized (this) {
+            value = data;
+            isSet = true;
+            c = cons;
+        }
+        if (c != null)
+            c.accept(data);
+    }
+
+    @Override
+    public void result(DoubleConsumer consumer) {
+        final double v;
+        synchronized (this) {
+            if (!isSet) {
+                final DoubleConsumer prev = cons;
+                cons = prev == null ? consumer : prev.andThen(consumer);
+                return;
+            }
+            v = value;
+        }
+        consumer.accept(v);
+    }
+}
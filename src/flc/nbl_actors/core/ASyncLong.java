@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2026 agent
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package flc.nbl_actors.core;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Asynchronous long value; {@link ASyncValue} without boxing.
+ * <p>Date: 18.10.2026
+ * </p>
+ *
+ * @author agent
+ */
+public class ASyncLong implements IASyncLong, LongConsumer {
+    private boolean isSet;
+    private long value;
+    private LongConsumer cons;
+
+    /**
+     * Set result value.
+     *
+     * @param data value
+     */
+    @Override
+    public void accept(long data) {
+        final LongConsumer c;
+        synchronized (this) {
+            value = data;
+            isSet = true;
+            c = cons;
+        }
+        if (c != null)
+            c.accept(data);
+    }
+
+    @Override
+    public void result(LongConsumer consumer) {
+        final long v;
+        synchronized (this) {
+            if (!isSet) {
+                final LongConsumer prev = cons;
+                cons = prev == null ? consumer : prev.andThen(consumer);
+                return;
+            }
+            v = value;
+        }
+        consumer.accept(v);
+    }
+}
@@ -63,20 +63,28 @@ public class ASyncValue<T> implements IASync<T>, Consumer<T> {
      * Signal ready value.
      */
     public void accept() {
-        isSet.set(true);
-        if (cons != null)
-            cons.accept(value);
+        final Consumer<T> c;
+        synchronized (isSet) { //result() may be called concurrently from another thread
+            isSet.set(true);
+            c = cons;
+        }
+        if (c != null)
+            c.accept(value);
     }
 
     @Override
     public void result(final Consumer<T> consumer) {
-        if (isSet.get())
-            consumer.accept(value);
-        else
-            cons = cons == null ? consumer : v -> {
-                cons.accept(v);
-                consumer.accept(v);
-            };
+        synchronized (isSet) {
+            if (!isSet.get()) {
+                final Consumer<T> prev = cons;
+                cons = prev == null ? consumer : v -> {
+                    prev.accept(v);
+                    consumer.accept(v);
+                };
+                return;
+            }
+        }
+        consumer.accept(value);
     }
 
 }
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2026 agent
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package flc.nbl_actors.core;
+
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Adaptive granularity control for recursive splitting.
+ * <p>Counts surplus tasks; forked to another thread, but not yet started.
+ * While the surplus is low, threads are starving and work should be forked;
+ * When high, work is run inline (in the current thread), avoiding message overhead.
+ * (Like the {@code getSurplusQueuedTaskCount() <= 3} heuristic used with
+ * java.util.concurrent.ForkJoinTask, but counted per split tree.)
+ * </p>
+ * <p>Share one instance for a whole recursion.
+ * See also the {@code AdaptiveSplit} overloads in {@link ForkJoin}.
+ * </p>
+ * <pre>
+ * Example:
+ * {@code
+ *     static <T> void parallel(AdaptiveSplit split, Spliterator<T> data) {
+ *         Spliterator<T> part;
+ *         while (split.shouldFork() && (part = data.trySplit()) != null) {
+ *             final Spliterator<T> p = part;
+ *             split.fork(() -> parallel(split, p));
+ *         }
+ *         data.forEachRemaining(...);
+ *     }
+ * }
+ * </pre>
+ * <p>Date: 18.10.2026
+ * </p>
+ *
+ * @author agent
+ */
+public class AdaptiveSplit {
+    private final IGreenThrFactory factory;
+    private final int maxSurplus;
+    private final AtomicInteger surplus = new AtomicInteger();
+    private final LongAdder forks = new LongAdder();
+
+    /**
+     * Max surplus = 2 x available processors.
+     *
+     * @param factory thread factory for forked tasks
+     */
+    public AdaptiveSplit(IGreenThrFactory factory) {
+        this(factory, 2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param factory    thread factory for forked tasks
+     * @param maxSurplus fork only while fewer tasks are waiting to start
+     */
+    public AdaptiveSplit(IGreenThrFactory factory, int maxSurplus) {
+        if (maxSurplus < 1)
+            throw new IllegalArgumentException("maxSurplus < 1");
+        this.factory = Objects.requireNonNull(factory);
+        this.maxSurplus = maxSurplus;
+    }
+
+    /**
+     * Should next task be forked?
+     *
+     * @return true if the surplus is low
+     */
+    public boolean shouldFork() {
+        return surplus.get() < maxSurplus;
+    }
+
+    /**
+     * Fork task to a new thread (counted as surplus until it starts).
+     *
+     * @param task task
+     */
+    public void fork(Runnable task) {
+        Objects.requireNonNull(task);
+        surplus.incrementAndGet();
+        forks.increment();
+        factory.newThread().execute(() -> {
+            surplus.decrementAndGet();
+            task.run();
+        });
+    }
+
+    /**
+     * Recursive spliterator processing; Splits and forks while surplus is low,
+     * then handles the rest inline.
+     *
+     * @param data    data
+     * @param minSize don't split below this (estimated) size
+     * @param leaf    processes a part (may be called concurrently from several threads)
+     * @param <T>     element type
+     */
+    public <T> void split(Spliterator<T> data, long minSize, Consumer<Spliterator<T>> leaf) {
+        Spliterator<T> part;
+        while (data.estimateSize() > minSize && shouldFork() && (part = data.trySplit()) != null) {
+            final Spliterator<T> p = part;
+            fork(() -> split(p, minSize, leaf));
+        }
+        leaf.accept(data);
+    }
+
+    /**
+     * @return number of forked tasks not yet started
+     */
+    public int getSurplus() {
+        return surplus.get();
+    }
+
+    /**
+     * @return total number of forked tasks
+     */
+    public long getForkCount() {
+        return forks.sum();
+    }
+}
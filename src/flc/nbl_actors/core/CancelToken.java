@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2026 agent
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package flc.nbl_actors.core;
+
+/**
+ * Cancellation flag, cheap to poll from running tasks.
+ * <p>A token is also cancelled when its parent is cancelled.
+ * Each {@link ForkJoin} has a token, whose parent is the token current when the ForkJoin was
+ * created; Its forked tasks run with that token as current ({@link #current()}),
+ * so nested ForkJoins are cancelled along with it.
+ * </p>
+ * <pre>
+ * Example, polling in a long running leaf task:
+ * {@code
+ *     CancelToken token = CancelToken.current();
+ *     for (int i = from; i < to && !token.isCancelled(); i++)
+ *         ...
+ * }
+ * </pre>
+ * <p>Date: 18.10.2026
+ * </p>
+ *
+ * @author agent
+ */
+public class CancelToken {
+    /**
+     * Root token (current outside forked tasks); never cancelled, {@link #cancel()} is ignored.
+     */
+    public static final CancelToken NONE = new CancelToken() {
+        @Override
+        public void cancel() {
+        }
+    };
+
+    private final CancelToken parent;
+    private volatile boolean cancelled;
+
+    /**
+     * New root token.
+     */
+    public CancelToken() {
+        this(null);
+    }
+
+    /**
+     * @param parent parent token (null: none)
+     */
+    public CancelToken(CancelToken parent) {
+        this.parent = parent == NONE ? null : parent;
+    }
+
+    /**
+     * Current token of this thread (set while running a forked task).
+     *
+     * @return token, or {@link #NONE}
+     */
+    public static CancelToken current() {
+        return ThreadContext.get().getCancelToken();
+    }
+
+    /**
+     * Cancel this token, and its descendants.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Pass on failure of a task running with this token as current:
+     * to the ForkJoin owning this token, or else the nearest ancestor's.
+     *
+     * @param e exception thrown by task
+     * @return false if there is no such ForkJoin
+     */
+    boolean fail(RuntimeException e) {
+        return parent != null && parent.fail(e);
+    }
+
+    /**
+     * Is this, or an ancestor, cancelled.
+     *
+     * @return true if cancelled
+     */
+    public boolean isCancelled() {
+        if (cancelled)
+            return true;
+        for (CancelToken t = parent; t != null; t = t.parent) {
+            if (t.cancelled) {
+                cancelled = true;
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2026 agent
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package flc.nbl_actors.core;
+
+import java.util.Objects;
+import java.util.function.*;
+
+/**
+ * Fork/Join utility for double results; {@link ForkJoin} with an unboxed value.
+ * <p>Replies are merged into the current value with a {@link DoubleBinaryOperator}
+ * ((double currValue, double returned) -&gt; new value), on the caller thread.
+ * Cancellation and failure work as in ForkJoin.
+ * </p>
+ * <pre>
+ * Example:
+ * {@code
+ *     static IASyncDouble sum(AdaptiveSplit split, double[] arr, int from, int to) {
+ *         if (to - from < 1000) return IASyncDouble.of(sequentialSum(arr, from, to));
+ *         int mid = (from + to) >>> 1;
+ *         DoubleForkJoin fj = new DoubleForkJoin(0);
+ *         fj.callAsync(split, () -> sum(split, arr, from, mid), (v, r) -> v + r);
+ *         fj.callAsync(split, () -> sum(split, arr, mid, to), (v, r) -> v + r);
+ *         return fj.resultAsync();
+ *     }
+ * }
+ * </pre>
+ * <p>Date: 18.10.2026
+ * </p>
+ *
+ * @author agent
+ */
+public class DoubleForkJoin extends ForkJoinBase {
+    private double value;
+    private DoubleConsumer consumer;
+
+    /**
+     * Initiate fork/join with caller thread and a start value.
+     *
+     * @param thr   caller thread (handles individual call-replies)
+     * @param value initial value
+     */
+    public DoubleForkJoin(IGreenThr thr, double value) {
+        super(thr);
+        this.value = value;
+    }
+
+    /**
+     * Initiate fork/join with a start value, using current thread.
+     *
+     * @param value initial value
+     */
+    public DoubleForkJoin(double value) {
+        this(ThreadContext.get().getThread(), value);
+    }
+
+    //------------------------------------- IGreenThr calls:
+
+    /**
+     * Call thread and update local value
+     *
+     * @param toThread target thread
+     * @param call     action at target thread
+     * @param reply    reply action at this thread ((currValue, returned) -&gt; new value)
+     */
+    public void call(IGreenThr toThread, DoubleSupplier call, DoubleBinaryOperator reply) {
+        fork(toThread, () -> {
+            final double v = call.getAsDouble();
+            join(() -> value = reply.applyAsDouble(value, v));
+        });
+    }
+
+    /**
+     * Call thread with async response and update local value
+     *
+     * @param toThread target thread
+     * @param call     action at target thread
+     * @param reply    reply action at this thread ((currValue, returned) -&gt; new value)
+     */
+    public void callAsync(IGreenThr toThread, Supplier<IASyncDouble> call, DoubleBinaryOperator reply) {
+        final SendBack back = new SendBack(reply);
+        fork(toThread, () -> call.get().result(back));
+    }
+
+    //------------------------------------- IActorRef calls:
+
+    /**
+     * Call actor and update local value
+     *
+     * @param toRef target actor
+     * @param call  action at target
+     * @param reply reply action at this thread ((currValue, returned) -&gt; new value)
+     * @param <A>   actor type
+     */
+    public <A> void call(IActorRef<A> toRef, ToDoubleFunction<A> call, DoubleBinaryOperator reply) {
+        fork(toRef, a -> {
+            final double v = call.applyAsDouble(a);
+            join(() -> value = reply.applyAsDouble(value, v));
+        });
+    }
+
+    /**
+     * Call actor with async response and update local value
+     *
+     * @param toRef target actor
+     * @param call  action at target
+     * @param reply reply action at this thread ((currValue, returned) -&gt; new value)
+     * @param <A>   actor type
+     */
+    public <A> void callAsync(IActorRef<A> toRef, Function<A, IASyncDouble> call, DoubleBinaryOperator reply) {
+        final SendBack back = new SendBack(reply);
+        fork(toRef, a -> call.apply(a).result(back));
+    }
+
+    //------------------------------------- AdaptiveSplit calls:
+
+    /**
+     * Call and update local value; Forked to another thread,
+     * or run inline if {@code split} has enough surplus tasks.
+     *
+     * @param split granularity control
+     * @param call  action
+     * @param reply reply action at this thread ((currValue, returned) -&gt; new value)
+     */
+    public void call(AdaptiveSplit split, DoubleSupplier call, DoubleBinaryOperator reply) {
+        fork(split, () -> {
+            final double v = call.getAsDouble();
+            join(() -> value = reply.applyAsDouble(value, v));
+        }, () -> value = reply.applyAsDouble(value, call.getAsDouble()));
+    }
+
+    /**
+     * Call with async response and update local value; Forked to another thread,
+     * or run inline if {@code split} has enough surplus tasks.
+     *
+     * @param split granularity control
+     * @param call  action
+     * @param reply reply action at this thread ((currValue, returned) -&gt; new value)
+     */
+    public void callAsync(AdaptiveSplit split, Supplier<IASyncDouble> call, DoubleBinaryOperator reply) {
+        final SendBack back = new SendBack(reply);
+        forkAsync(split, back, () -> call.get().result(back));
+    }
+
+    //-------------------------------------
+
+    /**
+     * Set current value
+     *
+     * @param value value
+     */
+    public void setValue(double value) {
+        this.value = value;
+    }
+
+    /**
+     * Get current value
+     *
+     * @return value
+     */
+    public double getValue() {
+        return value;
+    }
+
+    /**
+     * Complete now with value; Short-circuit: the result is decided,
+     * so outstanding calls are cancelled. Call from caller thread (eg. in a reply).
+     *
+     * @param value result value
+     */
+    public void complete(double value) {
+        this.value = value;
+        cancel();
+    }
+
+    /**
+     * Consume result when ready
+     *
+     * @param cons consumer
+     */
+    public void result(DoubleConsumer cons) {
+        consumer = Objects.requireNonNull(cons);
+        isDone = false;
+        trigger();
+    }
+
+    /**
+     * Get future result
+     *
+     * @return future result
+     */
+    public IASyncDouble resultAsync() {
+        final ASyncDouble av = new ASyncDouble();
+        result(av);
+        return av;
+    }
+
+    @Override
+    boolean hasConsumer() {
+        return consumer != null;
+    }
+
+    @Override
+    void fire() {
+        consumer.accept(value);
+    }
+
+    private class SendBack extends Reply implements DoubleConsumer {
+        final DoubleBinaryOperator reply;
+
+        private SendBack(DoubleBinaryOperator reply) {
+            this.reply = reply;
+        }
+
+        @Override
+        public void accept(double v) {
+            reply(() -> value = reply.applyAsDouble(value, v));
+        }
+    }
+}
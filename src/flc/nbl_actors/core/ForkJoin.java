@@ -35,15 +35,24 @@ import java.util.function.*;
  *     }
  *  * }
  * </pre>
+ * <p>Cancellation: {@link #cancel()} or {@link #complete(Object)} decide the result early;
+ * The result consumer is triggered at once, later replies are ignored, and forked tasks
+ * not yet started are skipped. Tasks run with this ForkJoin's {@link CancelToken} as current,
+ * so nested ForkJoins (created by the tasks) are cancelled too, and long running tasks
+ * can poll {@code CancelToken.current().isCancelled()}.
+ * </p>
+ * <p>Failure: A call (or reply) throwing an exception cancels its ForkJoin, and the
+ * result consumer is not called. Instead the exception goes to the {@link #onFailure}
+ * handler; Without one, to the enclosing ForkJoin (whose task created this one), so a
+ * failure deep in a recursive fork/join reaches the top; Else it is thrown in the caller thread.
+ * </p>
  * Date: 20.07.14
  *
  * @param <R> Result type
  * @author Tor C Bekkvik
  */
-public class ForkJoin<R> {
+public class ForkJoin<R> extends ForkJoinBase {
 
-    private final IGreenThr callerThr;
-    private int pendingCalls; //==0 if value ready, >0 otherwise
     private R value;
     private Consumer<R> consumer;
 
@@ -54,9 +63,7 @@ public class ForkJoin<R> {
      * @param value initial value
      */
     public ForkJoin(IGreenThr thr, R value) {
-        if (thr == null)
-            throw new NullPointerException("Missing caller thread");
-        callerThr = thr;
+        super(thr);
         this.value = value;
     }
 
@@ -87,9 +94,7 @@ public class ForkJoin<R> {
      * @param <T>      result type
      */
     public <T> void callAsync(IGreenThr toThread, Supplier<IASync<T>> call, Consumer<T> reply) {
-        ++pendingCalls;
-        toThread.execute(() -> call.get()
-                .result(new SendBack<>(reply)));
+        fork(toThread, () -> call.get().result(new SendBack<>(reply)));
     }
 
     /**
@@ -113,8 +118,7 @@ public class ForkJoin<R> {
      * @param <T>      result type
      */
     public <T> void call(IGreenThr toThread, Supplier<T> call, Consumer<T> reply) {
-        ++pendingCalls;
-        toThread.execute(() -> {
+        fork(toThread, () -> {
             final T v = call.get();
             join(() -> reply.accept(v));
         });
@@ -140,8 +144,7 @@ public class ForkJoin<R> {
      * @param reply    reply action at this thread
      */
     public void call(IGreenThr toThread, Runnable call, Runnable reply) {
-        ++pendingCalls;
-        toThread.execute(() -> {
+        fork(toThread, () -> {
             call.run();
             join(reply);
         });
@@ -159,9 +162,7 @@ public class ForkJoin<R> {
      * @param <T>   result type
      */
     public <A, T> void callAsync(IActorRef<A> toRef, Function<A, IASync<T>> call, Consumer<T> reply) {
-        ++pendingCalls;
-        toRef.send(a -> call.apply(a)
-                .result(new SendBack<>(reply)));
+        fork(toRef, a -> call.apply(a).result(new SendBack<>(reply)));
     }
 
     /**
@@ -187,8 +188,7 @@ public class ForkJoin<R> {
      * @param <T>   result type
      */
     public <A, T> void call(IActorRef<A> toRef, Function<A, T> call, Consumer<T> reply) {
-        ++pendingCalls;
-        toRef.send(a -> {
+        fork(toRef, a -> {
             final T v = call.apply(a);
             join(() -> reply.accept(v));
         });
@@ -216,13 +216,69 @@ public class ForkJoin<R> {
      * @param <A>   actor type
      */
     public <A> void call(IActorRef<A> toRef, Runnable call, Runnable reply) {
-        ++pendingCalls;
-        toRef.send(a -> {
+        fork(toRef, a -> {
             call.run();
             join(reply);
         });
     }
 
+    //------------------------------------- AdaptiveSplit calls:
+
+    /**
+     * Call with async response; Forked to another thread,
+     * or run inline if {@code split} has enough surplus tasks.
+     *
+     * @param split granularity control
+     * @param call  action
+     * @param reply reply action at this thread
+     * @param <T>   result type
+     */
+    public <T> void callAsync(AdaptiveSplit split, Supplier<IASync<T>> call, Consumer<T> reply) {
+        final SendBack<T> back = new SendBack<>(reply);
+        forkAsync(split, back, () -> call.get().result(back));
+    }
+
+    /**
+     * Call with async response and update local value; Forked to another thread,
+     * or run inline if {@code split} has enough surplus tasks.
+     *
+     * @param split granularity control
+     * @param call  action
+     * @param reply reply action at this thread ((R currValue, T returned) -&gt; {R BiFunction.apply})
+     * @param <T>   result type
+     */
+    public <T> void callAsync(AdaptiveSplit split, Supplier<IASync<T>> call, BiFunction<R, T, R> reply) {
+        callAsync(split, call, v -> value = reply.apply(value, v));
+    }
+
+    /**
+     * Call; Forked to another thread, or run inline if {@code split} has enough surplus tasks.
+     *
+     * @param split granularity control
+     * @param call  action
+     * @param reply reply action at this thread
+     * @param <T>   result type
+     */
+    public <T> void call(AdaptiveSplit split, Supplier<T> call, Consumer<T> reply) {
+        fork(split, () -> {
+            final T v = call.get();
+            join(() -> reply.accept(v));
+        }, () -> reply.accept(call.get()));
+    }
+
+    /**
+     * Call and update local value; Forked to another thread,
+     * or run inline if {@code split} has enough surplus tasks.
+     *
+     * @param split granularity control
+     * @param call  action
+     * @param reply reply action at this thread ((R currValue, T returned) -&gt; {R BiFunction.apply})
+     * @param <T>   result type
+     */
+    public <T> void call(AdaptiveSplit split, Supplier<T> call, BiFunction<R, T, R> reply) {
+        call(split, call, v -> value = reply.apply(value, v));
+    }
+
     //-------------------------------------
 
     public void update(Function<R, R> func) {
@@ -247,6 +303,17 @@ public class ForkJoin<R> {
         return value;
     }
 
+    /**
+     * Complete now with value; Short-circuit: the result is decided,
+     * so outstanding calls are cancelled. Call from caller thread (eg. in a reply).
+     *
+     * @param value result value
+     */
+    public void complete(R value) {
+        this.value = value;
+        cancel();
+    }
+
     /**
      * Get future result
      *
@@ -282,30 +349,21 @@ public class ForkJoin<R> {
      */
     public void result(Consumer<R> cons) {
         consumer = cons;
+        isDone = false;
         trigger();
     }
 
-    /**
-     * Join - register call response and decrease #pendingCalls.
-     * If #pendingCalls == 0, trigger value consumer.
-     *
-     * @param reply action on receive
-     */
-    private void join(Runnable reply) {
-        callerThr.execute(() -> {
-            reply.run();
-            --pendingCalls;
-            trigger();
-        });
+    @Override
+    boolean hasConsumer() {
+        return consumer != null;
     }
 
-    private void trigger() {
-        if (pendingCalls == 0 && consumer != null)
-            consumer.accept(value);
+    @Override
+    void fire() {
+        consumer.accept(value);
     }
 
-    private class SendBack<T> implements Consumer<T> {
-        int no;
+    private class SendBack<T> extends Reply implements Consumer<T> {
         final Consumer<T> reply;
 
         private SendBack(Consumer<T> reply) {
@@ -314,7 +372,7 @@ public class ForkJoin<R> {
 
         @Override
         public void accept(T v) {
-            if (++no == 1) join(() -> reply.accept(v));
+            reply(() -> reply.accept(v));
         }
     }
 }
@@ -0,0 +1,286 @@
+/*
+ * Copyright (c) 2026 agent
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package flc.nbl_actors.core;
+
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Common part of the fork/join utilities ({@link ForkJoin}, {@link IntForkJoin},
+ * {@link LongForkJoin}, {@link DoubleForkJoin}): Pending call count, forking of calls,
+ * join of replies, cancellation and failure.
+ * Subclasses hold the value, and the typed call/reply methods.
+ * <p>Primitive subclasses avoid boxing of values only;
+ * Each call still allocates its task and reply messages.
+ * </p>
+ * <p>Date: 18.10.2026
+ * </p>
+ *
+ * @author agent
+ */
+abstract class ForkJoinBase {
+    private final IGreenThr callerThr;
+    private final CancelToken token;
+    private final CancelToken parentToken;
+    private int pendingCalls; //==0 if value ready, >0 otherwise
+    boolean isDone;
+    private Consumer<RuntimeException> failureHandler;
+    private volatile RuntimeException failure;
+
+    ForkJoinBase(IGreenThr thr) {
+        if (thr == null)
+            throw new NullPointerException("Missing caller thread");
+        callerThr = thr;
+        parentToken = ThreadContext.get().getCancelToken();
+        token = new CancelToken(parentToken) {
+            @Override
+            boolean fail(RuntimeException e) {
+                ForkJoinBase.this.fail(e);
+                return true;
+            }
+        };
+    }
+
+    abstract boolean hasConsumer();
+
+    /**
+     * Pass value to consumer.
+     */
+    abstract void fire();
+
+    /**
+     * Cancel outstanding calls, and complete with current value.
+     * May be called from any thread.
+     */
+    public void cancel() {
+        token.cancel();
+        if (ThreadContext.get().getThread() == callerThr)
+            trigger();
+        else
+            callerThr.execute(this::trigger);
+    }
+
+    /**
+     * Is cancelled (or completed early), directly or via an enclosing ForkJoin.
+     *
+     * @return true if cancelled
+     */
+    public boolean isCancelled() {
+        return token.isCancelled();
+    }
+
+    /**
+     * Get cancel token of this ForkJoin.
+     *
+     * @return token
+     */
+    public CancelToken getToken() {
+        return token;
+    }
+
+    /**
+     * Get exception thrown by a call, which cancelled this ForkJoin.
+     *
+     * @return exception, or null
+     */
+    public RuntimeException getFailure() {
+        return failure;
+    }
+
+    /**
+     * Set failure handler, called (from caller thread) with the first exception thrown
+     * by a call or reply, instead of the result consumer.
+     * Call from caller thread, before result (or resultAsync).
+     *
+     * @param handler failure handler
+     */
+    public void onFailure(Consumer<RuntimeException> handler) {
+        failureHandler = Objects.requireNonNull(handler);
+        trigger();
+    }
+
+    //------------------------------------- forking:
+
+    /**
+     * Fork call to thread.
+     *
+     * @param toThread target thread
+     * @param call     call, then {@link #join} or pass result to a {@link Reply}
+     */
+    void fork(IGreenThr toThread, Runnable call) {
+        ++pendingCalls;
+        toThread.execute(task(call));
+    }
+
+    /**
+     * Fork call to actor.
+     *
+     * @param toRef target actor
+     * @param call  call, then {@link #join} or pass result to a {@link Reply}
+     * @param <A>   actor type
+     */
+    <A> void fork(IActorRef<A> toRef, Consumer<A> call) {
+        ++pendingCalls;
+        toRef.send(a -> task(() -> call.accept(a)).run());
+    }
+
+    /**
+     * Fork call, or run it inline if {@code split} has enough surplus tasks.
+     *
+     * @param split  granularity control
+     * @param call   forked call, then {@link #join}
+     * @param inline inline call, updating the value directly
+     */
+    void fork(AdaptiveSplit split, Runnable call, Runnable inline) {
+        if (split.shouldFork()) {
+            ++pendingCalls;
+            split.fork(task(call));
+        } else
+            task(inline).run();
+    }
+
+    /**
+     * Fork call with async response, or run it inline if {@code split} has enough surplus tasks;
+     * A synchronous result is then handled directly, without message.
+     *
+     * @param split granularity control
+     * @param back  reply
+     * @param call  call, passing result to {@code back}
+     */
+    void forkAsync(AdaptiveSplit split, Reply back, Runnable call) {
+        ++pendingCalls;
+        final Runnable task = task(call);
+        if (split.shouldFork()) {
+            split.fork(task);
+            return;
+        }
+        back.inline = true;
+        task.run();
+        back.inline = false;
+    }
+
+    //------------------------------------- replies:
+
+    /**
+     * Register call response at caller thread, and decrease #pendingCalls.
+     *
+     * @param reply action on receive
+     */
+    void join(Runnable reply) {
+        callerThr.execute(() -> {
+            if (!token.isCancelled())
+                runReply(reply);
+            --pendingCalls;
+            trigger();
+        });
+    }
+
+    /**
+     * Run reply in caller's context (its cancel token); An exception fails this ForkJoin.
+     */
+    void runReply(Runnable reply) {
+        final ThreadContext tc = ThreadContext.get();
+        final CancelToken prev = tc.setCancelToken(parentToken);
+        try {
+            reply.run();
+        } catch (RuntimeException e) {
+            setFailure(e);
+        } finally {
+            tc.setCancelToken(prev);
+        }
+    }
+
+    void trigger() {
+        if (isDone || !hasConsumer() && failureHandler == null)
+            return;
+        if (failure == null && (!hasConsumer() || pendingCalls > 0 && !token.isCancelled()))
+            return;
+        isDone = true;
+        final ThreadContext tc = ThreadContext.get();
+        final CancelToken prev = tc.setCancelToken(parentToken);
+        try {
+            if (failure == null) {
+                try {
+                    fire();
+                    return;
+                } catch (RuntimeException e) {
+                    setFailure(e);
+                }
+            }
+            if (failureHandler != null)
+                failureHandler.accept(failure);
+            else if (!parentToken.fail(failure))
+                throw failure;
+        } finally {
+            tc.setCancelToken(prev);
+        }
+    }
+
+    /**
+     * Async call response (base of the typed result consumers); Only the first result counts.
+     */
+    class Reply {
+        private int no;
+        private boolean inline;
+
+        /**
+         * Handle reply; directly if inline in caller thread, else via {@link #join}.
+         *
+         * @param reply action on receive
+         */
+        void reply(Runnable reply) {
+            if (++no != 1) return;
+            if (inline && ThreadContext.get().getThread() == callerThr) {
+                if (!token.isCancelled())
+                    runReply(reply);
+                --pendingCalls;
+                trigger();
+            } else
+                join(reply);
+        }
+    }
+
+    //-------------------------------------
+
+    private void setFailure(RuntimeException e) {
+        if (failure == null)
+            failure = e;
+        token.cancel();
+    }
+
+    /**
+     * Call failed (from any thread): cancel, and pass failure on from caller thread.
+     */
+    private void fail(RuntimeException e) {
+        setFailure(e);
+        if (ThreadContext.get().getThread() == callerThr)
+            trigger();
+        else
+            callerThr.execute(this::trigger);
+    }
+
+    /**
+     * Wrap call; skipped if cancelled, runs with this token as current,
+     * and fails this ForkJoin on exception.
+     */
+    private Runnable task(Runnable call) {
+        return () -> {
+            if (token.isCancelled())
+                return;
+            final ThreadContext tc = ThreadContext.get();
+            final CancelToken prev = tc.setCancelToken(token);
+            try {
+                call.run();
+            } catch (RuntimeException e) {
+                fail(e);
+            } finally {
+                tc.setCancelToken(prev);
+            }
+        };
+    }
+}
@@ -0,0 +1,317 @@
+/*
+ * Copyright (c) 2026 agent
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package flc.nbl_actors.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.*;
+import java.util.stream.Collector;
+
+/**
+ * Data-parallel stream on green threads.
+ * <p>A lazy pipeline (map, filter ..) over a {@link Spliterator}, evaluated by a terminal
+ * operation (forEach, reduce, collect, count, anyMatch) on threads of an {@link IGreenThrFactory}.
+ * Data is split with {@link Spliterator#trySplit()} and forked via {@link AdaptiveSplit};
+ * Each part is reduced separately, and partial results are combined (in encounter order)
+ * through {@link ForkJoin}, without locks.
+ * Terminal operations return at once, with an asynchronous result.
+ * </p>
+ * <p>Functions passed to a stream may be called concurrently from several threads,
+ * so they should be stateless (or thread-safe), as with java.util.stream.
+ * A stream (and its source) supports one terminal operation.
+ * If a function throws, the remaining work is cancelled and no result is delivered;
+ * The exception goes to the exception handler of the evaluating thread.
+ * </p>
+ * <pre>
+ * Example:
+ * {@code
+ *     GreenStream.of(factory, words)
+ *             .filter(w -> !w.isEmpty())
+ *             .map(String::length)
+ *             .reduce(0, Integer::sum)
+ *             .result(total -> ...);
+ * }
+ * </pre>
+ * <p>Date: 18.10.2026
+ * </p>
+ *
+ * @param <T> element type
+ * @author agent
+ */
+public class GreenStream<T> {
+    private final IGreenThrFactory factory;
+    private final Spliterator<Object> source;
+    private final Function<Consumer<? super T>, Consumer<Object>> stage; //wraps downstream sink
+    private final long minSize;
+
+    private GreenStream(IGreenThrFactory factory, Spliterator<Object> source,
+                        Function<Consumer<? super T>, Consumer<Object>> stage, long minSize) {
+        this.factory = factory;
+        this.source = source;
+        this.stage = stage;
+        this.minSize = minSize;
+    }
+
+    /**
+     * Stream from spliterator.
+     *
+     * @param factory thread factory
+     * @param data    source (not to be used elsewhere, once passed to the stream)
+     * @param <T>     element type
+     * @return new stream
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> GreenStream<T> of(IGreenThrFactory factory, Spliterator<T> data) {
+        return new GreenStream<>(Objects.requireNonNull(factory), (Spliterator<Object>) Objects.requireNonNull(data),
+                sink -> (Consumer<Object>) sink, 1);
+    }
+
+    /**
+     * Stream from collection.
+     *
+     * @param factory thread factory
+     * @param data    source
+     * @param <T>     element type
+     * @return new stream
+     */
+    public static <T> GreenStream<T> of(IGreenThrFactory factory, Collection<T> data) {
+        return of(factory, data.spliterator());
+    }
+
+    //------------------------------------- intermediate operations:
+
+    /**
+     * Minimum split size; Parts are not split below this (estimated) size.
+     *
+     * @param minSize min size (default 1)
+     * @return new stream
+     */
+    public GreenStream<T> grain(long minSize) {
+        return new GreenStream<>(factory, source, stage, Math.max(1, minSize));
+    }
+
+    /**
+     * Map elements.
+     *
+     * @param mapper mapping function
+     * @param <R>    new element type
+     * @return new stream
+     */
+    public <R> GreenStream<R> map(Function<? super T, ? extends R> mapper) {
+        Objects.requireNonNull(mapper);
+        return new GreenStream<>(factory, source,
+                sink -> stage.apply(t -> sink.accept(mapper.apply(t))), minSize);
+    }
+
+    /**
+     * Filter elements.
+     *
+     * @param predicate elements to keep
+     * @return new stream
+     */
+    public GreenStream<T> filter(Predicate<? super T> predicate) {
+        Objects.requireNonNull(predicate);
+        return new GreenStream<>(factory, source,
+                sink -> stage.apply(t -> {
+                    if (predicate.test(t))
+                        sink.accept(t);
+                }), minSize);
+    }
+
+    //------------------------------------- terminal operations:
+
+    /**
+     * Perform action on each element (in any order, from any thread).
+     *
+     * @param action action
+     * @return async result (null) when all elements are processed
+     */
+    public IASync<Void> forEach(Consumer<? super T> action) {
+        Objects.requireNonNull(action);
+        return evaluate(part -> {
+            part.forEachRemaining(stage.apply(action));
+            return null;
+        }, (a, b) -> null);
+    }
+
+    /**
+     * Reduce elements.
+     *
+     * @param identity identity value of {@code op}
+     * @param op       associative operator
+     * @return async result
+     */
+    public IASync<T> reduce(T identity, BinaryOperator<T> op) {
+        return reduce(identity, op, op);
+    }
+
+    /**
+     * Reduce elements, to another type.
+     *
+     * @param identity    identity value
+     * @param accumulator adds an element to a partial result
+     * @param combiner    combines two partial results
+     * @param <U>         result type
+     * @return async result
+     */
+    @SuppressWarnings("unchecked")
+    public <U> IASync<U> reduce(U identity, BiFunction<U, ? super T, U> accumulator, BinaryOperator<U> combiner) {
+        Objects.requireNonNull(accumulator);
+        Objects.requireNonNull(combiner);
+        return evaluate(part -> {
+            final Object[] acc = {identity};
+            part.forEachRemaining(stage.apply(t -> acc[0] = accumulator.apply((U) acc[0], t)));
+            return (U) acc[0];
+        }, combiner);
+    }
+
+    /**
+     * Mutable reduction, with a collector (eg. from {@link java.util.stream.Collectors}).
+     *
+     * @param collector collector
+     * @param <A>       intermediate accumulation type
+     * @param <R>       result type
+     * @return async result
+     */
+    public <A, R> IASync<R> collect(Collector<? super T, A, R> collector) {
+        final Supplier<A> supplier = collector.supplier();
+        final BiConsumer<A, ? super T> accumulator = collector.accumulator();
+        final Function<A, R> finisher = collector.finisher();
+        final ASyncValue<R> result = new ASyncValue<>();
+        evaluate(part -> {
+            final A container = supplier.get();
+            part.forEachRemaining(stage.apply(t -> accumulator.accept(container, t)));
+            return container;
+        }, collector.combiner()).result(a -> result.accept(finisher.apply(a)));
+        return result;
+    }
+
+    /**
+     * Mutable reduction.
+     *
+     * @param supplier    new result container
+     * @param accumulator adds an element to a container
+     * @param combiner    adds second container to first
+     * @param <R>         result type
+     * @return async result
+     */
+    public <R> IASync<R> collect(Supplier<R> supplier, BiConsumer<R, ? super T> accumulator, BiConsumer<R, R> combiner) {
+        Objects.requireNonNull(combiner);
+        return collect(Collector.of(supplier, accumulator, (a, b) -> {
+            combiner.accept(a, b);
+            return a;
+        }, Collector.Characteristics.IDENTITY_FINISH));
+    }
+
+    /**
+     * Does any element match; Short-circuits, cancelling remaining work on first match.
+     *
+     * @param predicate predicate
+     * @return async result
+     */
+    public IASync<Boolean> anyMatch(Predicate<? super T> predicate) {
+        Objects.requireNonNull(predicate);
+        final CancelToken token = new CancelToken();
+        final AtomicBoolean decided = new AtomicBoolean();
+        final ASyncValue<Boolean> result = new ASyncValue<>();
+        evaluate(token, part -> {
+            final boolean[] found = {false};
+            final Consumer<Object> sink = stage.apply(t -> {
+                if (!found[0] && predicate.test(t))
+                    found[0] = true;
+            });
+            //noinspection StatementWithEmptyBody
+            while (!found[0] && !token.isCancelled() && part.tryAdvance(sink)) {
+            }
+            if (found[0] && decided.compareAndSet(false, true)) {
+                token.cancel();
+                result.accept(true);
+            }
+            return found[0];
+        }, Boolean::logicalOr).result(v -> {
+            if (decided.compareAndSet(false, true))
+                result.accept(v);
+        });
+        return result;
+    }
+
+    /**
+     * Count elements.
+     *
+     * @return async result
+     */
+    public IASync<Long> count() {
+        return evaluate(part -> {
+            final long[] n = {0};
+            part.forEachRemaining(stage.apply(t -> ++n[0]));
+            return n[0];
+        }, Long::sum);
+    }
+
+    //-------------------------------------
+
+    private <A> IASync<A> evaluate(Function<Spliterator<Object>, A> leaf, BinaryOperator<A> combine) {
+        return evaluate(null, leaf, combine);
+    }
+
+    private <A> IASync<A> evaluate(CancelToken token, Function<Spliterator<Object>, A> leaf,
+                                   BinaryOperator<A> combine) {
+        final AdaptiveSplit split = new AdaptiveSplit(factory);
+        final ASyncValue<A> result = new ASyncValue<>();
+        factory.newThread().execute(() -> {
+            final ThreadContext tc = ThreadContext.get();
+            final CancelToken prev = tc.setCancelToken(token); //parent of ForkJoin tokens
+            try {
+                evaluate(split, source, leaf, combine).result(result::accept);
+            } finally {
+                tc.setCancelToken(prev);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Fork prefixes while threads need work, reduce the rest inline,
+     * then combine partial results in encounter order.
+     */
+    @SuppressWarnings("unchecked")
+    private <A> IASync<A> evaluate(AdaptiveSplit split, Spliterator<Object> data,
+                                   Function<Spliterator<Object>, A> leaf, BinaryOperator<A> combine) {
+        List<Object> parts = null;
+        ForkJoin<A> fj = null;
+        Spliterator<Object> part;
+        while (data.estimateSize() > minSize && split.shouldFork() && (part = data.trySplit()) != null) {
+            if (fj == null) {
+                fj = new ForkJoin<>();
+                parts = new ArrayList<>();
+            }
+            final Spliterator<Object> p = part;
+            final List<Object> results = parts;
+            final int ix = parts.size();
+            parts.add(null);
+            fj.callAsync(split, () -> evaluate(split, p, leaf, combine), v -> results.set(ix, v));
+        }
+        final A rest = leaf.apply(data);
+        if (fj == null)
+            return new ASyncDirect<>(rest);
+        final List<Object> results = parts;
+        final ForkJoin<A> join = fj;
+        return fj.resultAsync(ignore -> {
+            if (join.isCancelled())
+                return; //short-circuited; partial results are incomplete
+            A acc = (A) results.get(0);
+            for (int i = 1; i < results.size(); i++)
+                acc = combine.apply(acc, (A) results.get(i));
+            join.setValue(combine.apply(acc, rest));
+        });
+    }
+}
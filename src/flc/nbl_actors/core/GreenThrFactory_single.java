@@ -28,6 +28,9 @@ public class GreenThrFactory_single implements IGreenThrFactory {
     private volatile Consumer<Exception> exceptionHandler = e -> {};
     private final ActiveCount ac = new ActiveCount();
     private final List<IGreenThrFactory> threads = new ArrayList<>();
+    private volatile boolean isShutdown;
+    private final SchedulerMetrics metrics = new SchedulerMetrics("GreenThrFactory_single",
+            () -> 0, ac::getCount, () -> isShutdown);
 
     /**
      * Green thread factory using java.lang.Thread
@@ -61,6 +64,7 @@ public class GreenThrFactory_single implements IGreenThrFactory {
             };
             threads.add(thr);
             ac.listenTo(thr);
+            metrics.addPart(((GreenThr_single) thr).getMetrics());
         }
     }
 
@@ -87,7 +91,18 @@ public class GreenThrFactory_single implements IGreenThrFactory {
         }
     }
 
+    /**
+     * Runtime metrics; Totals of the threads (parts), and active thread count.
+     *
+     * @return metrics
+     */
+    public SchedulerMetrics getMetrics() {
+        return metrics;
+    }
+
     private void onShutdown() {
+        isShutdown = true;
+        metrics.unregister();
         final Consumer<Exception> old = exceptionHandler;
         exceptionHandler = e -> {
             if (!(e instanceof InterruptedException))
@@ -24,6 +24,8 @@ public class GreenThr_single implements IGreenThr, IGreenThrFactory {
     private final ThreadActivity threadActive = new ThreadActivity();
     private final IGreenThrFactory myFactory;
     private volatile Function<Runnable, Runnable> interceptor = r -> r;
+    private final SchedulerMetrics metrics = new SchedulerMetrics("GreenThr_single",
+            queue::size, () -> threadActive.isActive() ? 1 : 0, () -> isStopping);
 
     /**
      * Green-thread using java.lang.Thread.
@@ -73,10 +75,13 @@ public class GreenThr_single implements IGreenThr, IGreenThrFactory {
                         threadActive.setActive(true);
                         while (task != null) {
                             tc.beforeRun();
+                            metrics.onExecuted();
                             task.run();
                             task = queue.poll();
                         }
                     } catch (Exception e) {
+                        if (!(e instanceof InterruptedException))
+                            metrics.onException();
                         onException(e);
                     }
                     threadActive.setActive(false);
@@ -93,6 +98,13 @@ public class GreenThr_single implements IGreenThr, IGreenThrFactory {
         return this;
     }
 
+    /**
+     * @return runtime metrics (executed messages, exceptions, queue length..)
+     */
+    public SchedulerMetrics getMetrics() {
+        return metrics;
+    }
+
     public void onException(Exception e) {
         ThreadContext.logTrace(e, "/GreenThr_single");
     }
@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2026 agent
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package flc.nbl_actors.core;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Asynchronous long result; {@link IASync} without boxing.
+ * <p>Date: 18.10.2026
+ * </p>
+ *
+ * @author agent
+ * @see LongForkJoin
+ */
+public interface IASyncLong {
+    /**
+     * Set future result handler
+     *
+     * @param consumer called from caller or producer thread.
+     */
+    void result(LongConsumer consumer);
+
+    /**
+     * Immediately available result.
+     *
+     * @param value value
+     * @return result
+     */
+    static IASyncLong of(long value) {
+        return c -> c.accept(value);
+    }
+}
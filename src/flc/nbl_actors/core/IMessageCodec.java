@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2026 agent
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package flc.nbl_actors.core;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Message codec. Binary encoding of messages which can leave the heap
+ * (eg. a {@link Runnable} thread message, or the {@code Consumer<A>} of an actor message).
+ * Plain lambdas have no encoding; {@link #encode} returns false for them.
+ * <p>Date: 18.10.2026
+ * </p>
+ *
+ * @author agent
+ * @see SpillMailbox
+ */
+public interface IMessageCodec {
+
+    /**
+     * Encode message (relative put operations).
+     * If the message type has no encoding, nothing is written.
+     *
+     * @param msg message
+     * @param out output buffer
+     * @return false if message can not be encoded
+     * @throws java.nio.BufferOverflowException if not enough space in buffer
+     */
+    boolean encode(Object msg, ByteBuffer out);
+
+    /**
+     * Decode message (relative get operations).
+     *
+     * @param in input buffer
+     * @return message
+     */
+    Object decode(ByteBuffer in);
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2026 agent
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package flc.nbl_actors.core;
+
+import java.util.Objects;
+import java.util.function.*;
+
+/**
+ * Fork/Join utility for int results; {@link ForkJoin} with an unboxed value.
+ * <p>Replies are merged into the current value with a {@link IntBinaryOperator}
+ * ((int currValue, int returned) -&gt; new value), on the caller thread.
+ * Cancellation and failure work as in ForkJoin.
+ * </p>
+ * <pre>
+ * Example:
+ * {@code
+ *     static IASyncInt sum(AdaptiveSplit split, int[] arr, int from, int to) {
+ *         if (to - from < 1000) return IASyncInt.of(sequentialSum(arr, from, to));
+ *         int mid = (from + to) >>> 1;
+ *         IntForkJoin fj = new IntForkJoin(0);
+ *         fj.callAsync(split, () -> sum(split, arr, from, mid), (v, r) -> v + r);
+ *         fj.callAsync(split, () -> sum(split, arr, mid, to), (v, r) -> v + r);
+ *         return fj.resultAsync();
+ *     }
+ * }
+ * </pre>
+ * <p>Date: 18.10.2026
+ * </p>
+ *
+ * @author agent
+ */
+public class IntForkJoin extends ForkJoinBase {
+    private int value;
+    private IntConsumer consumer;
+
+    /**
+     * Initiate fork/join with caller thread and a start value.
+     *
+     * @param thr   caller thread (handles individual call-replies)
+     * @param value initial value
+     */
+    public IntForkJoin(IGreenThr thr, int value) {
+        super(thr);
+        this.value = value;
+    }
+
+    /**
+     * Initiate fork/join with a start value, using current thread.
+     *
+     * @param value initial value
+     */
+    public IntForkJoin(int value) {
+        this(ThreadContext.get().getThread(), value);
+    }
+
+    //------------------------------------- IGreenThr calls:
+
+    /**
+     * Call thread and update local value
+     *
+     * @param toThread target thread
+     * @param call     action at target thread
+     * @param reply    reply action at this thread ((currValue, returned) -&gt; new value)
+     */
+    public void call(IGreenThr toThread, IntSupplier call, IntBinaryOperator reply) {
+        fork(toThread, () -> {
+            final int v = call.getAsInt();
+            join(() -> value = reply.applyAsInt(value, v));
+        });
+    }
+
+    /**
+     * Call thread with async response and update local value
+     *
+     * @param toThread target thread
+     * @param call     action at target thread
+     * @param reply    reply action at this thread ((currValue, returned) -&gt; new value)
+     */
+    public void callAsync(IGreenThr toThread, Supplier<IASyncInt> call, IntBinaryOperator reply) {
+        final SendBack back = new SendBack(reply);
+        fork(toThread, () -> call.get().result(back));
+    }
+
+    //------------------------------------- IActorRef calls:
+
+    /**
+     * Call actor and update local value
+     *
+     * @param toRef target actor
+     * @param call  action at target
+     * @param reply reply action at this thread ((currValue, returned) -&gt; new value)
+     * @param <A>   actor type
+     */
+    public <A> void call(IActorRef<A> toRef, ToIntFunction<A> call, IntBinaryOperator reply) {
+        fork(toRef, a -> {
+            final int v = call.applyAsInt(a);
+            join(() -> value = reply.applyAsInt(value, v));
+        });
+    }
+
+    /**
+     * Call actor with async response and update local value
+     *
+     * @param toRef target actor
+     * @param call  action at target
+     * @param reply reply action at this thread ((currValue, returned) -&gt; new value)
+     * @param <A>   actor type
+     */
+    public <A> void callAsync(IActorRef<A> toRef, Function<A, IASyncInt> call, IntBinaryOperator reply) {
+        final SendBack back = new SendBack(reply);
+        fork(toRef, a -> call.apply(a).result(back));
+    }
+
+    //------------------------------------- AdaptiveSplit calls:
+
+    /**
+     * Call and update local value; Forked to another thread,
+     * or run inline if {@code split} has enough surplus tasks.
+     *
+     * @param split granularity control
+     * @param call  action
+     * @param reply reply action at this thread ((currValue, returned) -&gt; new value)
+     */
+    public void call(AdaptiveSplit split, IntSupplier call, IntBinaryOperator reply) {
+        fork(split, () -> {
+            final int v = call.getAsInt();
+            join(() -> value = reply.applyAsInt(value, v));
+        }, () -> value = reply.applyAsInt(value, call.getAsInt()));
+    }
+
+    /**
+     * Call with async response and update local value; Forked to another thread,
+     * or run inline if {@code split} has enough surplus tasks.
+     *
+     * @param split granularity control
+     * @param call  action
+     * @param reply reply action at this thread ((currValue, returned) -&gt; new value)
+     */
+    public void callAsync(AdaptiveSplit split, Supplier<IASyncInt> call, IntBinaryOperator reply) {
+        final SendBack back = new SendBack(reply);
+        forkAsync(split, back, () -> call.get().result(back));
+    }
+
+    //-------------------------------------
+
+    /**
+     * Set current value
+     *
+     * @param value value
+     */
+    public void setValue(int value) {
+        this.value = value;
+    }
+
+    /**
+     * Get current value
+     *
+     * @return value
+     */
+    public int getValue() {
+        return value;
+    }
+
+    /**
+     * Complete now with value; Short-circuit: the result is decided,
+     * so outstanding calls are cancelled. Call from caller thread (eg. in a reply).
+     *
+     * @param value result value
+     */
+    public void complete(int value) {
+        this.value = value;
+        cancel();
+    }
+
+    /**
+     * Consume result when ready
+     *
+     * @param cons consumer
+     */
+    public void result(IntConsumer cons) {
+        consumer = Objects.requireNonNull(cons);
+        isDone = false;
+        trigger();
+    }
+
+    /**
+     * Get future result
+     *
+     * @return future result
+     */
+    public IASyncInt resultAsync() {
+        final ASyncInt av = new ASyncInt();
+        result(av);
+        return av;
+    }
+
+    @Override
+    boolean hasConsumer() {
+        return consumer != null;
+    }
+
+    @Override
+    void fire() {
+        consumer.accept(value);
+    }
+
+    private class SendBack extends Reply implements IntConsumer {
+        final IntBinaryOperator reply;
+
+        private SendBack(IntBinaryOperator reply) {
+            this.reply = reply;
+        }
+
+        @Override
+        public void accept(int v) {
+            reply(() -> value = reply.applyAsInt(value, v));
+        }
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2026 agent
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package flc.nbl_actors.core;
+
+import java.util.Objects;
+import java.util.function.*;
+
+/**
+ * Fork/Join utility for long results; {@link ForkJoin} with an unboxed value.
+ * <p>Replies are merged into the current value with a {@link LongBinaryOperator}
+ * ((long currValue, long returned) -&gt; new value), on the caller thread.
+ * Cancellation and failure work as in ForkJoin.
+ * </p>
+ * <pre>
+ * Example:
+ * {@code
+ *     static IASyncLong sum(AdaptiveSplit split, long[] arr, int from, int to) {
+ *         if (to - from < 1000) return IASyncLong.of(sequentialSum(arr, from, to));
+ *         int mid = (from + to) >>> 1;
+ *         LongForkJoin fj = new LongForkJoin(0);
+ *         fj.callAsync(split, () -> sum(split, arr, from, mid), (v, r) -> v + r);
+ *         fj.callAsync(split, () -> sum(split, arr, mid, to), (v, r) -> v + r);
+ *         return fj.resultAsync();
+ *     }
+ * }
+ * </pre>
+ * <p>Date: 18.10.2026
+ * </p>
+ *
+ * @author agent
+ */
+public class LongForkJoin extends ForkJoinBase {
+    private long value;
+    private LongConsumer consumer;
+
+    /**
+     * Initiate fork/join with caller thread and a start value.
+     *
+     * @param thr   caller thread (handles individual call-replies)
+     * @param value initial value
+     */
+    public LongForkJoin(IGreenThr thr, long value) {
+        super(thr);
+        this.value = value;
+    }
+
+    /**
+     * Initiate fork/join with a start value, using current thread.
+     *
+     * @param value initial value
+     */
+    public LongForkJoin(long value) {
+        this(ThreadContext.get().getThread(), value);
+    }
+
+    //------------------------------------- IGreenThr calls:
+
+    /**
+     * Call thread and update local value
+     *
+     * @param toThread target thread
+     * @param call     action at target thread
+     * @param reply    reply action at this thread ((currValue, returned) -&gt; new value)
+     */
+    public void call(IGreenThr toThread, LongSupplier call, LongBinaryOperator reply) {
+        fork(toThread, () -> {
+            final long v = call.getAsLong();
+            join(() -> value = reply.applyAsLong(value, v));
+        });
+    }
+
+    /**
+     * Call thread with async response and update local value
+     *
+     * @param toThread target thread
+     * @param call     action at target thread
+     * @param reply    reply action at this thread ((currValue, returned) -&gt; new value)
+     */
+    public void callAsync(IGreenThr toThread, Supplier<IASyncLong> call, LongBinaryOperator reply) {
+        final SendBack back = new SendBack(reply);
+        fork(toThread, () -> call.get().result(back));
+    }
+
+    //------------------------------------- IActorRef calls:
+
+    /**
+     * Call actor and update local value
+     *
+     * @param toRef target actor
+     * @param call  action at target
+     * @param reply reply action at this thread ((currValue, returned) -&gt; new value)
+     * @param <A>   actor type
+     */
+    public <A> void call(IActorRef<A> toRef, ToLongFunction<A> call, LongBinaryOperator reply) {
+        fork(toRef, a -> {
+            final long v = call.applyAsLong(a);
+            join(() -> value = reply.applyAsLong(value, v));
+        });
+    }
+
+    /**
+     * Call actor with async response and update local value
+     *
+     * @param toRef target actor
+     * @param call  action at target
+     * @param reply reply action at this thread ((currValue, returned) -&gt; new value)
+     * @param <A>   actor type
+     */
+    public <A> void callAsync(IActorRef<A> toRef, Function<A, IASyncLong> call, LongBinaryOperator reply) {
+        final SendBack back = new SendBack(reply);
+        fork(toRef, a -> call.apply(a).result(back));
+    }
+
+    //------------------------------------- AdaptiveSplit calls:
+
+    /**
+     * Call and update local value; Forked to another thread,
+     * or run inline if {@code split} has enough surplus tasks.
+     *
+     * @param split granularity control
+     * @param call  action
+     * @param reply reply action at this thread ((currValue, returned) -&gt; new value)
+     */
+    public void call(AdaptiveSplit split, LongSupplier call, LongBinaryOperator reply) {
+        fork(split, () -> {
+            final long v = call.getAsLong();
+            join(() -> value = reply.applyAsLong(value, v));
+        }, () -> value = reply.applyAsLong(value, call.getAsLong()));
+    }
+
+    /**
+     * Call with async response and update local value; Forked to another thread,
+     * or run inline if {@code split} has enough surplus tasks.
+     *
+     * @param split granularity control
+     * @param call  action
+     * @param reply reply action at this thread ((currValue, returned) -&gt; new value)
+     */
+    public void callAsync(AdaptiveSplit split, Supplier<IASyncLong> call, LongBinaryOperator reply) {
+        final SendBack back = new SendBack(reply);
+        forkAsync(split, back, () -> call.get().result(back));
+    }
+
+    //-------------------------------------
+
+    /**
+     * Set current value
+     *
+     * @param value value
+     */
+    public void setValue(long value) {
+        this.value = value;
+    }
+
+    /**
+     * Get current value
+     *
+     * @return value
+     */
+    public long getValue() {
+        return value;
+    }
+
+    /**
+     * Complete now with value; Short-circuit: the result is decided,
+     * so outstanding calls are cancelled. Call from caller thread (eg. in a reply).
+     *
+     * @param value result value
+     */
+    public void complete(long value) {
+        this.value = value;
+        cancel();
+    }
+
+    /**
+     * Consume result when ready
+     *
+     * @param cons consumer
+     */
+    public void result(LongConsumer cons) {
+        consumer = Objects.requireNonNull(cons);
+        isDone = false;
+        trigger();
+    }
+
+    /**
+     * Get future result
+     *
+     * @return future result
+     */
+    public IASyncLong resultAsync() {
+        final ASyncLong av = new ASyncLong();
+        result(av);
+        return av;
+    }
+
+    @Override
+    boolean hasConsumer() {
+        return consumer != null;
+    }
+
+    @Override
+    void fire() {
+        consumer.accept(value);
+    }
+
+    private class SendBack extends Reply implements LongConsumer {
+        final LongBinaryOperator reply;
+
+        private SendBack(LongBinaryOperator reply) {
+            this.reply = reply;
+        }
+
+        @Override
+        public void accept(long v) {
+            reply(() -> value = reply.applyAsLong(value, v));
+        }
+    }
+}
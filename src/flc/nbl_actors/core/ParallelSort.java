@@ -0,0 +1,405 @@
+/*
+ * Copyright (c) 2026 agent
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package flc.nbl_actors.core;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Parallel merge sort on green threads.
+ * <p>Sorts int[], long[], double[], Object[] (with Comparator) and Lists, in place.
+ * The array is split recursively (forked via {@link AdaptiveSplit}); Leaves are sorted
+ * sequentially ({@link Arrays#sort}), and sorted halves
+ * are merged in parallel: the larger run is split at its middle, the other at the matching
+ * position found by binary search, and both halves merge independently.
+ * Levels alternate between the array and one work buffer (no copy back per level);
+ * Primitive work buffers are reused between sorts, up to {@value #MAX_SPARE} elements
+ * (one buffer per element type; Larger buffers are left to the garbage collector).
+ * </p>
+ * <p>Object sorting is stable. double[] is sorted as {@link Arrays#sort(double[])}
+ * ({@link Double#compare} order).
+ * If the comparator throws, the sort is cancelled and no result is delivered;
+ * The exception goes to the exception handler of the sorting thread
+ * (the array is then partly sorted).
+ * </p>
+ * <pre>
+ * Example:
+ * {@code
+ *     new ParallelSort(factory).sort(values)
+ *             .result(sorted -> ...);
+ * }
+ * </pre>
+ * <p>Date: 18.10.2026
+ * </p>
+ *
+ * @author agent
+ */
+public class ParallelSort {
+    /**
+     * Largest primitive work buffer (elements) kept for reuse
+     */
+    public static final int MAX_SPARE = 1 << 20;
+    private static final int LEAF_SIZE = 1 << 13, MERGE_LEAF_SIZE = 1 << 13;
+    private static final IASync<Object> DONE = new ASyncDirect<>(null);
+    private static final Consumer<Object> NO_REPLY = v -> {
+    };
+
+    private final IGreenThrFactory factory;
+    private final AtomicReference<int[]> spareInt = new AtomicReference<>();
+    private final AtomicReference<long[]> spareLong = new AtomicReference<>();
+    private final AtomicReference<double[]> spareDouble = new AtomicReference<>();
+
+    /**
+     * @param factory thread factory
+     */
+    public ParallelSort(IGreenThrFactory factory) {
+        this.factory = Objects.requireNonNull(factory);
+    }
+
+    /**
+     * Sort array in place.
+     *
+     * @param a array
+     * @return async result (same array), when sorted
+     */
+    public IASync<int[]> sort(int[] a) {
+        final int[] buf = spareInt.getAndSet(null);
+        return run(a, a.length, buf != null && buf.length >= a.length ? buf : new int[a.length], INT, spareInt);
+    }
+
+    /**
+     * Sort array in place.
+     *
+     * @param a array
+     * @return async result (same array), when sorted
+     */
+    public IASync<long[]> sort(long[] a) {
+        final long[] buf = spareLong.getAndSet(null);
+        return run(a, a.length, buf != null && buf.length >= a.length ? buf : new long[a.length], LONG, spareLong);
+    }
+
+    /**
+     * Sort array in place.
+     *
+     * @param a array
+     * @return async result (same array), when sorted
+     */
+    public IASync<double[]> sort(double[] a) {
+        final double[] buf = spareDouble.getAndSet(null);
+        return run(a, a.length, buf != null && buf.length >= a.length ? buf : new double[a.length], DOUBLE, spareDouble);
+    }
+
+    /**
+     * Sort array in place (stable).
+     *
+     * @param a          array
+     * @param comparator order
+     * @param <T>        element type
+     * @return async result (same array), when sorted
+     */
+    @SuppressWarnings("unchecked")
+    public <T> IASync<T[]> sort(T[] a, Comparator<? super T> comparator) {
+        final Ops<T[]> ops = (Ops<T[]>) (Ops<?>) new ObjOps<>(comparator);
+        return run(a, a.length, (T[]) new Object[a.length], ops, null);
+    }
+
+    /**
+     * Sort array in natural order, in place (stable).
+     *
+     * @param a   array
+     * @param <T> element type
+     * @return async result (same array), when sorted
+     */
+    public <T extends Comparable<? super T>> IASync<T[]> sort(T[] a) {
+        return sort(a, Comparator.naturalOrder());
+    }
+
+    /**
+     * Sort list in place (stable); Elements are sorted in an array, then written back
+     * (as {@link List#sort}). Do not modify the list while sorting.
+     *
+     * @param list       list
+     * @param comparator order
+     * @param <T>        element type
+     * @return async result (same list), when sorted
+     */
+    @SuppressWarnings("unchecked")
+    public <T> IASync<List<T>> sort(List<T> list, Comparator<? super T> comparator) {
+        final T[] arr = (T[]) list.toArray();
+        final ASyncValue<List<T>> result = new ASyncValue<>();
+        sort(arr, comparator).result(sorted -> {
+            final ListIterator<T> it = list.listIterator();
+            for (T e : sorted) {
+                it.next();
+                it.set(e);
+            }
+            result.accept(list);
+        });
+        return result;
+    }
+
+    //------------------------------------- algorithm:
+
+    private <A> IASync<A> run(A a, int n, A buf, Ops<A> ops, AtomicReference<A> spare) {
+        final ASyncValue<A> result = new ASyncValue<>();
+        final Sorter<A> s = new Sorter<>(a, buf, ops, new AdaptiveSplit(factory));
+        factory.newThread().execute(() -> s.sort(0, n, true).result(ignore -> {
+            if (spare != null && n <= MAX_SPARE)
+                spare.set(buf); //reuse in next sort
+            result.accept(a);
+        }));
+        return result;
+    }
+
+    private static class Sorter<A> {
+        final A a, b;
+        final Ops<A> ops;
+        final AdaptiveSplit split;
+
+        Sorter(A a, A b, Ops<A> ops, AdaptiveSplit split) {
+            this.a = a;
+            this.b = b;
+            this.ops = ops;
+            this.split = split;
+        }
+
+        /**
+         * Sort range; result in {@code a} if toA, else in {@code b}.
+         */
+        IASync<Object> sort(int lo, int hi, boolean toA) {
+            if (hi - lo <= LEAF_SIZE) {
+                ops.sort(a, lo, hi);
+                if (!toA)
+                    System.arraycopy(a, lo, b, lo, hi - lo);
+                return DONE;
+            }
+            final int mid = (lo + hi) >>> 1;
+            final ForkJoin<Object> fj = new ForkJoin<>();
+            fj.callAsync(split, () -> sort(lo, mid, !toA), NO_REPLY);
+            fj.callAsync(split, () -> sort(mid, hi, !toA), NO_REPLY);
+            final ASyncValue<Object> done = new ASyncValue<>();
+            fj.result(ignore -> {
+                final A src = toA ? b : a, dst = toA ? a : b;
+                merge(src, lo, mid, mid, hi, dst, lo).result(done::accept);
+            });
+            return done;
+        }
+
+        /**
+         * Merge sorted runs src[lo1, hi1) and src[lo2, hi2) into dst from d.
+         */
+        IASync<Object> merge(A src, int lo1, int hi1, int lo2, int hi2, A dst, int d) {
+            final int n1 = hi1 - lo1, n2 = hi2 - lo2;
+            if (n1 + n2 <= MERGE_LEAF_SIZE || n1 == 0 || n2 == 0) {
+                ops.merge(src, lo1, hi1, lo2, hi2, dst, d);
+                return DONE;
+            }
+            final int m1, m2;
+            if (n1 >= n2) { //left before equal right elements (stable)
+                m1 = (lo1 + hi1) >>> 1;
+                m2 = ops.lowerBound(src, lo2, hi2, m1);
+            } else {
+                m2 = (lo2 + hi2) >>> 1;
+                m1 = ops.upperBound(src, lo1, hi1, m2);
+            }
+            final int d2 = d + (m1 - lo1) + (m2 - lo2);
+            final ForkJoin<Object> fj = new ForkJoin<>();
+            fj.callAsync(split, () -> merge(src, lo1, m1, lo2, m2, dst, d), NO_REPLY);
+            fj.callAsync(split, () -> merge(src, m1, hi1, m2, hi2, dst, d2), NO_REPLY);
+            return fj.resultAsync();
+        }
+    }
+
+    /**
+     * Element operations, per array type.
+     */
+    private interface Ops<A> {
+        void sort(A a, int lo, int hi);
+
+        void merge(A src, int lo1, int hi1, int lo2, int hi2, A dst, int d);
+
+        /**
+         * @return first index in [lo, hi) with a[i] &gt;= a[key]
+         */
+        int lowerBound(A a, int lo, int hi, int key);
+
+        /**
+         * @return first index in [lo, hi) with a[i] &gt; a[key]
+         */
+        int upperBound(A a, int lo, int hi, int key);
+    }
+
+    private static final Ops<int[]> INT = new Ops<int[]>() {
+        @Override
+        public void sort(int[] a, int lo, int hi) {
+            Arrays.sort(a, lo, hi);
+        }
+
+        @Override
+        public void merge(int[] src, int i, int hi1, int j, int hi2, int[] dst, int d) {
+            while (i < hi1 && j < hi2)
+                dst[d++] = src[j] < src[i] ? src[j++] : src[i++];
+            if (i < hi1)
+                System.arraycopy(src, i, dst, d, hi1 - i);
+            else if (j < hi2)
+                System.arraycopy(src, j, dst, d, hi2 - j);
+        }
+
+        @Override
+        public int lowerBound(int[] a, int lo, int hi, int key) {
+            final int k = a[key];
+            while (lo < hi) {
+                final int m = (lo + hi) >>> 1;
+                if (a[m] < k) lo = m + 1;
+                else hi = m;
+            }
+            return lo;
+        }
+
+        @Override
+        public int upperBound(int[] a, int lo, int hi, int key) {
+            final int k = a[key];
+            while (lo < hi) {
+                final int m = (lo + hi) >>> 1;
+                if (a[m] <= k) lo = m + 1;
+                else hi = m;
+            }
+            return lo;
+        }
+    };
+
+    private static final Ops<long[]> LONG = new Ops<long[]>() {
+        @Override
+        public void sort(long[] a, int lo, int hi) {
+            Arrays.sort(a, lo, hi);
+        }
+
+        @Override
+        public void merge(long[] src, int i, int hi1, int j, int hi2, long[] dst, int d) {
+            while (i < hi1 && j < hi2)
+                dst[d++] = src[j] < src[i] ? src[j++] : src[i++];
+            if (i < hi1)
+                System.arraycopy(src, i, dst, d, hi1 - i);
+            else if (j < hi2)
+                System.arraycopy(src, j, dst, d, hi2 - j);
+        }
+
+        @Override
+        public int lowerBound(long[] a, int lo, int hi, int key) {
+            final long k = a[key];
+            while (lo < hi) {
+                final int m = (lo + hi) >>> 1;
+                if (a[m] < k) lo = m + 1;
+                else hi = m;
+            }
+            return lo;
+        }
+
+        @Override
+        public int upperBound(long[] a, int lo, int hi, int key) {
+            final long k = a[key];
+            while (lo < hi) {
+                final int m = (lo + hi) >>> 1;
+                if (a[m] <= k) lo = m + 1;
+                else hi = m;
+            }
+            return lo;
+        }
+    };
+
+    private static final Ops<double[]> DOUBLE = new Ops<double[]>() {
+        @Override
+        public void sort(double[] a, int lo, int hi) {
+            Arrays.sort(a, lo, hi);
+        }
+
+        @Override
+        public void merge(double[] src, int i, int hi1, int j, int hi2, double[] dst, int d) {
+            while (i < hi1 && j < hi2)
+                dst[d++] = Double.compare(src[j], src[i]) < 0 ? src[j++] : src[i++];
+            if (i < hi1)
+                System.arraycopy(src, i, dst, d, hi1 - i);
+            else if (j < hi2)
+                System.arraycopy(src, j, dst, d, hi2 - j);
+        }
+
+        @Override
+        public int lowerBound(double[] a, int lo, int hi, int key) {
+            final double k = a[key];
+            while (lo < hi) {
+                final int m = (lo + hi) >>> 1;
+                if (Double.compare(a[m], k) < 0) lo = m + 1;
+                else hi = m;
+            }
+            return lo;
+        }
+
+        @Override
+        public int upperBound(double[] a, int lo, int hi, int key) {
+            final double k = a[key];
+            while (lo < hi) {
+                final int m = (lo + hi) >>> 1;
+                if (Double.compare(a[m], k) <= 0) lo = m + 1;
+                else hi = m;
+            }
+            return lo;
+        }
+    };
+
+    private static class ObjOps<T> implements Ops<Object[]> {
+        final Comparator<? super T> c;
+
+        ObjOps(Comparator<? super T> c) {
+            this.c = Objects.requireNonNull(c);
+        }
+
+        @SuppressWarnings("unchecked")
+        int compare(Object x, Object y) {
+            return c.compare((T) x, (T) y);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public void sort(Object[] a, int lo, int hi) {
+            Arrays.sort((T[]) a, lo, hi, c);
+        }
+
+        @Override
+        public void merge(Object[] src, int i, int hi1, int j, int hi2, Object[] dst, int d) {
+            while (i < hi1 && j < hi2)
+                dst[d++] = compare(src[j], src[i]) < 0 ? src[j++] : src[i++];
+            if (i < hi1)
+                System.arraycopy(src, i, dst, d, hi1 - i);
+            else if (j < hi2)
+                System.arraycopy(src, j, dst, d, hi2 - j);
+        }
+
+        @Override
+        public int lowerBound(Object[] a, int lo, int hi, int key) {
+            final Object k = a[key];
+            while (lo < hi) {
+                final int m = (lo + hi) >>> 1;
+                if (compare(a[m], k) < 0) lo = m + 1;
+                else hi = m;
+            }
+            return lo;
+        }
+
+        @Override
+        public int upperBound(Object[] a, int lo, int hi, int key) {
+            final Object k = a[key];
+            while (lo < hi) {
+                final int m = (lo + hi) >>> 1;
+                if (compare(a[m], k) <= 0) lo = m + 1;
+                else hi = m;
+            }
+            return lo;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2026 agent
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package flc.nbl_actors.core;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntSupplier;
+
+/**
+ * Runtime metrics of a green-thread scheduler (factory, or single green thread),
+ * available as a platform MBean.
+ * <p>Counters are {@link LongAdder}s, updated by the scheduler's threads;
+ * Queue length, active threads and shutdown state are read on demand.
+ * Counts of parts (eg. the threads of a factory) are included in the totals.
+ * </p>
+ * <p>The factories unregister their MBeans on shutdown.
+ * </p>
+ * <pre>
+ * Example:
+ * {@code
+ *     GreenThrFactory_single factory = new GreenThrFactory_single(4);
+ *     factory.getMetrics().register(true); //factory, and one MBean per thread
+ *     // -> flc.nbl_actors:type=GreenThrFactory_single,name=GreenThrFactory_single-1
+ * }
+ * </pre>
+ * <p>Date: 18.10.2026
+ * </p>
+ *
+ * @author agent
+ */
+public class SchedulerMetrics implements SchedulerMetricsMBean {
+    /**
+     * JMX domain of registered MBeans
+     */
+    public static final String DOMAIN = "flc.nbl_actors";
+    private static final ConcurrentHashMap<String, AtomicInteger> instanceNo = new ConcurrentHashMap<>();
+
+    private final String type, name;
+    private final LongAdder executed = new LongAdder(), exceptions = new LongAdder();
+    private final IntSupplier queueLength, activeThreads;
+    private final BooleanSupplier shutdown;
+    private final List<SchedulerMetrics> parts = new CopyOnWriteArrayList<>();
+    private final List<ObjectName> registered = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param type          scheduler type (eg. class name)
+     * @param queueLength   queued messages, not counting parts
+     * @param activeThreads active real threads (including parts)
+     * @param shutdown      shutdown state
+     */
+    public SchedulerMetrics(String type, IntSupplier queueLength, IntSupplier activeThreads,
+                            BooleanSupplier shutdown) {
+        this.type = type;
+        this.name = type + "-" + instanceNo.computeIfAbsent(type, t -> new AtomicInteger()).incrementAndGet();
+        this.queueLength = queueLength;
+        this.activeThreads = activeThreads;
+        this.shutdown = shutdown;
+    }
+
+    /**
+     * Count executed message.
+     */
+    public void onExecuted() {
+        executed.increment();
+    }
+
+    /**
+     * Count exception thrown from message.
+     */
+    public void onException() {
+        exceptions.increment();
+    }
+
+    /**
+     * Add part, included in totals.
+     *
+     * @param part part metrics
+     */
+    public void addPart(SchedulerMetrics part) {
+        parts.add(part);
+    }
+
+    /**
+     * @return parts (eg. per green thread)
+     */
+    public List<SchedulerMetrics> getParts() {
+        return Collections.unmodifiableList(parts);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getMessagesExecuted() {
+        long n = executed.sum();
+        for (SchedulerMetrics p : parts)
+            n += p.getMessagesExecuted();
+        return n;
+    }
+
+    @Override
+    public long getExceptions() {
+        long n = exceptions.sum();
+        for (SchedulerMetrics p : parts)
+            n += p.getExceptions();
+        return n;
+    }
+
+    @Override
+    public int getQueueLength() {
+        int n = queueLength.getAsInt();
+        for (SchedulerMetrics p : parts)
+            n += p.getQueueLength();
+        return n;
+    }
+
+    @Override
+    public int getActiveThreads() {
+        return activeThreads.getAsInt();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown.getAsBoolean();
+    }
+
+    /**
+     * @return JMX object name: {@code flc.nbl_actors:type=<type>,name=<name>}
+     * @throws JMException if invalid
+     */
+    public ObjectName getObjectName() throws JMException {
+        return new ObjectName(DOMAIN + ":type=" + type + ",name=" + name);
+    }
+
+    /**
+     * Register as platform MBean.
+     *
+     * @param withParts also register parts
+     * @return this
+     * @throws JMException if registration failed (eg. already registered)
+     */
+    public SchedulerMetrics register(boolean withParts) throws JMException {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        final ObjectName on = getObjectName();
+        server.registerMBean(this, on);
+        registered.add(on);
+        if (withParts)
+            for (SchedulerMetrics p : parts)
+                p.register(false);
+        return this;
+    }
+
+    /**
+     * Unregister MBeans registered by {@link #register(boolean)}.
+     */
+    public void unregister() {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName on : registered) {
+            try {
+                server.unregisterMBean(on);
+            } catch (JMException ignore) { //already unregistered
+            }
+        }
+        registered.clear();
+        for (SchedulerMetrics p : parts)
+            p.unregister();
+    }
+
+    @Override
+    public String toString() {
+        return name + "{executed=" + getMessagesExecuted() + ", exceptions=" + getExceptions()
+                + ", queued=" + getQueueLength() + ", active=" + getActiveThreads()
+                + ", shutdown=" + isShutdown() + "}";
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2026 agent
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package flc.nbl_actors.core;
+
+/**
+ * JMX management interface of {@link SchedulerMetrics}.
+ * <p>Date: 18.10.2026
+ * </p>
+ *
+ * @author agent
+ */
+public interface SchedulerMetricsMBean {
+
+    /**
+     * @return scheduler name (unique per process)
+     */
+    String getName();
+
+    /**
+     * @return number of messages executed
+     */
+    long getMessagesExecuted();
+
+    /**
+     * @return number of exceptions thrown from messages
+     */
+    long getExceptions();
+
+    /**
+     * @return number of queued messages (approximate)
+     */
+    int getQueueLength();
+
+    /**
+     * @return number of active (busy) real threads
+     */
+    int getActiveThreads();
+
+    /**
+     * @return true if shut down
+     */
+    boolean isShutdown();
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2026 agent
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package flc.nbl_actors.core;
+
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Actor reference with parallel reads and serial writes.
+ * <p>Messages sent via {@link #send(Consumer)} (writes) are processed sequentially
+ * by the actor's green-thread, as with {@link ActorRef}. After each write message,
+ * an immutable snapshot of the actor state (S) is published.
+ * Read-only queries are answered from the latest published snapshot, in any thread,
+ * without passing through the actor's message queue.
+ * </p>
+ * <pre>
+ * Example:
+ * {@code
+ *     class Counter extends ActorBase<Counter> {
+ *         int count;
+ *         protected ActorRef<Counter> initActorRef(IGreenThr thr) {
+ *             return new SnapshotActorRef<>(this, thr, a -> a.count);
+ *         }
+ *     }
+ *     SnapshotActorRef<Counter, Integer> ref =
+ *             (SnapshotActorRef<Counter, Integer>) new Counter().init(factory);
+ *     ref.send(a -> ++a.count);              //write; serialized
+ *     ref.readAsync(count -> count * 2, log::add);//read; concurrent
+ * }
+ * </pre>
+ * NB. The snapshot function must return an immutable object (or a copy),
+ * since it is shared with concurrent readers.
+ * <p>Date: 18.10.2026
+ * </p>
+ *
+ * @param <A> actor type
+ * @param <S> snapshot type (immutable)
+ * @author agent
+ */
+public class SnapshotActorRef<A, S> extends ActorRef<A> {
+    private final Function<A, S> snapshotFunc;
+    private volatile S snapshot;
+
+    /**
+     * @param factory  thread factory
+     * @param imp      implementation instance
+     * @param snapshot produce immutable state snapshot (called from actor thread)
+     */
+    public SnapshotActorRef(IGreenThrFactory factory, A imp, Function<A, S> snapshot) {
+        this(imp, factory.newThread(), snapshot);
+    }
+
+    /**
+     * @param imp      implementation instance
+     * @param thr      green-thread
+     * @param snapshot produce immutable state snapshot (called from actor thread)
+     */
+    public SnapshotActorRef(A imp, IGreenThr thr, Function<A, S> snapshot) {
+        super(imp, thr);
+        snapshotFunc = Objects.requireNonNull(snapshot);
+        this.snapshot = snapshot.apply(imp);
+    }
+
+    /**
+     * Send a write message. A new snapshot is published after the message is processed
+     * (also if the message throws an exception, since state may have changed).
+     *
+     * @param msg Message
+     */
+    @Override
+    public void send(final Consumer<A> msg) {
+        thr.execute(new ActorMessage<>(a -> {
+            try {
+                msg.accept(a);
+            } finally {
+                publish();
+            }
+        }, this));
+    }
+
+    /**
+     * Publish a new snapshot of current actor state.
+     * Called from the actor's own thread, automatically after each write message;
+     * Subclasses may publish also from other messages they process.
+     */
+    protected void publish() {
+        snapshot = snapshotFunc.apply(getImpl());
+    }
+
+    /**
+     * Latest published snapshot.
+     *
+     * @return snapshot
+     */
+    public S snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Read: Query latest snapshot, in calling thread.
+     *
+     * @param query read-only function
+     * @param <T>   return type
+     * @return query result
+     */
+    public <T> T read(Function<S, T> query) {
+        return query.apply(snapshot);
+    }
+
+    /**
+     * Read: Query latest snapshot in a new green-thread (from current factory),
+     * and return result to calling thread.
+     * (Must itself be called from inside a green-thread or actor)
+     *
+     * @param query    read-only function
+     * @param callback result handler, called from calling thread
+     * @param <T>      return type
+     */
+    public <T> void readAsync(Function<S, T> query, Consumer<T> callback) {
+        final S s = snapshot;
+        ActorBase.newThread().call(() -> query.apply(s), callback);
+    }
+
+    /**
+     * Read: Query latest snapshot in given thread, returning an asynchronous result.
+     *
+     * @param thr   thread running the query
+     * @param query read-only function
+     * @param <T>   return type
+     * @return asynchronous result, set from thread {@code thr}
+     */
+    public <T> IASync<T> read(IGreenThr thr, Function<S, T> query) {
+        final S s = snapshot;
+        final ASyncValue<T> av = new ASyncValue<>();
+        thr.execute(() -> av.accept(query.apply(s)));
+        return av;
+    }
+}
@@ -0,0 +1,366 @@
+/*
+ * Copyright (c) 2026 agent
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package flc.nbl_actors.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Spill-to-disk mailbox; A green-thread wrapper with bounded heap usage.
+ * <p>Messages are passed on to the wrapped thread until {@code maxInMemory} messages
+ * are pending there. Above that, messages are encoded (via {@link IMessageCodec}) to a
+ * memory-mapped overflow file, and paged back in order as pending messages complete.
+ * Messages without encoding (plain lambdas) are kept on heap while spilling,
+ * but still delivered in order.
+ * </p>
+ * <p>The overflow file is a list of chunks; A chunk is reused as soon as it is read,
+ * so the file size follows the peak overflow, also under sustained overload.
+ * A message that fails to decode is delivered as a message throwing that failure,
+ * so it reaches the actor's exception handler (or the thread's, for a Runnable).
+ * </p>
+ * <p>Actor messages are passed on as {@link ActorMessage}s, so message relays of the
+ * wrapped thread still see the target actor. The wrapped thread is called outside
+ * this mailbox's lock, by one caller at a time, in order.
+ * </p>
+ * <p>Works with any IGreenThr implementation (eg. {@link GreenThr_single},
+ * or threads based on {@code GreenThrBase}).
+ * </p>
+ * <pre>
+ * Example:
+ * {@code
+ *     IActorRef<A> ref = new A().initThread(
+ *             new SpillMailbox(factory.newThread(), codec, 10_000, spillDir));
+ * }
+ * </pre>
+ * <p>Date: 18.10.2026
+ * </p>
+ *
+ * @author agent
+ */
+public class SpillMailbox implements IGreenThr, Closeable {
+    private static final int KIND_HEAP = 0, KIND_RUNNABLE = 1, KIND_ACTOR = 2, END = -1;
+    public static final int DEFAULT_CHUNK_SIZE = 8 << 20;
+
+    private final IGreenThr target;
+    private final IMessageCodec codec;
+    private final int maxInMemory;
+    private final Path dir;
+    private final int chunkSize;
+    private final Deque<Runnable> heapSpill = new ArrayDeque<>(); //non-encodable, while spilling
+    private final Deque<Runnable> outbox = new ArrayDeque<>(); //to target, in order
+    private boolean isFlushing;
+    private final List<ActorRef<?>> refs = new ArrayList<>();
+    private final Map<ActorRef<?>, Integer> refIndex = new IdentityHashMap<>();
+    private int inMemory;
+    private long spilled, spilledTotal;
+    private FileChannel channel;
+    private ByteBuffer wBuf, rBuf;
+    private long wChunk, rChunk, chunkCount;
+    private final Deque<Long> nextChunks = new ArrayDeque<>(); //after rChunk, in write order
+    private final Deque<Long> freeChunks = new ArrayDeque<>(); //already read
+
+    /**
+     * @param target      wrapped thread
+     * @param codec       message codec
+     * @param maxInMemory max #messages passed on to target thread before spilling
+     * @param dir         directory for overflow file (a temporary file, deleted on close)
+     */
+    public SpillMailbox(IGreenThr target, IMessageCodec codec, int maxInMemory, Path dir) {
+        this(target, codec, maxInMemory, dir, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param target      wrapped thread
+     * @param codec       message codec
+     * @param maxInMemory max #messages passed on to target thread before spilling
+     * @param dir         directory for overflow file (a temporary file, deleted on close)
+     * @param chunkSize   size of each memory-mapped file region
+     */
+    public SpillMailbox(IGreenThr target, IMessageCodec codec, int maxInMemory, Path dir, int chunkSize) {
+        if (maxInMemory < 1)
+            throw new IllegalArgumentException("maxInMemory < 1");
+        this.target = Objects.requireNonNull(target);
+        this.codec = Objects.requireNonNull(codec);
+        this.maxInMemory = maxInMemory;
+        this.dir = Objects.requireNonNull(dir);
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public void execute(Runnable msg) {
+        Objects.requireNonNull(msg);
+        synchronized (this) {
+            if (spilled == 0 && inMemory < maxInMemory)
+                forward(msg);
+            else {
+                spill(msg);
+                ++spilled;
+                ++spilledTotal;
+            }
+        }
+        flush();
+    }
+
+    /**
+     * Number of messages currently in overflow (file or heap).
+     *
+     * @return spill count
+     */
+    public synchronized long getSpilledCount() {
+        return spilled;
+    }
+
+    /**
+     * Size of overflow file (number of chunks times chunk size).
+     *
+     * @return bytes
+     */
+    public synchronized long getFileSize() {
+        return chunkCount * chunkSize;
+    }
+
+    /**
+     * Total number of messages spilled since start.
+     *
+     * @return spill count
+     */
+    public synchronized long getSpilledTotal() {
+        return spilledTotal;
+    }
+
+    //call with lock held
+    private void forward(Runnable msg) {
+        ++inMemory;
+        outbox.add(msg instanceof ActorMessage
+                ? forward((ActorMessage<?>) msg)
+                : () -> {
+            try {
+                msg.run();
+            } finally {
+                onDone();
+            }
+        });
+    }
+
+    private <A> Runnable forward(ActorMessage<A> am) {
+        return new ActorMessage<>(a -> {
+            try {
+                am.msg.accept(a);
+            } finally {
+                onDone();
+            }
+        }, am.ref);
+    }
+
+    /**
+     * Pass forwarded messages on to target, without lock; Only one caller at a time,
+     * so the order is kept (others return, leaving their messages to it).
+     */
+    private void flush() {
+        synchronized (this) {
+            if (isFlushing)
+                return;
+            isFlushing = true;
+        }
+        while (true) {
+            final Runnable msg;
+            synchronized (this) {
+                msg = outbox.poll();
+                if (msg == null) {
+                    isFlushing = false;
+                    return;
+                }
+            }
+            try {
+                target.execute(msg);
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    isFlushing = false;
+                }
+                throw e;
+            }
+        }
+    }
+
+    private void onDone() {
+        synchronized (this) {
+            --inMemory;
+            while (spilled > 0 && inMemory < maxInMemory) {
+                --spilled;
+                forward(unSpill());
+            }
+        }
+        flush();
+    }
+
+    //------------------------------------- overflow file:
+
+    private void spill(Runnable msg) {
+        if (channel == null)
+            open();
+        final int pos = wBuf.position();
+        if (pos + 8 <= chunkSize) {
+            wBuf.position(pos + 8);
+            try {
+                int kind = KIND_HEAP;
+                if (msg instanceof ActorMessage) {
+                    ActorMessage<?> am = (ActorMessage<?>) msg;
+                    if (codec.encode(am.msg, wBuf)) {
+                        kind = KIND_ACTOR;
+                        wBuf.putInt(pos + 4, refIndex(am.ref));
+                    }
+                } else if (codec.encode(msg, wBuf)) {
+                    kind = KIND_RUNNABLE;
+                }
+                if (kind == KIND_HEAP) {
+                    heapSpill.add(msg);
+                    wBuf.position(pos + 8);
+                }
+                wBuf.putInt(pos, (wBuf.position() - pos) << 2 | kind);
+                return;
+            } catch (BufferOverflowException ignore) {
+                //continue in next chunk
+            }
+        }
+        if (pos == 0) { //message too large for a chunk
+            wBuf.putInt(0, 8 << 2 | KIND_HEAP).position(8);
+            heapSpill.add(msg);
+            return;
+        }
+        if (pos + 4 <= chunkSize)
+            wBuf.putInt(pos, END);
+        wChunk = freeChunks.isEmpty() ? chunkCount++ : freeChunks.poll();
+        nextChunks.add(wChunk);
+        wBuf = map(wChunk);
+        spill(msg);
+    }
+
+    private Runnable unSpill() {
+        int pos = rBuf.position();
+        if (pos + 8 > chunkSize || rBuf.getInt(pos) == END) {
+            freeChunks.add(rChunk);
+            rChunk = nextChunks.poll();
+            rBuf = rChunk == wChunk ? reader(wBuf) : map(rChunk);
+            pos = 0;
+        }
+        final int head = rBuf.getInt(pos);
+        final int kind = head & 3;
+        rBuf.position(pos + 8);
+        Runnable msg;
+        if (kind == KIND_HEAP) {
+            msg = heapSpill.poll();
+        } else if (kind == KIND_RUNNABLE) {
+            try {
+                msg = (Runnable) codec.decode(rBuf);
+            } catch (RuntimeException e) {
+                final RuntimeException ex = decodeError(e);
+                msg = () -> {
+                    throw ex;
+                };
+            }
+        } else {
+            final ActorRef<?> ref = refs.get(rBuf.getInt(pos + 4));
+            Object consumer;
+            try {
+                consumer = codec.decode(rBuf);
+            } catch (RuntimeException e) {
+                final RuntimeException ex = decodeError(e);
+                consumer = (Consumer<Object>) a -> {
+                    throw ex;
+                };
+            }
+            msg = actorMessage(ref, consumer);
+        }
+        rBuf.position(pos + (head >>> 2));
+        if (spilled == 0) { //all read; reuse file from start
+            if (wChunk != 0)
+                wBuf = map(0);
+            wChunk = rChunk = 0;
+            nextChunks.clear();
+            freeChunks.clear();
+            for (long c = 1; c < chunkCount; c++)
+                freeChunks.add(c);
+            wBuf.position(0);
+            rBuf = reader(wBuf);
+        }
+        return msg;
+    }
+
+    private static RuntimeException decodeError(RuntimeException e) {
+        return new IllegalStateException("Spilled message could not be decoded", e);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <A> Runnable actorMessage(ActorRef<A> ref, Object consumer) {
+        return new ActorMessage<>((Consumer<A>) consumer, ref);
+    }
+
+    private int refIndex(ActorRef<?> ref) {
+        Integer ix = refIndex.get(ref);
+        if (ix == null) {
+            refIndex.put(ref, ix = refs.size());
+            refs.add(ref);
+        }
+        return ix;
+    }
+
+    private void open() {
+        try {
+            Path file = Files.createTempFile(Files.createDirectories(dir), "spill", ".mbox");
+            channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                    StandardOpenOption.DELETE_ON_CLOSE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        chunkCount = 1;
+        wBuf = map(0);
+        rBuf = reader(wBuf);
+    }
+
+    private static ByteBuffer reader(ByteBuffer b) {
+        return b.duplicate().order(ByteOrder.nativeOrder());
+    }
+
+    private MappedByteBuffer map(long chunk) {
+        try {
+            MappedByteBuffer b = channel.map(FileChannel.MapMode.READ_WRITE, chunk * chunkSize, chunkSize);
+            b.order(ByteOrder.nativeOrder());
+            return b;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Close and delete overflow file; Spilled messages not yet delivered are lost.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null)
+            channel.close();
+        channel = null;
+        wBuf = rBuf = null;
+        wChunk = rChunk = chunkCount = 0;
+        nextChunks.clear();
+        freeChunks.clear();
+        spilled = 0;
+        heapSpill.clear();
+        outbox.clear();
+    }
+}
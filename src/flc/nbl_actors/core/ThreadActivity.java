@@ -34,6 +34,13 @@ public class ThreadActivity {
         return false;
     }
 
+    /**
+     * @return true if active
+     */
+    public boolean isActive() {
+        return isActive.get();
+    }
+
     /**
      * Set active listener. (false when no threads have remaining work/messages).
      *
@@ -27,6 +27,7 @@ public class ThreadContext {
 
     private IGreenThrFactory factory;
     private IGreenThr thread;
+    private CancelToken cancelToken = CancelToken.NONE;
 
     private ThreadContext() {
     }
@@ -88,6 +89,27 @@ public class ThreadContext {
         return thread;
     }
 
+    /**
+     * Get current cancel token.
+     *
+     * @return token, or {@link CancelToken#NONE}
+     */
+    public CancelToken getCancelToken() {
+        return cancelToken;
+    }
+
+    /**
+     * Internal! - Set current cancel token (while running a forked task).
+     *
+     * @param token token (null: {@link CancelToken#NONE})
+     * @return previous token
+     */
+    public CancelToken setCancelToken(CancelToken token) {
+        final CancelToken prev = cancelToken;
+        cancelToken = token == null ? CancelToken.NONE : token;
+        return prev;
+    }
+
     /**
      * Internal! - called from IGreenThr implementations before message.run()
      */
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2026 agent
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package flc.nbl_actors.core;
+
+import java.util.Objects;
+import java.util.function.BinaryOperator;
+import java.util.function.IntFunction;
+
+/**
+ * Wide fan-out with tree-combining joins.
+ * <p>With a single {@link ForkJoin}, N forked calls give N reply messages to the caller thread.
+ * TreeJoin instead splits the index range [0, N) into {@code fanIn} sub-ranges, each forked
+ * to a combiner (another green thread) which splits further, down to ranges of {@code leafSize}
+ * tasks run sequentially. Partial results are merged at each level, so the caller thread
+ * receives {@code fanIn} messages, and each combiner at most {@code fanIn}
+ * (about N / leafSize messages in total, spread over all threads; tree depth O(log N)).
+ * </p>
+ * <p>The merge function must be associative; Results are merged in index order.
+ * Cancellation follows {@link ForkJoin}: cancelling an enclosing ForkJoin cancels the tree.
+ * So do failures: if a task or merge throws, the tree is cancelled and no result is delivered;
+ * The exception goes to an enclosing ForkJoin, else is thrown in the caller thread.
+ * </p>
+ * <pre>
+ * Example:
+ * {@code
+ *     //called from a green thread:
+ *     new TreeJoin(factory).fanOut(n, i -> compute(i), Double::sum)
+ *             .result(sum -> ...);
+ * }
+ * </pre>
+ * <p>Date: 18.10.2026
+ * </p>
+ *
+ * @author agent
+ */
+public class TreeJoin {
+    private final IGreenThrFactory factory;
+    private final int fanIn, leafSize;
+
+    /**
+     * Fan-in 8, leaf size 1.
+     *
+     * @param factory thread factory for combiners and leaf tasks
+     */
+    public TreeJoin(IGreenThrFactory factory) {
+        this(factory, 8, 1);
+    }
+
+    /**
+     * @param factory  thread factory for combiners and leaf tasks
+     * @param fanIn    max number of children per combiner (&gt;= 2)
+     * @param leafSize max number of tasks run sequentially in one leaf (&gt;= 1)
+     */
+    public TreeJoin(IGreenThrFactory factory, int fanIn, int leafSize) {
+        if (fanIn < 2)
+            throw new IllegalArgumentException("fanIn < 2");
+        if (leafSize < 1)
+            throw new IllegalArgumentException("leafSize < 1");
+        this.factory = Objects.requireNonNull(factory);
+        this.fanIn = fanIn;
+        this.leafSize = leafSize;
+    }
+
+    /**
+     * Run tasks 0 .. n-1 in parallel, and merge their results.
+     * Must be called from a green thread (the caller, receiving the result).
+     *
+     * @param n     number of tasks
+     * @param task  task, by index
+     * @param merge associative merge function
+     * @param <T>   result type
+     * @return async merged result (null if n == 0)
+     */
+    public <T> IASync<T> fanOut(int n, IntFunction<? extends T> task, BinaryOperator<T> merge) {
+        Objects.requireNonNull(task);
+        Objects.requireNonNull(merge);
+        if (n <= 0)
+            return new ASyncDirect<>(null);
+        return node(0, n, task, merge);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> IASync<T> node(int from, int to, IntFunction<? extends T> task, BinaryOperator<T> merge) {
+        final int size = to - from;
+        if (size <= leafSize) {
+            T acc = task.apply(from);
+            for (int i = from + 1; i < to; i++)
+                acc = merge.apply(acc, task.apply(i));
+            return new ASyncDirect<>(acc);
+        }
+        final int parts = (int) Math.min(fanIn, ((long) size + leafSize - 1) / leafSize);
+        final Object[] results = new Object[parts];
+        final ForkJoin<T> fj = new ForkJoin<>();
+        for (int p = 0; p < parts; p++) {
+            final int ix = p;
+            final int lo = from + (int) ((long) size * p / parts);
+            final int hi = from + (int) ((long) size * (p + 1) / parts);
+            fj.callAsync(factory.newThread(), () -> node(lo, hi, task, merge), v -> results[ix] = v);
+        }
+        return fj.resultAsync(ignore -> {
+            if (fj.isCancelled())
+                return;
+            T acc = (T) results[0];
+            for (int i = 1; i < parts; i++)
+                acc = merge.apply(acc, (T) results[i]);
+            fj.setValue(acc);
+        });
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2026 agent
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package flc.nbl_actors.core.codec;
+
+import flc.nbl_actors.core.IMessageCodec;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Message codec registry; Maps message classes to type ids and codecs.
+ * <p>Encoded form: {@code short typeId} followed by codec payload.
+ * Lookups are lock-free and allocation free (registration is copy-on-write),
+ * so the registry can be shared between threads.
+ * Both sides of a channel (file, socket, ..) must register the same type ids.
+ * </p>
+ * <pre>
+ * Example:
+ * {@code
+ *     CodecRegistry registry = new CodecRegistry()
+ *             .register(1, Deposit.class,
+ *                     (d, out) -> out.putLong(d.amount),
+ *                     in -> new Deposit(in.getLong()));
+ *     registry.encode(new Deposit(10), buffer);
+ *     ...
+ *     Consumer<Account> msg = registry.decodeMessage(buffer);
+ *     accountRef.send(msg);
+ * }
+ * </pre>
+ * <p>Date: 18.10.2026
+ * </p>
+ *
+ * @author agent
+ */
+public class CodecRegistry implements IMessageCodec {
+    public static final int MAX_TYPE_ID = Short.MAX_VALUE;
+
+    private static class Entry {
+        final int typeId;
+        final ICodec<Object> codec;
+
+        Entry(int typeId, ICodec<Object> codec) {
+            this.typeId = typeId;
+            this.codec = codec;
+        }
+    }
+
+    private volatile Map<Class<?>, Entry> byClass = new IdentityHashMap<>();
+    private volatile Entry[] byId = new Entry[0];
+
+    /**
+     * Register message type.
+     *
+     * @param typeId unique type id (1 .. {@value #MAX_TYPE_ID})
+     * @param type   message class (exact class; subclasses must be registered separately)
+     * @param codec  codec
+     * @param <T>    message type
+     * @return this
+     * @throws IllegalArgumentException if type id out of range, or id or class already registered
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <T> CodecRegistry register(int typeId, Class<T> type, ICodec<? super T> codec) {
+        if (typeId < 1 || typeId > MAX_TYPE_ID)
+            throw new IllegalArgumentException("typeId out of range: " + typeId);
+        if (byClass.containsKey(type))
+            throw new IllegalArgumentException("Already registered: " + type.getName());
+        if (typeId < byId.length && byId[typeId] != null)
+            throw new IllegalArgumentException("typeId already registered: " + typeId);
+        Entry e = new Entry(typeId, (ICodec<Object>) codec);
+        Entry[] ids = Arrays.copyOf(byId, Math.max(byId.length, typeId + 1));
+        ids[typeId] = e;
+        Map<Class<?>, Entry> classes = new IdentityHashMap<>(byClass);
+        classes.put(type, e);
+        byId = ids;
+        byClass = classes;
+        return this;
+    }
+
+    /**
+     * Register message type, with codec from lambdas.
+     *
+     * @param typeId unique type id (1 .. {@value #MAX_TYPE_ID})
+     * @param type   message class
+     * @param writer value writer
+     * @param reader value reader
+     * @param <T>    message type
+     * @return this
+     * @see #register(int, Class, ICodec)
+     */
+    public <T> CodecRegistry register(int typeId, Class<T> type,
+                                      BiConsumer<? super T, ByteBuffer> writer,
+                                      Function<ByteBuffer, ? extends T> reader) {
+        return register(typeId, type, ICodec.of(writer, reader));
+    }
+
+    /**
+     * Is message class registered.
+     *
+     * @param type message class
+     * @return true if registered
+     */
+    public boolean isRegistered(Class<?> type) {
+        return byClass.containsKey(type);
+    }
+
+    /**
+     * Type id of registered class
+     *
+     * @param type message class
+     * @return type id, or 0 if not registered
+     */
+    public int typeId(Class<?> type) {
+        Entry e = byClass.get(type);
+        return e == null ? 0 : e.typeId;
+    }
+
+    /**
+     * Encode message as {@code short typeId} + payload.
+     * If the buffer overflows, its position is undefined.
+     *
+     * @param msg message
+     * @param out output buffer
+     * @return false if message class is not registered (nothing written)
+     */
+    @Override
+    public boolean encode(Object msg, ByteBuffer out) {
+        if (msg == null) return false;
+        Entry e = byClass.get(msg.getClass());
+        if (e == null) return false;
+        out.putShort((short) e.typeId);
+        e.codec.write(msg, out);
+        return true;
+    }
+
+    /**
+     * Decode message.
+     *
+     * @param in input buffer
+     * @return message
+     * @throws IllegalArgumentException if type id is not registered
+     */
+    @Override
+    public Object decode(ByteBuffer in) {
+        final int id = in.getShort();
+        final Entry[] ids = byId;
+        Entry e = id > 0 && id < ids.length ? ids[id] : null;
+        if (e == null)
+            throw new IllegalArgumentException("Unknown typeId: " + id);
+        return e.codec.read(in);
+    }
+
+    /**
+     * Decode actor message. Equivalent to {@link #decode(ByteBuffer)}, with a cast.
+     *
+     * @param in  input buffer
+     * @param <A> actor type
+     * @return message
+     * @throws IllegalArgumentException if type id is not registered
+     * @throws ClassCastException       if decoded message is not a Consumer
+     */
+    @SuppressWarnings("unchecked")
+    public <A> Consumer<A> decodeMessage(ByteBuffer in) {
+        return (Consumer<A>) decode(in);
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2026 agent
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package flc.nbl_actors.core.codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Field encoding helpers for {@link ICodec} implementations.
+ * <p>Variable length integers (LEB128, zig-zag for signed values) and
+ * UTF-8 strings, written directly to/from ByteBuffer without intermediate arrays.
+ * </p>
+ * <p>Date: 18.10.2026
+ * </p>
+ *
+ * @author agent
+ */
+public class Codecs {
+
+    private Codecs() {
+    }
+
+    /**
+     * Write unsigned variable length long (1-10 bytes).
+     *
+     * @param out   output buffer
+     * @param value value (treated as unsigned)
+     */
+    public static void putVarLong(ByteBuffer out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    /**
+     * Read unsigned variable length long.
+     *
+     * @param in input buffer
+     * @return value
+     */
+    public static long getVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    /**
+     * Write signed variable length long (zig-zag encoded; small magnitudes use few bytes).
+     *
+     * @param out   output buffer
+     * @param value value
+     */
+    public static void putVarSigned(ByteBuffer out, long value) {
+        putVarLong(out, (value << 1) ^ (value >> 63));
+    }
+
+    /**
+     * Read signed variable length long.
+     *
+     * @param in input buffer
+     * @return value
+     */
+    public static long getVarSigned(ByteBuffer in) {
+        final long v = getVarLong(in);
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    /**
+     * Write string as UTF-8, prefixed by its char (UTF-16 unit) count (null is allowed).
+     * Unpaired surrogates are written as '?' (as {@link String#getBytes}).
+     *
+     * @param out output buffer
+     * @param s   string, or null
+     */
+    public static void putString(ByteBuffer out, String s) {
+        if (s == null) {
+            putVarLong(out, 0);
+            return;
+        }
+        final int n = s.length();
+        putVarLong(out, n + 1L);
+        for (int i = 0; i < n; i++) {
+            final char c = s.charAt(i);
+            if (c < 0x80) {
+                out.put((byte) c);
+            } else if (c < 0x800) {
+                out.put((byte) (0xC0 | c >> 6));
+                out.put((byte) (0x80 | c & 0x3F));
+            } else if (!Character.isSurrogate(c)) {
+                out.put((byte) (0xE0 | c >> 12));
+                out.put((byte) (0x80 | c >> 6 & 0x3F));
+                out.put((byte) (0x80 | c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < n
+                    && Character.isLowSurrogate(s.charAt(i + 1))) {
+                final int cp = Character.toCodePoint(c, s.charAt(++i));
+                out.put((byte) (0xF0 | cp >> 18));
+                out.put((byte) (0x80 | cp >> 12 & 0x3F));
+                out.put((byte) (0x80 | cp >> 6 & 0x3F));
+                out.put((byte) (0x80 | cp & 0x3F));
+            } else {
+                out.put((byte) '?');
+            }
+        }
+    }
+
+    /**
+     * Read string written by {@link #putString(ByteBuffer, String)}.
+     *
+     * @param in input buffer
+     * @return string, or null
+     * @throws IllegalArgumentException if the length exceeds the remaining bytes,
+     *                                  or a supplementary character exceeds it
+     */
+    public static String getString(ByteBuffer in) {
+        final long len = getVarLong(in);
+        if (len == 0) return null;
+        //at least one byte per char; checked before allocating
+        if (len < 0 || len - 1 > in.remaining())
+            throw new IllegalArgumentException("String length " + (len - 1)
+                    + " exceeds remaining " + in.remaining() + " bytes");
+        final char[] chars = new char[(int) (len - 1)];
+        for (int i = 0; i < chars.length; i++) {
+            final int b = in.get() & 0xFF;
+            if (b < 0x80) {
+                chars[i] = (char) b;
+            } else if (b < 0xE0) {
+                chars[i] = (char) ((b & 0x1F) << 6 | in.get() & 0x3F);
+            } else if (b < 0xF0) {
+                chars[i] = (char) ((b & 0x0F) << 12 | (in.get() & 0x3F) << 6 | in.get() & 0x3F);
+            } else {
+                final int cp = (b & 0x07) << 18 | (in.get() & 0x3F) << 12
+                        | (in.get() & 0x3F) << 6 | in.get() & 0x3F;
+                if (i + 1 == chars.length || !Character.isSupplementaryCodePoint(cp))
+                    throw new IllegalArgumentException("Malformed string");
+                chars[i] = Character.highSurrogate(cp);
+                chars[++i] = Character.lowSurrogate(cp);
+            }
+        }
+        return new String(chars);
+    }
+}
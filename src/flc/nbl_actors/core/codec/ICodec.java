@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2026 agent
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package flc.nbl_actors.core.codec;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Binary codec for a single message type.
+ * <p>Implementations write fields directly with ByteBuffer relative put/get operations
+ * (no reflection, no intermediate arrays).
+ * </p>
+ * <pre>
+ * Example:
+ * {@code
+ *     final class Deposit implements Consumer<Account> {
+ *         final long amount;
+ *         Deposit(long amount) { this.amount = amount; }
+ *         public void accept(Account a) { a.balance += amount; }  //handler
+ *     }
+ *     ICodec<Deposit> codec = ICodec.of(
+ *             (d, out) -> out.putLong(d.amount),
+ *             in -> new Deposit(in.getLong()));
+ * }
+ * </pre>
+ * <p>Date: 18.10.2026
+ * </p>
+ *
+ * @param <T> message type
+ * @author agent
+ * @see CodecRegistry
+ */
+public interface ICodec<T> {
+
+    /**
+     * Write value (relative put operations).
+     *
+     * @param value value
+     * @param out   output buffer
+     * @throws java.nio.BufferOverflowException if not enough space in buffer
+     */
+    void write(T value, ByteBuffer out);
+
+    /**
+     * Read value (relative get operations).
+     *
+     * @param in input buffer
+     * @return value
+     */
+    T read(ByteBuffer in);
+
+    /**
+     * Codec from lambdas.
+     *
+     * @param writer value writer
+     * @param reader value reader
+     * @param <T>    value type
+     * @return codec
+     */
+    static <T> ICodec<T> of(BiConsumer<? super T, ByteBuffer> writer, Function<ByteBuffer, ? extends T> reader) {
+        Objects.requireNonNull(writer);
+        Objects.requireNonNull(reader);
+        return new ICodec<T>() {
+            @Override
+            public void write(T value, ByteBuffer out) {
+                writer.accept(value, out);
+            }
+
+            @Override
+            public T read(ByteBuffer in) {
+                return reader.apply(in);
+            }
+        };
+    }
+}
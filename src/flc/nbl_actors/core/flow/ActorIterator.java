@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2026 agent
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package flc.nbl_actors.core.flow;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Bridge from actor output to a (blocking) {@link Iterator} or {@link Stream}.
+ * <p>The producing actor writes elements to a {@link Sink}; They are handed over in
+ * batches (arrays), so the consumer thread blocks once per batch, not per element.
+ * At most {@code prefetch} batches are buffered. Demand is signalled back to the producer:
+ * {@link Sink#offer} returns false when the buffer is full, and the producer should then
+ * stop (and return from its message). When the consumer has taken half of the buffer,
+ * the {@code onDemand} callback is called again (from the consumer thread),
+ * typically sending a message to the producing actor to continue.
+ * </p>
+ * <p>Use the iterator from one (ordinary, non-green) thread, and the sink from one actor.
+ * </p>
+ * <pre>
+ * Example:
+ * {@code
+ *     IActorRef<Counter> ref = new ActorRef<>(factory, new Counter());
+ *     ActorIterator<Long> it = new ActorIterator<>(8, 256,
+ *             sink -> ref.send(c -> c.produce(sink)));
+ *     //in Counter:
+ *     void produce(ActorIterator.Sink<Long> sink) {
+ *         while (sink.offer(next++)) { }
+ *     }
+ * }
+ * </pre>
+ * <p>Date: 18.10.2026
+ * </p>
+ *
+ * @param <T> element type
+ * @author agent
+ */
+public class ActorIterator<T> implements Iterator<T>, AutoCloseable {
+    private static final Object[] END = new Object[0];
+
+    /**
+     * Producer side of the bridge.
+     *
+     * @param <T> element type
+     */
+    public interface Sink<T> {
+        /**
+         * Add element (always accepted).
+         *
+         * @param element element (not null)
+         * @return false if the producer should stop until next demand
+         */
+        boolean offer(T element);
+
+        /**
+         * Hand over buffered elements now (eg. before waiting for external input).
+         */
+        void flush();
+
+        /**
+         * End of elements.
+         */
+        void complete();
+
+        /**
+         * End with failure; Thrown from the iterator.
+         *
+         * @param error cause
+         */
+        void fail(Throwable error);
+    }
+
+    private final LinkedBlockingQueue<Object> handoff = new LinkedBlockingQueue<>();
+    private final AtomicInteger credit; //batches the producer may hand over
+    private final AtomicBoolean stopped = new AtomicBoolean(true);
+    private final int batchSize, resumeAt;
+    private final Consumer<Sink<T>> onDemand;
+    private final SinkImpl sink = new SinkImpl();
+    private volatile boolean closed;
+    private Object[] batch = END;
+    private int ix;
+    private boolean ended;
+
+    /**
+     * Create bridge, and signal first demand.
+     *
+     * @param prefetch  max buffered batches (&gt;= 1)
+     * @param batchSize elements per batch (&gt;= 1)
+     * @param onDemand  resumes the producer, with the sink to write to
+     */
+    public ActorIterator(int prefetch, int batchSize, Consumer<Sink<T>> onDemand) {
+        if (prefetch < 1)
+            throw new IllegalArgumentException("prefetch < 1");
+        if (batchSize < 1)
+            throw new IllegalArgumentException("batchSize < 1");
+        this.credit = new AtomicInteger(prefetch);
+        this.batchSize = batchSize;
+        this.resumeAt = Math.max(1, prefetch / 2);
+        this.onDemand = Objects.requireNonNull(onDemand);
+        signalDemand();
+    }
+
+    private void signalDemand() {
+        if (!closed && credit.get() >= resumeAt && stopped.compareAndSet(true, false))
+            onDemand.accept(sink);
+    }
+
+    private class SinkImpl implements Sink<T> {
+        private Object[] buf;
+        private int n;
+
+        @Override
+        public boolean offer(T element) {
+            Objects.requireNonNull(element);
+            if (buf == null)
+                buf = new Object[batchSize];
+            buf[n++] = element;
+            if (n == batchSize)
+                flush();
+            if (closed)
+                return false;
+            if (credit.get() > 0)
+                return true;
+            stopped.set(true);
+            //consumer may have freed credit meanwhile; then continue
+            return credit.get() >= resumeAt && stopped.compareAndSet(true, false);
+        }
+
+        @Override
+        public void flush() {
+            if (n == 0)
+                return;
+            final Object[] b = n == buf.length ? buf : Arrays.copyOf(buf, n);
+            buf = null;
+            n = 0;
+            credit.decrementAndGet();
+            handoff.add(b);
+        }
+
+        @Override
+        public void complete() {
+            flush();
+            handoff.add(END);
+        }
+
+        @Override
+        public void fail(Throwable error) {
+            flush();
+            handoff.add(Objects.requireNonNull(error));
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (ix < batch.length)
+            return true;
+        if (ended)
+            return false;
+        if (batch != END) { //batch consumed
+            batch = END;
+            credit.incrementAndGet();
+            signalDemand();
+        }
+        final Object next;
+        try {
+            next = handoff.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            return false;
+        }
+        if (next instanceof Throwable) {
+            ended = true;
+            final Throwable t = (Throwable) next;
+            if (t instanceof RuntimeException)
+                throw (RuntimeException) t;
+            throw new IllegalStateException("Producer failed", t);
+        }
+        batch = (Object[]) next;
+        ix = 0;
+        if (batch == END) {
+            ended = true;
+            return false;
+        }
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public T next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        return (T) batch[ix++];
+    }
+
+    /**
+     * Stop consuming; The producer gets false from the next offer.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        ended = true;
+        batch = END;
+        handoff.clear();
+    }
+
+    /**
+     * Sequential stream of the elements; Closing the stream closes this bridge.
+     *
+     * @return stream
+     */
+    public Stream<T> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this,
+                Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(this::close);
+    }
+}
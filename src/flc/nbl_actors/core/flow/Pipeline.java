@@ -0,0 +1,465 @@
+/*
+ * Copyright (c) 2026 agent
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package flc.nbl_actors.core.flow;
+
+import flc.nbl_actors.core.*;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.*;
+
+/**
+ * Dataflow pipeline of actor stages, with bounded buffers between stages.
+ * <p>Each stage runs as {@code parallelism} actors (workers), each on its own green thread.
+ * Elements move between stages in batches (one message per batch, not per element).
+ * Flow control is credit based: an upstream worker holds credits (in elements) for the next
+ * stage, spends them on each batch sent, and gets them back when the receiving worker has
+ * processed the batch and passed its own output on. A stage which can not send keeps its
+ * output, and holds back credits from its upstream, so a slow stage throttles all
+ * stages before it (back-pressure, down to the source); The elements buffered before
+ * a stage are bounded by its {@code bufferSize}.
+ * </p>
+ * <p>Fusion: a step (map, filter, flatMap) without stage options of its own is fused into
+ * the previous single-worker stage, and runs on the same green thread, as a plain
+ * function call (no message per element). Setting {@code parallelism}, {@code batchSize},
+ * {@code bufferSize} or {@link Builder#async()} on a step makes it a stage of its own.
+ * </p>
+ * <p>Order is kept through single-worker stages; Stages with parallelism &gt; 1 may reorder,
+ * and their functions may run concurrently. (A step after a parallel stage is not fused,
+ * so the sink then runs on a single worker.)
+ * </p>
+ * <p>Failure: if a step function (or the source iterator) throws, the pipeline stops;
+ * Workers drop further elements, the source is no longer read, and the run completes
+ * at once, with the exception in {@link Completion#getFailure()}.
+ * </p>
+ * <pre>
+ * Example:
+ * {@code
+ *     Pipeline<String> p = Pipeline.<String>builder(factory)
+ *             .map(String::trim)                        //stage 1
+ *             .filter(s -> !s.isEmpty())                //fused into stage 1
+ *             .map(Parser::parse).parallelism(4)        //stage 2; 4 workers
+ *             .batchSize(256).bufferSize(4096)
+ *             .to(record -> ...);                       //sink; stage 3 (after a parallel stage)
+ *     Pipeline.Completion run = p.run(lines);
+ *     run.result(done -> { if (run.getFailure() != null) ... });
+ * }
+ * </pre>
+ * <p>Date: 18.10.2026
+ * </p>
+ *
+ * @param <T> input element type
+ * @author agent
+ */
+public class Pipeline<T> {
+    public static final int DEFAULT_BATCH_SIZE = 64, DEFAULT_BUFFER_SIZE = 1024;
+
+    private final IGreenThrFactory factory;
+    private final List<StageSpec> stages;
+
+    private Pipeline(IGreenThrFactory factory, List<StageSpec> stages) {
+        this.factory = factory;
+        this.stages = stages;
+    }
+
+    /**
+     * New pipeline builder.
+     *
+     * @param factory thread factory (for stage workers)
+     * @param <T>     input element type
+     * @return builder
+     */
+    public static <T> Builder<T, T> builder(IGreenThrFactory factory) {
+        return new Builder<>(Objects.requireNonNull(factory), new ArrayList<>());
+    }
+
+    /**
+     * Number of stages, after fusion.
+     *
+     * @return stage count
+     */
+    public int stageCount() {
+        return stages.size();
+    }
+
+    /**
+     * Run all elements from source through the pipeline.
+     * The source is read on a green thread, as credits allow.
+     *
+     * @param source elements
+     * @return async result (null) when all elements have passed the sink, or on failure
+     */
+    public Completion run(Iterable<? extends T> source) {
+        return run(source.iterator());
+    }
+
+    /**
+     * Run all elements from source through the pipeline.
+     * The source is read on a green thread, as credits allow.
+     *
+     * @param source elements
+     * @return async result (null) when all elements have passed the sink, or on failure
+     */
+    public Completion run(Iterator<? extends T> source) {
+        Objects.requireNonNull(source);
+        final Completion done = new Completion();
+        final AtomicInteger running = new AtomicInteger(stages.get(stages.size() - 1).parallelism);
+        //create workers from last stage to first; each knows its downstream
+        Worker[] next = null;
+        int nextBatch = 0, nextBuffer = 0;
+        for (int s = stages.size() - 1; s >= 0; s--) {
+            final StageSpec spec = stages.get(s);
+            final int upstreams = s == 0 ? 1 : stages.get(s - 1).parallelism;
+            final Worker[] workers = new Worker[spec.parallelism];
+            for (int w = 0; w < workers.length; w++)
+                workers[w] = new Worker(factory, spec, upstreams, next, nextBatch,
+                        nextBuffer / spec.parallelism, running, done);
+            next = workers;
+            nextBatch = spec.batchSize;
+            nextBuffer = spec.bufferSize;
+        }
+        final Worker source0 = new Worker(factory, null, 0, next, nextBatch, nextBuffer, running, done);
+        source0.ref.send(w -> w.pull(source));
+        return done;
+    }
+
+    /**
+     * Result of a pipeline run; Completes (with null) when all elements have passed the sink,
+     * or when the run failed.
+     */
+    public static class Completion extends ASyncValue<Void> {
+        private final AtomicBoolean isDone = new AtomicBoolean();
+        private volatile RuntimeException failure;
+
+        /**
+         * Get exception which stopped the run.
+         *
+         * @return exception, or null
+         */
+        public RuntimeException getFailure() {
+            return failure;
+        }
+
+        boolean isFailed() {
+            return failure != null;
+        }
+
+        /**
+         * Complete once; Failure (if any) is set before consumers are called.
+         */
+        void finish(RuntimeException e) {
+            if (!isDone.compareAndSet(false, true))
+                return;
+            failure = e;
+            accept(null);
+        }
+    }
+
+    //------------------------------------- builder:
+
+    /**
+     * Pipeline builder; Adds steps, and options on the last step.
+     *
+     * @param <T> pipeline input type
+     * @param <O> output type of last step
+     */
+    public static class Builder<T, O> {
+        private final IGreenThrFactory factory;
+        private final List<StageSpec> steps;
+
+        private Builder(IGreenThrFactory factory, List<StageSpec> steps) {
+            this.factory = factory;
+            this.steps = steps;
+        }
+
+        private <R> Builder<T, R> add(Function<Consumer<Object>, Consumer<Object>> op) {
+            final StageSpec spec = new StageSpec();
+            spec.ops.add(op);
+            steps.add(spec);
+            return new Builder<>(factory, steps);
+        }
+
+        private StageSpec last() {
+            if (steps.isEmpty())
+                throw new IllegalStateException("No step to configure");
+            final StageSpec spec = steps.get(steps.size() - 1);
+            spec.explicit = true;
+            return spec;
+        }
+
+        /**
+         * Add map step.
+         *
+         * @param mapper function
+         * @param <R>    new element type
+         * @return builder
+         */
+        @SuppressWarnings("unchecked")
+        public <R> Builder<T, R> map(Function<? super O, ? extends R> mapper) {
+            Objects.requireNonNull(mapper);
+            return add(down -> e -> down.accept(mapper.apply((O) e)));
+        }
+
+        /**
+         * Add filter step.
+         *
+         * @param predicate elements to keep
+         * @return builder
+         */
+        @SuppressWarnings("unchecked")
+        public Builder<T, O> filter(Predicate<? super O> predicate) {
+            Objects.requireNonNull(predicate);
+            return add(down -> e -> {
+                if (predicate.test((O) e))
+                    down.accept(e);
+            });
+        }
+
+        /**
+         * Add step emitting zero or more elements per input element.
+         *
+         * @param mapper gets element and output
+         * @param <R>    new element type
+         * @return builder
+         */
+        @SuppressWarnings("unchecked")
+        public <R> Builder<T, R> flatMap(BiConsumer<? super O, Consumer<? super R>> mapper) {
+            Objects.requireNonNull(mapper);
+            return add(down -> e -> mapper.accept((O) e, (Consumer<? super R>) down));
+        }
+
+        /**
+         * Run last step in a stage of its own (not fused).
+         *
+         * @return builder
+         */
+        public Builder<T, O> async() {
+            last();
+            return this;
+        }
+
+        /**
+         * Number of workers for last step (own stage).
+         *
+         * @param n workers (&gt;= 1)
+         * @return builder
+         */
+        public Builder<T, O> parallelism(int n) {
+            if (n < 1)
+                throw new IllegalArgumentException("parallelism < 1");
+            last().parallelism = n;
+            return this;
+        }
+
+        /**
+         * Max elements per message into last step (own stage).
+         *
+         * @param n batch size (&gt;= 1)
+         * @return builder
+         */
+        public Builder<T, O> batchSize(int n) {
+            if (n < 1)
+                throw new IllegalArgumentException("batchSize < 1");
+            last().batchSize = n;
+            return this;
+        }
+
+        /**
+         * Max elements buffered before last step (own stage);
+         * At least batch size per upstream worker.
+         *
+         * @param n buffer size (&gt;= 1)
+         * @return builder
+         */
+        public Builder<T, O> bufferSize(int n) {
+            if (n < 1)
+                throw new IllegalArgumentException("bufferSize < 1");
+            last().bufferSize = n;
+            return this;
+        }
+
+        /**
+         * Finish pipeline with a sink (fused into last stage).
+         *
+         * @param sink element consumer
+         * @return pipeline
+         */
+        @SuppressWarnings("unchecked")
+        public Pipeline<T> to(Consumer<? super O> sink) {
+            Objects.requireNonNull(sink);
+            add(down -> (Consumer<Object>) sink);
+            return new Pipeline<>(factory, fuse(steps));
+        }
+    }
+
+    static List<StageSpec> fuse(List<StageSpec> steps) {
+        final List<StageSpec> stages = new ArrayList<>();
+        for (StageSpec step : steps) {
+            final StageSpec prev = stages.isEmpty() ? null : stages.get(stages.size() - 1);
+            if (prev != null && !step.explicit && prev.parallelism == 1)
+                prev.ops.addAll(step.ops);
+            else {
+                final StageSpec stage = new StageSpec();
+                stage.ops.addAll(step.ops);
+                stage.parallelism = step.parallelism;
+                stage.batchSize = step.batchSize;
+                stage.bufferSize = step.bufferSize;
+                stages.add(stage);
+            }
+        }
+        return stages;
+    }
+
+    static class StageSpec {
+        final List<Function<Consumer<Object>, Consumer<Object>>> ops = new ArrayList<>();
+        int parallelism = 1, batchSize = DEFAULT_BATCH_SIZE, bufferSize = DEFAULT_BUFFER_SIZE;
+        boolean explicit;
+
+        //fused steps, ending in downstream
+        Consumer<Object> chain(Consumer<Object> downstream) {
+            Consumer<Object> c = downstream;
+            for (int i = ops.size() - 1; i >= 0; i--)
+                c = ops.get(i).apply(c);
+            return c;
+        }
+    }
+
+    //------------------------------------- runtime:
+
+    /**
+     * Stage worker, or source (without spec); State accessed only from its own thread.
+     */
+    static class Worker {
+        final IActorRef<Worker> ref;
+        private final Consumer<Object> fused;
+        private final Worker[] next; //null in last stage
+        private final int nextBatch, upstreams;
+        private final AtomicInteger running;
+        private final Completion done;
+        private final ArrayDeque<List<Object>> outbox = new ArrayDeque<>();
+        private final List<Runnable> heldCredits = new ArrayList<>();
+        private List<Object> out;
+        private int credits, nextIx, ended;
+        private boolean endSent;
+        private Iterator<?> source;
+
+        Worker(IGreenThrFactory factory, StageSpec spec, int upstreams, Worker[] next, int nextBatch,
+               int nextBuffer, AtomicInteger running, Completion done) {
+            this.ref = new ActorRef<>(factory, this);
+            this.fused = spec == null ? null : spec.chain(this::emit);
+            this.upstreams = upstreams;
+            this.next = next;
+            this.nextBatch = nextBatch;
+            this.credits = next == null ? 0 : Math.max(nextBatch, nextBuffer);
+            this.running = running;
+            this.done = done;
+        }
+
+        private void emit(Object e) {
+            if (out == null)
+                out = new ArrayList<>(nextBatch);
+            out.add(e);
+            if (out.size() >= nextBatch) {
+                outbox.add(out);
+                out = null;
+            }
+        }
+
+        private void send(List<Object> batch) {
+            credits -= batch.size();
+            final Worker to = next[nextIx++ % next.length];
+            to.ref.send(w -> w.onBatch(batch, this));
+        }
+
+        private void sendEnd() {
+            endSent = true;
+            for (Worker w : next)
+                w.ref.send(Worker::onEnd);
+        }
+
+        /**
+         * Send batches while credits allow; When all is sent, return held credits.
+         */
+        private void drain() {
+            while (!outbox.isEmpty() && credits >= outbox.peek().size())
+                send(outbox.poll());
+            if (!outbox.isEmpty())
+                return;
+            for (Runnable r : heldCredits)
+                r.run();
+            heldCredits.clear();
+            if (ended == upstreams && !endSent)
+                sendEnd();
+        }
+
+        void onBatch(List<Object> batch, Worker from) {
+            if (done.isFailed())
+                return; //stopped
+            try {
+                for (Object e : batch)
+                    fused.accept(e);
+            } catch (RuntimeException e) {
+                done.finish(e);
+                return;
+            }
+            final int n = batch.size();
+            if (next == null) {
+                from.ref.send(w -> w.onCredit(n));
+                return;
+            }
+            if (out != null) {
+                outbox.add(out);
+                out = null;
+            }
+            heldCredits.add(() -> from.ref.send(w -> w.onCredit(n)));
+            drain();
+        }
+
+        void onCredit(int n) {
+            if (done.isFailed())
+                return;
+            credits += n;
+            if (source != null)
+                pull(source);
+            else
+                drain();
+        }
+
+        void onEnd() {
+            if (done.isFailed())
+                return;
+            ++ended;
+            if (next != null)
+                drain();
+            else if (ended == upstreams && running.decrementAndGet() == 0)
+                done.finish(null);
+        }
+
+        /**
+         * Source: read elements while credits allow.
+         */
+        void pull(Iterator<?> it) {
+            source = it;
+            try {
+                while (credits > 0 && !done.isFailed() && it.hasNext()) {
+                    final List<Object> batch = new ArrayList<>(Math.min(nextBatch, credits));
+                    for (int n = Math.min(nextBatch, credits); n > 0 && it.hasNext(); n--)
+                        batch.add(it.next());
+                    send(batch);
+                }
+                if (!done.isFailed() && !it.hasNext() && !endSent) {
+                    source = null;
+                    sendEnd();
+                }
+            } catch (RuntimeException e) {
+                done.finish(e);
+            }
+        }
+    }
+}
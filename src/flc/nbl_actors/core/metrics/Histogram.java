@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2026 agent
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package flc.nbl_actors.core.metrics;
+
+/**
+ * Log-linear histogram of non-negative long values (eg. nano seconds).
+ * <p>Values below 16 have exact buckets; Above, each power of 2 is split in 16 linear
+ * sub-buckets, so a bucket spans at most 1/16 (6.25%) of its values. The full long range
+ * fits in {@link #BUCKETS} counters, with constant time recording.
+ * Not thread-safe; See {@link LatencyRelay} for concurrent recording.
+ * </p>
+ * <p>Date: 18.10.2026
+ * </p>
+ *
+ * @author agent
+ */
+public class Histogram {
+    static final int SUB_BITS = 4, SUB = 1 << SUB_BITS;
+    /**
+     * Number of buckets
+     */
+    public static final int BUCKETS = (64 - SUB_BITS) * SUB;
+    final long[] counts = new long[BUCKETS];
+    long count, sum, max;
+
+    /**
+     * @param value value (negative counted as 0)
+     * @return bucket index
+     */
+    static int index(long value) {
+        if (value < SUB)
+            return value < 0 ? 0 : (int) value;
+        final int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return ((shift + 1) << SUB_BITS) + (int) (value >>> shift) - SUB;
+    }
+
+    /**
+     * @param index bucket index
+     * @return lowest value in bucket
+     */
+    static long lowest(int index) {
+        if (index < SUB)
+            return index;
+        final int shift = (index >> SUB_BITS) - 1;
+        return (long) (SUB + (index & (SUB - 1))) << shift;
+    }
+
+    /**
+     * @param index bucket index
+     * @return highest value in bucket
+     */
+    static long highest(int index) {
+        if (index < SUB)
+            return index;
+        final int shift = (index >> SUB_BITS) - 1;
+        return lowest(index) + (1L << shift) - 1;
+    }
+
+    /**
+     * Record value.
+     *
+     * @param value value
+     */
+    public void record(long value) {
+        ++counts[index(value)];
+        ++count;
+        sum += value;
+        if (value > max)
+            max = value;
+    }
+
+    /**
+     * Add all values of other histogram.
+     *
+     * @param other histogram
+     */
+    public void add(Histogram other) {
+        for (int i = 0; i < BUCKETS; i++)
+            counts[i] += other.counts[i];
+        count += other.count;
+        sum += other.sum;
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * @return number of values
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return max value (exact)
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * @return mean value (exact)
+     */
+    public double getMean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * Value at percentile; The highest value of its bucket (but not above max).
+     *
+     * @param percentile 0 to 100 (eg. 99.9)
+     * @return value, or 0 if empty
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (count == 0)
+            return 0;
+        final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long n = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            n += counts[i];
+            if (n >= rank)
+                return Math.min(highest(i), max);
+        }
+        return max;
+    }
+}
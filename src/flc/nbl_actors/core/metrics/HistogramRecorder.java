@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2026 agent
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package flc.nbl_actors.core.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram recorder for a single writer (at a time), read concurrently without locks.
+ * The writer uses ordered (lazySet) writes, no CAS; Readers merge a slightly stale copy.
+ * <p>Date: 18.10.2026
+ * </p>
+ *
+ * @author agent
+ */
+final class HistogramRecorder {
+    private final AtomicLongArray counts = new AtomicLongArray(Histogram.BUCKETS);
+    private final AtomicLong sum = new AtomicLong(), max = new AtomicLong();
+
+    void record(long value) {
+        final int i = Histogram.index(value);
+        counts.lazySet(i, counts.get(i) + 1);
+        sum.lazySet(sum.get() + value);
+        if (value > max.get())
+            max.lazySet(value);
+    }
+
+    void addTo(Histogram h) {
+        for (int i = 0; i < Histogram.BUCKETS; i++) {
+            final long c = counts.get(i);
+            h.counts[i] += c;
+            h.count += c;
+        }
+        h.sum += sum.get();
+        h.max = Math.max(h.max, max.get());
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2026 agent
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package flc.nbl_actors.core.metrics;
+
+import flc.nbl_actors.core.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Message relay recording latency histograms, per green thread and target actor class:
+ * mailbox wait (sent to received) and handler time (received to done).
+ * <p>Each interceptor (one per green thread) has its own recorders, written only by the
+ * thread running that green thread's messages; No locks or CAS when recording.
+ * {@link #snapshot()} merges all recorders. Cost per message is three System.nanoTime()
+ * calls, a wrapper Runnable, and two histogram increments.
+ * </p>
+ * <pre>
+ * Example:
+ * {@code
+ *     LatencyRelay latency = new LatencyRelay().attach(factory);
+ *     ...
+ *     LatencyReporter.print(latency.snapshot(), System.out);
+ * }
+ * </pre>
+ * <p>Date: 18.10.2026
+ * </p>
+ *
+ * @author agent
+ */
+public class LatencyRelay implements IMessageRelay {
+    /**
+     * Key used for messages not sent to an actor (plain Runnable).
+     */
+    public static final Class<?> NO_ACTOR = Runnable.class;
+
+    private final IMessageRelay next;
+    private final List<ThreadRecorder> threads = new CopyOnWriteArrayList<>();
+    private final AtomicInteger threadCount = new AtomicInteger();
+
+    /**
+     * Latency recording only.
+     */
+    public LatencyRelay() {
+        this(null);
+    }
+
+    /**
+     * Latency recording, in addition to given relay (eg. a trace MessageRelay);
+     * A factory has one relay.
+     *
+     * @param next wrapped relay, or null
+     */
+    public LatencyRelay(IMessageRelay next) {
+        this.next = next;
+    }
+
+    /**
+     * Set as message relay of thread-factory
+     *
+     * @param threads thread-factory
+     * @return this
+     */
+    public LatencyRelay attach(IGreenThrFactory threads) {
+        threads.setMessageRelay(this);
+        return this;
+    }
+
+    static final class Recorders {
+        final HistogramRecorder wait = new HistogramRecorder(), run = new HistogramRecorder();
+    }
+
+    static final class ThreadRecorder {
+        final String name;
+        final Map<Class<?>, Recorders> byClass = new ConcurrentHashMap<>();
+        private Class<?> lastClass; //writer only
+        private Recorders last;
+
+        ThreadRecorder(String name) {
+            this.name = name;
+        }
+
+        Recorders get(Class<?> cls) {
+            if (cls != lastClass) {
+                last = byClass.computeIfAbsent(cls, c -> new Recorders());
+                lastClass = cls;
+            }
+            return last;
+        }
+    }
+
+    @Override
+    public Function<Runnable, Runnable> newInterceptor(IGreenThr ownerThread) {
+        final Function<Runnable, Runnable> inner = next == null ? null : next.newInterceptor(ownerThread);
+        final ThreadRecorder rec = new ThreadRecorder("green-thread " + threadCount.incrementAndGet());
+        threads.add(rec);
+        return msg -> {
+            final Class<?> cls = msg instanceof ActorMessage
+                    ? ((ActorMessage<?>) msg).ref.getActorClass() : NO_ACTOR;
+            final Runnable m = inner == null ? msg : inner.apply(msg);
+            final long sent = System.nanoTime();
+            return () -> {
+                final long t1 = System.nanoTime();
+                try {
+                    m.run();
+                } finally {
+                    final long t2 = System.nanoTime();
+                    final Recorders r = rec.get(cls);
+                    r.wait.record(t1 - sent);
+                    r.run.record(t2 - t1);
+                }
+            };
+        };
+    }
+
+    /**
+     * Merge current recordings (cumulative since start).
+     * A message is recorded when its handler returns; A snapshot taken inside a handler
+     * (or while messages run) excludes the messages still running, including its own.
+     *
+     * @return snapshot
+     */
+    public LatencySnapshot snapshot() {
+        final LatencySnapshot snap = new LatencySnapshot();
+        for (ThreadRecorder t : threads) {
+            for (Map.Entry<Class<?>, Recorders> e : t.byClass.entrySet()) {
+                final String cls = e.getKey() == NO_ACTOR ? LatencySnapshot.NO_ACTOR : e.getKey().getName();
+                addTo(snap.entry(snap.byClass, cls), e.getValue());
+                addTo(snap.entry(snap.byThread, t.name), e.getValue());
+            }
+        }
+        return snap;
+    }
+
+    private static void addTo(LatencySnapshot.Entry entry, Recorders r) {
+        r.wait.addTo(entry.wait);
+        r.run.addTo(entry.run);
+    }
+}
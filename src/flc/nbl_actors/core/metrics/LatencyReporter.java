@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2026 agent
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package flc.nbl_actors.core.metrics;
+
+import java.io.PrintStream;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Text report of latency percentiles (micro seconds); Once, or periodically
+ * from a daemon thread.
+ * <p>Date: 18.10.2026
+ * </p>
+ *
+ * @author agent
+ */
+public class LatencyReporter implements AutoCloseable {
+    private final Thread thread;
+
+    /**
+     * Print snapshot of relay periodically, until closed.
+     *
+     * @param relay        latency relay
+     * @param periodMillis report period
+     * @param out          output
+     */
+    public LatencyReporter(LatencyRelay relay, long periodMillis, PrintStream out) {
+        if (periodMillis <= 0)
+            throw new IllegalArgumentException("periodMillis <= 0");
+        thread = new Thread(() -> {
+            try {
+                while (true) {
+                    Thread.sleep(periodMillis);
+                    print(relay.snapshot(), out);
+                }
+            } catch (InterruptedException ignore) {
+            }
+        }, "LatencyReporter");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stop reporting.
+     */
+    @Override
+    public void close() {
+        thread.interrupt();
+    }
+
+    /**
+     * Print snapshot: per actor class, then per green thread.
+     *
+     * @param snap snapshot
+     * @param out  output
+     */
+    public static void print(LatencySnapshot snap, PrintStream out) {
+        out.print(format(snap));
+        out.flush();
+    }
+
+    /**
+     * Format snapshot as text table.
+     *
+     * @param snap snapshot
+     * @return text
+     */
+    public static String format(LatencySnapshot snap) {
+        final StringBuilder sb = new StringBuilder();
+        table(sb, "Actor class", snap.getByActorClass());
+        table(sb, "Green thread", snap.getByThread());
+        return sb.toString();
+    }
+
+    private static void table(StringBuilder sb, String title, Map<String, LatencySnapshot.Entry> map) {
+        final String cols = String.format("%7s %7s %7s %8s", "p50", "p99", "p99.9", "max");
+        sb.append(String.format(Locale.ROOT, "%-36s %9s | %-32s | %-32s%n", "", "",
+                "wait (us)", "run (us)"));
+        sb.append(String.format(Locale.ROOT, "%-36s %9s | %s | %s%n", title, "count", cols, cols));
+        for (LatencySnapshot.Entry e : map.values())
+            sb.append(String.format(Locale.ROOT, "%-36s %9d | %s | %s%n",
+                    e.name, e.run.getCount(), percentiles(e.wait), percentiles(e.run)));
+    }
+
+    private static String percentiles(Histogram h) {
+        return String.format(Locale.ROOT, "%7.1f %7.1f %7.1f %8.1f",
+                h.getValueAtPercentile(50) / 1e3, h.getValueAtPercentile(99) / 1e3,
+                h.getValueAtPercentile(99.9) / 1e3, h.getMax() / 1e3);
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2026 agent
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package flc.nbl_actors.core.metrics;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Merged latency histograms from {@link LatencyRelay}, by actor class and by green thread.
+ * <p>Date: 18.10.2026
+ * </p>
+ *
+ * @author agent
+ */
+public class LatencySnapshot {
+    /**
+     * Name used for messages not sent to an actor.
+     */
+    public static final String NO_ACTOR = "(thread task)";
+
+    /**
+     * Mailbox wait and handler time histograms (nano seconds).
+     */
+    public static final class Entry {
+        public final String name;
+        public final Histogram wait = new Histogram(), run = new Histogram();
+
+        Entry(String name) {
+            this.name = name;
+        }
+    }
+
+    final Map<String, Entry> byClass = new TreeMap<>(), byThread = new LinkedHashMap<>();
+    /**
+     * System.currentTimeMillis() of snapshot
+     */
+    public final long timeMillis = System.currentTimeMillis();
+
+    Entry entry(Map<String, Entry> map, String name) {
+        return map.computeIfAbsent(name, Entry::new);
+    }
+
+    /**
+     * @return entries by actor class name
+     */
+    public Map<String, Entry> getByActorClass() {
+        return Collections.unmodifiableMap(byClass);
+    }
+
+    /**
+     * @return entries by green thread name, in creation order
+     */
+    public Map<String, Entry> getByThread() {
+        return Collections.unmodifiableMap(byThread);
+    }
+}
@@ -0,0 +1,299 @@
+/*
+ * Copyright (c) 2026 agent
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package flc.nbl_actors.core.persist;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32;
+
+/**
+ * Segmented, memory-mapped, append-only event journal.
+ * <p>Events are appended as records to the current segment file (mapped into memory),
+ * and rolled over to a new segment when full. Segment files are named by the sequence
+ * number of their first record, so a replay can skip segments older than a snapshot.
+ * </p>
+ * <pre>
+ * Record layout (little endian):
+ *   int  length  (payload bytes, 0 = end of segment)
+ *   int  crc     (CRC32 of seq + payload)
+ *   long seq     (sequence number, starts at 1)
+ *   byte[length] payload
+ * </pre>
+ * Appended records are visible to the OS immediately (process crash safe),
+ * but only durable (power failure safe) after {@link #sync()}.
+ * Call sync() once per batch of appends (group commit).
+ * <p>NB. Not thread-safe; intended to be owned by a single actor.
+ * </p>
+ * <p>Date: 18.10.2026
+ * </p>
+ *
+ * @author agent
+ * @see PersistentActorBase
+ */
+public class Journal implements Closeable {
+    public static final int DEFAULT_SEGMENT_SIZE = 64 << 20;
+    static final int HEADER = 16;
+    private static final String PREFIX = "journal-", SUFFIX = ".seg";
+
+    private final Path dir;
+    private final int segmentSize;
+    private final NavigableMap<Long, Path> segments = new TreeMap<>(); //firstSeq -> file
+    private final CRC32 crc = new CRC32();
+    private FileChannel channel;
+    private MappedByteBuffer buf;
+    private long nextSeq = 1;
+    private boolean isDirty;
+
+    /**
+     * Open journal with default segment size ({@value #DEFAULT_SEGMENT_SIZE} bytes).
+     *
+     * @param dir journal directory (created if missing)
+     * @throws IOException if an I/O error occurs
+     */
+    public Journal(Path dir) throws IOException {
+        this(dir, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Open journal; Scans last segment to find the end of valid records.
+     *
+     * @param dir         journal directory (created if missing)
+     * @param segmentSize segment file size in bytes
+     * @throws IOException if an I/O error occurs
+     */
+    public Journal(Path dir, int segmentSize) throws IOException {
+        if (segmentSize < HEADER * 2)
+            throw new IllegalArgumentException("segmentSize too small: " + segmentSize);
+        this.dir = Files.createDirectories(dir);
+        this.segmentSize = segmentSize;
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, PREFIX + "*" + SUFFIX)) {
+            for (Path p : ds)
+                segments.put(firstSeq(p), p);
+        }
+        if (segments.isEmpty()) {
+            openSegment(1);
+        } else {
+            Map.Entry<Long, Path> last = segments.lastEntry();
+            map(last.getValue());
+            nextSeq = last.getKey();
+            int pos = 0;
+            int next;
+            while ((next = validRecord(buf, pos, nextSeq)) > 0) {
+                pos = next;
+                ++nextSeq;
+            }
+            buf.position(pos);
+            //clear any partially written (torn) record:
+            for (int i = pos; i < Math.min(pos + HEADER, buf.capacity()); i++)
+                buf.put(i, (byte) 0);
+        }
+    }
+
+    private static long firstSeq(Path p) {
+        String name = p.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    private void map(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buf = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        buf.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private void openSegment(long firstSeq) throws IOException {
+        Path file = dir.resolve(String.format("%s%020d%s", PREFIX, firstSeq, SUFFIX));
+        map(file);
+        segments.put(firstSeq, file);
+    }
+
+    private void closeSegment() throws IOException {
+        if (channel == null) return;
+        if (isDirty) buf.force();
+        isDirty = false;
+        channel.close();
+        channel = null;
+        buf = null;
+    }
+
+    /**
+     * Validate record at position.
+     *
+     * @return position of next record, or -1 if invalid/end
+     */
+    private int validRecord(ByteBuffer b, int pos, long expectSeq) {
+        if (pos + HEADER > b.capacity()) return -1;
+        final int len = b.getInt(pos);
+        if (len <= 0 || len > b.capacity() - pos - HEADER) return -1;
+        if (b.getLong(pos + 8) != expectSeq) return -1;
+        return checksum(b, pos, len) == b.getInt(pos + 4) ? pos + HEADER + len : -1;
+    }
+
+    private int checksum(ByteBuffer b, int pos, int len) {
+        ByteBuffer d = b.duplicate();
+        d.limit(pos + HEADER + len).position(pos + 8);
+        crc.reset();
+        crc.update(d);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Append event record; The encoder writes the payload directly into
+     * the mapped segment (via relative put operations).
+     *
+     * @param event   event
+     * @param encoder writes event to buffer (must write at least one byte)
+     * @param <E>     event type
+     * @return sequence number of appended record
+     * @throws IllegalArgumentException if encoded event does not fit in an empty segment
+     * @throws UncheckedIOException     if an I/O error occurs
+     */
+    public <E> long append(E event, BiConsumer<? super E, ByteBuffer> encoder) {
+        try {
+            while (true) {
+                final int pos = buf.position();
+                int len = -1;
+                if (pos + HEADER < buf.capacity()) {
+                    buf.position(pos + HEADER);
+                    try {
+                        encoder.accept(event, buf);
+                        len = buf.position() - pos - HEADER;
+                    } catch (BufferOverflowException ignore) {
+                        //roll over to next segment
+                    }
+                }
+                if (len > 0) {
+                    final long seq = nextSeq++;
+                    buf.putLong(pos + 8, seq);
+                    buf.putInt(pos + 4, checksum(buf, pos, len));
+                    buf.putInt(pos, len); //written last
+                    isDirty = true;
+                    return seq;
+                }
+                buf.position(pos);
+                if (len == 0)
+                    throw new IllegalArgumentException("Empty event encoding");
+                if (pos == 0)
+                    throw new IllegalArgumentException("Event larger than segment size: " + segmentSize);
+                closeSegment();
+                openSegment(nextSeq);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Force appended records to storage (fsync), if any since last sync.
+     */
+    public void sync() {
+        if (isDirty) {
+            buf.force();
+            isDirty = false;
+        }
+    }
+
+    /**
+     * Sequence number of next appended record.
+     *
+     * @return next sequence number
+     */
+    public long nextSeq() {
+        return nextSeq;
+    }
+
+    /**
+     * Replay records, in order, starting from given sequence number.
+     * Segments entirely before {@code fromSeq} are not read.
+     * The consumer receives a read-only buffer, positioned at payload start and
+     * limited at payload end; the buffer instance is reused between calls.
+     *
+     * @param fromSeq  first sequence number to replay
+     * @param consumer (seq, payload) record consumer
+     * @return number of replayed records
+     * @throws UncheckedIOException if an I/O error occurs
+     */
+    public long replay(long fromSeq, BiConsumer<Long, ByteBuffer> consumer) {
+        Long start = segments.floorKey(fromSeq);
+        if (start == null) start = segments.firstKey();
+        long count = 0;
+        for (Map.Entry<Long, Path> e : segments.tailMap(start, true).entrySet()) {
+            final ByteBuffer seg = segmentBuffer(e.getValue());
+            long seq = e.getKey();
+            int pos = 0, next;
+            while ((next = validRecord(seg, pos, seq)) > 0) {
+                if (seq >= fromSeq) {
+                    seg.limit(next).position(pos + HEADER);
+                    consumer.accept(seq, seg);
+                    seg.limit(seg.capacity());
+                    ++count;
+                }
+                pos = next;
+                ++seq;
+            }
+        }
+        return count;
+    }
+
+    private ByteBuffer segmentBuffer(Path file) {
+        if (file.equals(segments.lastEntry().getValue()))
+            return buf.asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            return ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size())
+                    .order(ByteOrder.LITTLE_ENDIAN);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Delete segments where all records have sequence number &lt;= {@code seq}.
+     * (Typically called after a state snapshot at {@code seq})
+     *
+     * @param seq last sequence number no longer needed
+     * @return number of deleted segments
+     * @throws UncheckedIOException if an I/O error occurs
+     */
+    public int deleteUpTo(long seq) {
+        int no = 0;
+        Iterator<Map.Entry<Long, Path>> it = segments.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Long, Path> e = it.next();
+            Long nextFirst = segments.higherKey(e.getKey());
+            if (nextFirst == null || nextFirst - 1 > seq)
+                break;
+            try {
+                Files.deleteIfExists(e.getValue());
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            it.remove();
+            ++no;
+        }
+        return no;
+    }
+
+    /**
+     * Sync and close current segment.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        closeSegment();
+    }
+}
@@ -0,0 +1,286 @@
+/*
+ * Copyright (c) 2026 agent
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package flc.nbl_actors.core.persist;
+
+import flc.nbl_actors.core.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * Event-sourced actor base class.
+ * <p>State changes are expressed as events (E), persisted via {@link #persist(Object, Runnable)}
+ * to a memory-mapped {@link Journal}, and applied to actor state via {@link #applyEvent(Object)}.
+ * On {@link #initThread(IGreenThr) init}, state is recovered (as the first message) by
+ * replaying the journal. (For state snapshots, extend {@link SnapshottingActorBase}.)
+ * If recovery fails (eg. a record can not be decoded or applied), the journal is closed
+ * and later {@link #persist(Object, Runnable) persist} calls are refused,
+ * so no events are appended on top of a partly recovered state.
+ * </p>
+ * <p>Group commit: Events persisted while processing queued messages are batched;
+ * the journal is synced (fsync) once per batch, from a commit message scheduled behind
+ * already queued messages. 'onDurable' callbacks run after the sync.
+ * </p>
+ * <pre>{@code
+ * Example:
+ *     class Counter extends PersistentActorBase<Counter, Long> {
+ *         long sum;
+ *         Counter(Path dir) { super(dir); }
+ *         void add(long v) { persist(v, null); }
+ *         protected void applyEvent(Long v) { sum += v; }
+ *         protected void encodeEvent(Long v, ByteBuffer out) { out.putLong(v); }
+ *         protected Long decodeEvent(ByteBuffer in) { return in.getLong(); }
+ *     }
+ *     IActorRef<Counter> ref = new Counter(dir).init(factory);
+ *     ref.send(a -> a.add(5));
+ * }</pre>
+ * <p>Date: 18.10.2026
+ * </p>
+ *
+ * @param <T> actor type
+ * @param <E> event type
+ * @author agent
+ */
+public abstract class PersistentActorBase<T extends PersistentActorBase<T, E>, E> extends ActorBase<T> {
+    private final Path dir;
+    private final int segmentSize;
+    private final BiConsumer<E, ByteBuffer> encoder = this::encodeEvent;
+    private final List<Runnable> pendingDurable = new ArrayList<>();
+    private Journal journal;
+    private RuntimeException recoveryFailure;
+    private boolean isCommitScheduled, isRecovering, isClosed;
+    private boolean isSync = true;
+    private long lastSeq;
+
+    /**
+     * @param dir storage directory (journal and snapshots)
+     */
+    protected PersistentActorBase(Path dir) {
+        this(dir, Journal.DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * @param dir         storage directory (journal and snapshots)
+     * @param segmentSize journal segment size in bytes
+     */
+    protected PersistentActorBase(Path dir, int segmentSize) {
+        this.dir = dir;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Actor constructor; Also schedules recovery as the first message.
+     *
+     * @param thr green thread
+     * @return new actor reference
+     */
+    @Override
+    public IActorRef<T> initThread(IGreenThr thr) {
+        boolean isNew = self() == null;
+        IActorRef<T> ref = super.initThread(thr);
+        if (isNew)
+            ref.send(PersistentActorBase::recover);
+        return ref;
+    }
+
+    //------------------------------------- to implement:
+
+    /**
+     * Apply event to actor state. Called both for new events and during recovery.
+     *
+     * @param event event
+     */
+    protected abstract void applyEvent(E event);
+
+    /**
+     * Encode event (relative put operations).
+     *
+     * @param event event
+     * @param out   output buffer
+     */
+    protected abstract void encodeEvent(E event, ByteBuffer out);
+
+    /**
+     * Decode event (relative get operations).
+     *
+     * @param in input buffer
+     * @return event
+     */
+    protected abstract E decodeEvent(ByteBuffer in);
+
+    /**
+     * Called when recovery is done (before processing other messages).
+     *
+     * @param replayed number of replayed journal events
+     */
+    protected void onRecovered(long replayed) {
+    }
+
+    //-------------------------------------
+
+    /**
+     * Enable/disable fsync on commit (default true).
+     * If disabled, persisted events survive a process crash, but not an OS crash or power loss.
+     *
+     * @param sync true to force journal to storage on commit
+     */
+    public void setSync(boolean sync) {
+        isSync = sync;
+    }
+
+    /**
+     * Sequence number of last persisted (or recovered) event.
+     *
+     * @return sequence number
+     */
+    public long lastSeq() {
+        return lastSeq;
+    }
+
+    /**
+     * Recovery failure, if any. Persisting is then refused.
+     *
+     * @return exception thrown during recovery, or null
+     */
+    public RuntimeException getRecoveryFailure() {
+        return recoveryFailure;
+    }
+
+    /**
+     * Is recovery in progress (ie. {@link #applyEvent} called from journal replay).
+     *
+     * @return true if recovering
+     */
+    protected boolean isRecovering() {
+        return isRecovering;
+    }
+
+    /**
+     * Persist event: Append to journal, then apply to state.
+     * (Call from actor thread only)
+     *
+     * @param event     event
+     * @param onDurable optional callback (may be null), run after journal commit
+     * @throws IllegalStateException if called during recovery, after close, or recovery failed
+     */
+    protected void persist(E event, Runnable onDurable) {
+        if (isRecovering || isClosed)
+            throw new IllegalStateException(isClosed ? "Journal closed" : "persist() called during recovery");
+        if (journal == null)
+            recover(); //in case called before the recovery message
+        if (recoveryFailure != null)
+            throw new IllegalStateException("Recovery failed", recoveryFailure);
+        lastSeq = journal.append(event, encoder);
+        applyEvent(event);
+        if (onDurable != null)
+            pendingDurable.add(onDurable);
+        if (!isCommitScheduled) {
+            isCommitScheduled = true;
+            self().send(PersistentActorBase::commit);
+        }
+    }
+
+    /**
+     * Commit: Sync journal, and run 'onDurable' callbacks.
+     * Called automatically after each batch of persisted events.
+     */
+    protected void commit() {
+        isCommitScheduled = false;
+        if (journal == null) return;
+        if (isSync)
+            journal.sync();
+        if (!pendingDurable.isEmpty()) {
+            Runnable[] arr = pendingDurable.toArray(new Runnable[pendingDurable.size()]);
+            pendingDurable.clear();
+            for (Runnable r : arr)
+                r.run();
+        }
+        afterCommit();
+    }
+
+    //------------------------------------- for SnapshottingActorBase:
+
+    /**
+     * Load latest state snapshot, if any (during recovery).
+     *
+     * @param dir storage directory
+     * @return sequence number of last event included in snapshot, or 0 if none
+     * @throws IOException if an I/O error occurs
+     */
+    long loadSnapshot(Path dir) throws IOException {
+        return 0;
+    }
+
+    /**
+     * Called at the end of each commit.
+     */
+    void afterCommit() {
+    }
+
+    Journal journal() {
+        return journal;
+    }
+
+    //-------------------------------------
+
+    private void recover() {
+        if (journal != null || isClosed || recoveryFailure != null) return;
+        try {
+            journal = new Journal(dir, segmentSize);
+            isRecovering = true;
+            lastSeq = loadSnapshot(dir);
+            long n = journal.replay(lastSeq + 1, (seq, buf) -> {
+                applyEvent(decodeEvent(buf));
+                lastSeq = seq;
+            });
+            isRecovering = false;
+            onRecovered(n);
+        } catch (IOException e) {
+            failRecovery(new UncheckedIOException(e));
+        } catch (RuntimeException e) {
+            failRecovery(e);
+        } finally {
+            isRecovering = false;
+        }
+    }
+
+    private void failRecovery(RuntimeException e) {
+        recoveryFailure = e;
+        pendingDurable.clear();
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException ex) {
+                e.addSuppressed(ex);
+            }
+            journal = null;
+        }
+        throw e;
+    }
+
+    /**
+     * Commit and close journal. (Call from actor thread;
+     * eg. {@code ref.send(PersistentActorBase::close)})
+     */
+    public void close() {
+        isClosed = true;
+        if (journal == null) return;
+        commit();
+        try {
+            journal.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        journal = null;
+    }
+}
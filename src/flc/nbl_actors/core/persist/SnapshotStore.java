@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2026 agent
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package flc.nbl_actors.core.persist;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * State snapshot files.
+ * <p>Each snapshot is written to a temporary file, forced to disk and then
+ * atomically renamed to {@code snapshot-<seq>.snap}, where seq is the
+ * sequence number of the last journal record included in the snapshot.
+ * Only the {@link #setRetain(int) retained} number of newest snapshots are kept.
+ * </p>
+ * <pre>
+ * File layout (little endian):
+ *   long seq
+ *   int  length
+ *   int  crc (CRC32 of state bytes)
+ *   byte[length] state
+ * </pre>
+ * <p>Date: 18.10.2026
+ * </p>
+ *
+ * @author agent
+ */
+public class SnapshotStore {
+    private static final String PREFIX = "snapshot-", SUFFIX = ".snap";
+    private static final int HEADER = 16;
+    private final Path dir;
+    private int retain = 2;
+    private int initialSize = 4096;
+
+    /**
+     * @param dir snapshot directory (created if missing)
+     * @throws IOException if an I/O error occurs
+     */
+    public SnapshotStore(Path dir) throws IOException {
+        this.dir = Files.createDirectories(dir);
+    }
+
+    /**
+     * Set number of snapshots to keep (default 2).
+     *
+     * @param count snapshots kept (&gt;= 1)
+     */
+    public void setRetain(int count) {
+        retain = Math.max(1, count);
+    }
+
+    /**
+     * Snapshot sequence numbers, newest first.
+     *
+     * @return sequence numbers
+     * @throws IOException if an I/O error occurs
+     */
+    public List<Long> list() throws IOException {
+        List<Long> list = new ArrayList<>();
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, PREFIX + "*" + SUFFIX)) {
+            for (Path p : ds) {
+                String name = p.getFileName().toString();
+                list.add(Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())));
+            }
+        }
+        list.sort(Collections.reverseOrder());
+        return list;
+    }
+
+    private Path file(long seq) {
+        return dir.resolve(String.format("%s%020d%s", PREFIX, seq, SUFFIX));
+    }
+
+    /**
+     * Save snapshot. The writer is retried with a larger buffer on overflow.
+     *
+     * @param seq    last journal sequence number included in state
+     * @param writer writes state to buffer
+     * @return oldest retained snapshot sequence number
+     * @throws IOException if an I/O error occurs
+     */
+    public long save(long seq, Consumer<ByteBuffer> writer) throws IOException {
+        ByteBuffer b;
+        for (int size = initialSize; ; size *= 2) {
+            b = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+            b.position(HEADER);
+            try {
+                writer.accept(b);
+                break;
+            } catch (BufferOverflowException ignore) {
+                if (size > Integer.MAX_VALUE / 2)
+                    throw new IOException("Snapshot too large");
+            }
+        }
+        initialSize = b.capacity();
+        final int len = b.position() - HEADER;
+        CRC32 crc = new CRC32();
+        crc.update(b.array(), HEADER, len);
+        b.putLong(0, seq).putInt(8, len).putInt(12, (int) crc.getValue());
+        b.flip();
+        Path tmp = dir.resolve(PREFIX + "tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (b.hasRemaining())
+                ch.write(b);
+            ch.force(true);
+        }
+        Files.move(tmp, file(seq), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        List<Long> all = list();
+        for (int i = retain; i < all.size(); i++)
+            Files.deleteIfExists(file(all.get(i)));
+        return all.get(Math.min(retain, all.size()) - 1);
+    }
+
+    /**
+     * Load newest valid snapshot (corrupt snapshots are skipped).
+     *
+     * @param reader reads state from buffer
+     * @return sequence number of loaded snapshot, or 0 if none found
+     * @throws IOException if an I/O error occurs
+     */
+    public long loadLatest(Consumer<ByteBuffer> reader) throws IOException {
+        for (long seq : list()) {
+            ByteBuffer b = ByteBuffer.wrap(Files.readAllBytes(file(seq))).order(ByteOrder.LITTLE_ENDIAN);
+            if (b.capacity() < HEADER || b.getLong(0) != seq)
+                continue;
+            final int len = b.getInt(8);
+            if (len < 0 || len != b.capacity() - HEADER)
+                continue;
+            CRC32 crc = new CRC32();
+            crc.update(b.array(), HEADER, len);
+            if ((int) crc.getValue() != b.getInt(12))
+                continue;
+            b.position(HEADER);
+            reader.accept(b);
+            return seq;
+        }
+        return 0;
+    }
+}
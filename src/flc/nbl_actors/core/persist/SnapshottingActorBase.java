@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2026 agent
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package flc.nbl_actors.core.persist;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * Event-sourced actor base class with state snapshots.
+ * <p>As {@link PersistentActorBase}, but state is also saved to a {@link SnapshotStore}
+ * every {@link #setSnapshotInterval(long) snapshot interval} events (after commit),
+ * and journal segments covered by the snapshot are deleted.
+ * Recovery loads the latest snapshot, and replays only the journal tail after it.
+ * </p>
+ * <p>Date: 18.10.2026
+ * </p>
+ *
+ * @param <T> actor type
+ * @param <E> event type
+ * @author agent
+ */
+public abstract class SnapshottingActorBase<T extends SnapshottingActorBase<T, E>, E>
+        extends PersistentActorBase<T, E> {
+    private SnapshotStore snapshots;
+    private long snapshotSeq, snapshotInterval;
+
+    /**
+     * @param dir storage directory (journal and snapshots)
+     */
+    protected SnapshottingActorBase(Path dir) {
+        super(dir);
+    }
+
+    /**
+     * @param dir         storage directory (journal and snapshots)
+     * @param segmentSize journal segment size in bytes
+     */
+    protected SnapshottingActorBase(Path dir, int segmentSize) {
+        super(dir, segmentSize);
+    }
+
+    //------------------------------------- to implement:
+
+    /**
+     * Write state snapshot (relative put operations).
+     *
+     * @param out output buffer
+     */
+    protected abstract void saveState(ByteBuffer out);
+
+    /**
+     * Read state snapshot (relative get operations).
+     *
+     * @param in input buffer
+     */
+    protected abstract void loadState(ByteBuffer in);
+
+    //-------------------------------------
+
+    /**
+     * Take a state snapshot every {@code count} events (0 = never, default).
+     *
+     * @param count events between snapshots
+     */
+    public void setSnapshotInterval(long count) {
+        snapshotInterval = count;
+    }
+
+    /**
+     * Save a state snapshot now, and delete journal segments no longer needed.
+     * (Call from actor thread, after recovery)
+     */
+    protected void snapshot() {
+        final Journal journal = journal();
+        if (journal == null)
+            throw new IllegalStateException("Journal not open");
+        try {
+            long oldest = snapshots.save(lastSeq(), this::saveState);
+            snapshotSeq = lastSeq();
+            journal.deleteUpTo(oldest);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    long loadSnapshot(Path dir) throws IOException {
+        snapshots = new SnapshotStore(dir);
+        return snapshotSeq = snapshots.loadLatest(this::loadState);
+    }
+
+    @Override
+    void afterCommit() {
+        if (snapshotInterval > 0 && lastSeq() - snapshotSeq >= snapshotInterval)
+            snapshot();
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2026 agent
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package flc.nbl_actors.core.remote;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+/**
+ * Pool of equally sized direct buffers (big endian).
+ * <p>Date: 18.10.2026
+ * </p>
+ *
+ * @author agent
+ */
+class BufferPool {
+    private final ArrayDeque<ByteBuffer> free = new ArrayDeque<>();
+    private final int bufferSize, maxPooled;
+
+    BufferPool(int bufferSize, int maxPooled) {
+        this.bufferSize = bufferSize;
+        this.maxPooled = maxPooled;
+    }
+
+    int bufferSize() {
+        return bufferSize;
+    }
+
+    synchronized ByteBuffer take() {
+        ByteBuffer b = free.poll();
+        return b != null ? b : ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    synchronized void release(ByteBuffer b) {
+        if (free.size() < maxPooled) {
+            b.clear();
+            free.push(b);
+        }
+    }
+}
@@ -0,0 +1,355 @@
+/*
+ * Copyright (c) 2026 agent
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package flc.nbl_actors.core.remote;
+
+import flc.nbl_actors.core.IActorRef;
+import flc.nbl_actors.core.IGreenThr;
+import flc.nbl_actors.core.IGreenThrFactory;
+import flc.nbl_actors.core.ThreadContext;
+import flc.nbl_actors.core.codec.CodecRegistry;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Inter-process actor channel on one host; A ring buffer in a memory-mapped file.
+ * <p>Any number of processes (and threads) can send, via proxies from {@link #proxy};
+ * One process receives, by exporting actors ({@link #export}) and starting a
+ * receiver ({@link #startReceiver}) which drains the ring as a green thread.
+ * Messages are encoded with a {@link CodecRegistry}, as in {@link RemoteNode}.
+ * </p>
+ * <p>Producers claim space by CAS on the shared tail counter, write the record,
+ * then publish its header with a release store; The receiver reads headers with
+ * acquire loads, and clears consumed space before releasing it (advancing head).
+ * When the ring is full, senders wait for space (back pressure).
+ * A producer process dying between claim and publish blocks the channel.
+ * </p>
+ * <p>File layout: {@code [header 256 bytes][data (capacity)]},
+ * record: {@code [int length][int nameHash][short typeId][payload] (8-byte aligned)};
+ * Negative length marks padding before wrap-around. Native byte order.
+ * </p>
+ * <pre>
+ * Example:
+ * {@code
+ *     //receiving JVM:
+ *     IpcChannel in = IpcChannel.open(file, 1 << 20, registry);
+ *     in.export("account", accountRef);
+ *     in.startReceiver(factory);
+ *     //sending JVM:
+ *     IpcChannel out = IpcChannel.open(file, 1 << 20, registry);
+ *     out.proxy("account", Account.class).send(new Deposit(10));
+ * }
+ * </pre>
+ * <p>Date: 18.10.2026
+ * </p>
+ *
+ * @author agent
+ */
+public class IpcChannel implements Closeable {
+    private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+    private static final VarHandle LONG = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final int MAGIC = 0x4e424c52; //"NBLR"
+    private static final int CAPACITY = 8, TAIL = 64, HEAD = 128, DATA = 256, REC_HEADER = 8;
+    private static final int BATCH = 256, SPIN = 100, YIELD = 200;
+    private static final long MAX_PARK_NANOS = 200_000;
+
+    private final FileChannel file;
+    private final MappedByteBuffer buf;
+    private final CodecRegistry codec;
+    private final long capacity;
+    private final int mask, maxMessage;
+    private final ThreadLocal<Producer> producer;
+    private final Map<Integer, RemoteNode.Export> exports = new ConcurrentHashMap<>();
+    private final LongAdder sent = new LongAdder(), received = new LongAdder(), dropped = new LongAdder();
+    private volatile boolean closed;
+    private IGreenThr receiverThr;
+    private ByteBuffer reader;
+    private int idle;
+
+    private class Producer {
+        final ByteBuffer scratch = ByteBuffer.allocateDirect(maxMessage).order(ByteOrder.nativeOrder());
+        final ByteBuffer ring = buf.duplicate().order(ByteOrder.nativeOrder());
+    }
+
+    private IpcChannel(FileChannel file, MappedByteBuffer buf, int capacity, CodecRegistry codec) {
+        this.file = file;
+        this.buf = buf;
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.maxMessage = Math.min(capacity / 4, 1 << 20) - REC_HEADER;
+        this.codec = codec;
+        this.producer = ThreadLocal.withInitial(Producer::new);
+    }
+
+    /**
+     * Open (or create) channel file.
+     *
+     * @param path     file path
+     * @param capacity ring size in bytes (power of two, &gt;= 4096), if the file is created;
+     *                 An existing file keeps its capacity
+     * @param codec    message codec (same type ids in all processes)
+     * @return channel
+     * @throws IOException if the file can not be opened, or is not a channel file
+     */
+    public static IpcChannel open(Path path, int capacity, CodecRegistry codec) throws IOException {
+        if (capacity < 4096 || Integer.bitCount(capacity) != 1)
+            throw new IllegalArgumentException("capacity must be a power of two >= 4096");
+        Objects.requireNonNull(codec);
+        FileChannel ch = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            final FileLock lock = ch.lock(); //against concurrent creation
+            try {
+                if (ch.size() == 0) {
+                    MappedByteBuffer b = ch.map(FileChannel.MapMode.READ_WRITE, 0, DATA + (long) capacity);
+                    b.order(ByteOrder.nativeOrder());
+                    b.putLong(CAPACITY, capacity);
+                    b.putInt(0, MAGIC);
+                    b.force();
+                    return new IpcChannel(ch, b, capacity, codec);
+                }
+                MappedByteBuffer h = ch.map(FileChannel.MapMode.READ_ONLY, 0, DATA);
+                h.order(ByteOrder.nativeOrder());
+                if (h.getInt(0) != MAGIC)
+                    throw new IOException("Not a channel file: " + path);
+                final int cap = (int) h.getLong(CAPACITY);
+                MappedByteBuffer b = ch.map(FileChannel.MapMode.READ_WRITE, 0, DATA + (long) cap);
+                b.order(ByteOrder.nativeOrder());
+                return new IpcChannel(ch, b, cap, codec);
+            } finally {
+                lock.release();
+            }
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+    }
+
+    //------------------------------------- sending side:
+
+    /**
+     * Proxy to actor exported in the receiving process.
+     *
+     * @param name exported name
+     * @param type actor class
+     * @param <A>  actor type
+     * @return proxy; Only registered message types can be sent
+     */
+    public <A> IActorRef<A> proxy(String name, Class<A> type) {
+        final int nameHash = name.hashCode();
+        return new IActorRef<A>() {
+            @Override
+            public void send(Consumer<A> msg) {
+                write(nameHash, msg);
+            }
+
+            @Override
+            public Class<A> getActorClass() {
+                return type;
+            }
+        };
+    }
+
+    private void write(int nameHash, Object msg) {
+        final Producer p = producer.get();
+        final ByteBuffer scratch = p.scratch;
+        scratch.clear();
+        try {
+            if (!codec.encode(msg, scratch))
+                throw new IllegalArgumentException("Message type not registered: " + msg.getClass().getName());
+        } catch (BufferOverflowException e) {
+            throw new IllegalArgumentException("Message too large: " + msg.getClass().getName());
+        }
+        scratch.flip();
+        final int len = REC_HEADER + scratch.remaining();
+        final int size = (len + 7) & ~7;
+        long t;
+        int pad;
+        for (int tries = 0; ; ) {
+            if (closed)
+                throw new IllegalStateException("Closed");
+            t = (long) LONG.getVolatile(buf, TAIL);
+            final int off = (int) (t & mask);
+            pad = off + size > capacity ? (int) (capacity - off) : 0;
+            final long h = (long) LONG.getAcquire(buf, HEAD);
+            if (t + pad + size - h <= capacity) {
+                if (LONG.compareAndSet(buf, TAIL, t, t + pad + size))
+                    break;
+            } else {
+                backOff(++tries); //full
+            }
+        }
+        if (pad > 0) {
+            INT.setRelease(buf, DATA + (int) (t & mask), -pad);
+            t += pad;
+        }
+        final int off = DATA + (int) (t & mask);
+        final ByteBuffer ring = p.ring;
+        ring.putInt(off + 4, nameHash);
+        ring.position(off + REC_HEADER);
+        ring.put(scratch);
+        INT.setRelease(buf, off, len);
+        sent.increment();
+    }
+
+    private static void backOff(int tries) {
+        if (tries < SPIN)
+            Thread.onSpinWait();
+        else if (tries < YIELD)
+            Thread.yield();
+        else
+            LockSupport.parkNanos(Math.min(MAX_PARK_NANOS, 1000L << Math.min(tries - YIELD, 10)));
+    }
+
+    //------------------------------------- receiving side:
+
+    /**
+     * Export local actor under a name.
+     *
+     * @param name unique name (its hash code identifies the actor in the ring)
+     * @param ref  local actor
+     * @param <A>  actor type
+     * @throws IllegalArgumentException if name, or name hash code, is already exported
+     */
+    public <A> void export(String name, IActorRef<A> ref) {
+        RemoteNode.export(exports, name, ref);
+    }
+
+    /**
+     * Start receiving; The ring is drained by a new green thread from {@code factory}.
+     * It spins briefly when idle, then parks with increasing timeouts (up to 0.2 ms),
+     * which also delays other work on the same thread.
+     * The thread stays active until {@link #close()}.
+     * Only one receiver (in one process) per channel file.
+     *
+     * @param factory thread factory
+     */
+    public synchronized void startReceiver(IGreenThrFactory factory) {
+        if (receiverThr != null)
+            throw new IllegalStateException("Receiver already started");
+        reader = buf.duplicate().order(ByteOrder.nativeOrder());
+        receiverThr = factory.newThread();
+        receiverThr.execute(this::drain);
+    }
+
+    private void drain() {
+        if (closed)
+            return;
+        if (poll(BATCH) > 0)
+            idle = 0;
+        else
+            backOff(++idle);
+        receiverThr.execute(this::drain);
+    }
+
+    /**
+     * Deliver up to {@code max} messages.
+     *
+     * @param max max number of records
+     * @return number of records read
+     */
+    private int poll(int max) {
+        final ByteBuffer b = reader;
+        final long h0 = (long) LONG.getVolatile(buf, HEAD);
+        long h = h0;
+        int n = 0;
+        while (n < max) {
+            final int off = DATA + (int) (h & mask);
+            final int len = (int) INT.getAcquire(buf, off);
+            if (len == 0)
+                break;
+            if (len < 0) { //padding to end of ring
+                b.putInt(off, 0);
+                h += -len;
+                continue;
+            }
+            final int size = (len + 7) & ~7;
+            final RemoteNode.Export e = exports.get(b.getInt(off + 4));
+            if (e == null) {
+                dropped.increment();
+            } else {
+                b.limit(off + len).position(off + REC_HEADER);
+                try {
+                    final Consumer<Object> msg = codec.decodeMessage(b);
+                    received.increment(); //before delivery; visible once the message is handled
+                    e.ref.send(msg);
+                } catch (RuntimeException ex) { //bad record; skip it
+                    dropped.increment();
+                    ThreadContext.logTrace(ex, "/IpcChannel");
+                } finally {
+                    b.limit(b.capacity());
+                }
+            }
+            for (int i = off; i < off + size; i += 8)
+                b.putLong(i, 0L);
+            h += size;
+            ++n;
+        }
+        if (h != h0)
+            LONG.setRelease(buf, HEAD, h);
+        return n;
+    }
+
+    //------------------------------------- status:
+
+    /**
+     * @return number of messages sent from this process
+     */
+    public long getSentCount() {
+        return sent.sum();
+    }
+
+    /**
+     * @return number of messages received and delivered
+     */
+    public long getReceivedCount() {
+        return received.sum();
+    }
+
+    /**
+     * @return number of received messages without an exported target, or not decodable
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * @return ring size in bytes
+     */
+    public int getCapacity() {
+        return (int) capacity;
+    }
+
+    /**
+     * Stop receiver (if started), and close file.
+     * The mapping stays valid until garbage collected.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        file.close();
+    }
+}
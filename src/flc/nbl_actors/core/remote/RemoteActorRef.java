@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2026 agent
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package flc.nbl_actors.core.remote;
+
+import flc.nbl_actors.core.IActorRef;
+
+import java.util.function.Consumer;
+
+/**
+ * Proxy for an actor exported by another {@link RemoteNode}.
+ * <p>Only messages registered in the node's
+ * {@link flc.nbl_actors.core.codec.CodecRegistry} can be sent; Plain lambdas
+ * (and therefore the default {@code call} methods) are rejected.
+ * </p>
+ * <p>Date: 18.10.2026
+ * </p>
+ *
+ * @param <A> remote actor type
+ * @author agent
+ */
+public class RemoteActorRef<A> implements IActorRef<A> {
+    private final RemoteNode.Connection conn;
+    private final String name;
+    private final int nameHash;
+    private final Class<A> type;
+
+    RemoteActorRef(RemoteNode.Connection conn, String name, Class<A> type) {
+        this.conn = conn;
+        this.name = name;
+        this.nameHash = name.hashCode();
+        this.type = type;
+    }
+
+    /**
+     * Send message; Encoded directly into the connection's outbound buffer.
+     *
+     * @param msg Message (registered type)
+     * @throws IllegalArgumentException if message type is not registered, or too large
+     * @throws IllegalStateException    if connection is closed
+     */
+    @Override
+    public void send(Consumer<A> msg) {
+        conn.enqueue(nameHash, msg);
+    }
+
+    @Override
+    public Class<A> getActorClass() {
+        return type;
+    }
+
+    /**
+     * @return exported name of remote actor
+     */
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,483 @@
+/*
+ * Copyright (c) 2026 agent
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package flc.nbl_actors.core.remote;
+
+import flc.nbl_actors.core.GreenThr_single;
+import flc.nbl_actors.core.IActorRef;
+import flc.nbl_actors.core.IGreenThr;
+import flc.nbl_actors.core.ThreadContext;
+import flc.nbl_actors.core.codec.CodecRegistry;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Remote actor transport over non-blocking TCP.
+ * <p>A node exports local actors under a name, and gives proxies
+ * ({@link RemoteActorRef}) to actors exported by other nodes (in other JVMs, or the same).
+ * Messages are encoded with a {@link CodecRegistry} (both sides must register the same types).
+ * </p>
+ * <p>Wire format, per frame: {@code [int length][int nameHash][short typeId][payload]}.
+ * Senders encode directly into pooled direct buffers, which are written with one gathering
+ * write per connection and selector round (write batching).
+ * Received frames are decoded in place from the read buffer.
+ * Message order is preserved per proxy-connection.
+ * </p>
+ * <p>The selector loop runs as a green thread; Each round does a bounded
+ * {@code select}, then re-executes itself, so other messages on the same thread still run.
+ * The loop keeps its thread active until {@link #close()}.
+ * </p>
+ * <pre>
+ * Example:
+ * {@code
+ *     //JVM 1:
+ *     RemoteNode server = new RemoteNode(registry);
+ *     server.bind(new InetSocketAddress(7000));
+ *     server.export("account", accountRef);
+ *     //JVM 2:
+ *     RemoteNode client = new RemoteNode(registry);
+ *     IActorRef<Account> account = client.connect(
+ *             new InetSocketAddress("host1", 7000), "account", Account.class);
+ *     account.send(new Deposit(10));
+ * }
+ * </pre>
+ * <p>Date: 18.10.2026
+ * </p>
+ *
+ * @author agent
+ */
+public class RemoteNode implements Closeable {
+    public static final int DEFAULT_BUFFER_SIZE = 64 << 10;
+    private static final int HEADER = 8;
+    private static final long SELECT_MS = 20;
+
+    static class Export {
+        final String name;
+        final IActorRef<Object> ref;
+
+        Export(String name, IActorRef<Object> ref) {
+            this.name = name;
+            this.ref = ref;
+        }
+    }
+
+    private final IGreenThr loopThr;
+    private final GreenThr_single ownThr;
+    private final CodecRegistry codec;
+    private final BufferPool pool;
+    private final Selector selector;
+    private final Map<Integer, Export> exports = new ConcurrentHashMap<>();
+    private final Map<InetSocketAddress, Connection> outgoing = new HashMap<>();
+    private final Queue<Runnable> loopTasks = new ConcurrentLinkedQueue<>();
+    private final Queue<Connection> flushQueue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean wakeupPending = new AtomicBoolean();
+    private final LongAdder sent = new LongAdder(), received = new LongAdder(), dropped = new LongAdder();
+    private final Set<Connection> connections = new HashSet<>(); //loop thread only
+    private ByteBuffer[] gather = new ByteBuffer[16]; //loop thread only
+    private volatile boolean closed;
+
+    /**
+     * Node with selector loop on a dedicated daemon thread.
+     *
+     * @param codec message codec
+     * @throws IOException if selector can not be opened
+     */
+    public RemoteNode(CodecRegistry codec) throws IOException {
+        this(null, codec, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param loopThr    thread running the selector loop (null: dedicated daemon thread)
+     * @param codec      message codec
+     * @param bufferSize size of pooled buffers; Upper limit of encoded message size
+     *                   (use the same size on all nodes)
+     * @throws IOException if selector can not be opened
+     */
+    public RemoteNode(IGreenThr loopThr, CodecRegistry codec, int bufferSize) throws IOException {
+        if (bufferSize < 64)
+            throw new IllegalArgumentException("bufferSize < 64");
+        this.codec = Objects.requireNonNull(codec);
+        this.pool = new BufferPool(bufferSize, 256);
+        this.selector = Selector.open();
+        this.ownThr = loopThr == null ? new GreenThr_single(true) : null;
+        this.loopThr = loopThr == null ? ownThr : loopThr;
+        this.loopThr.execute(this::loop);
+    }
+
+    /**
+     * Export local actor under a name.
+     *
+     * @param name unique name (its hash code identifies the actor on the wire)
+     * @param ref  local actor
+     * @param <A>  actor type
+     * @throws IllegalArgumentException if name, or name hash code, is already exported
+     */
+    public <A> void export(String name, IActorRef<A> ref) {
+        export(exports, name, ref);
+    }
+
+    @SuppressWarnings("unchecked")
+    static <A> void export(Map<Integer, Export> exports, String name, IActorRef<A> ref) {
+        Export e = new Export(name, (IActorRef<Object>) Objects.requireNonNull(ref));
+        Export old = exports.putIfAbsent(name.hashCode(), e);
+        if (old != null)
+            throw new IllegalArgumentException(old.name.equals(name)
+                    ? "Already exported: " + name
+                    : "Name hash collision: " + name + ", " + old.name);
+    }
+
+    /**
+     * Remove exported actor; Later messages to it are dropped.
+     *
+     * @param name exported name
+     */
+    public void unexport(String name) {
+        Export e = exports.get(name.hashCode());
+        if (e != null && e.name.equals(name))
+            exports.remove(name.hashCode(), e);
+    }
+
+    /**
+     * Listen for connections from other nodes.
+     *
+     * @param address local address (port 0: any free port)
+     * @return bound address
+     * @throws IOException if bind fails
+     */
+    public InetSocketAddress bind(InetSocketAddress address) throws IOException {
+        final ServerSocketChannel server = ServerSocketChannel.open();
+        server.bind(address);
+        server.configureBlocking(false);
+        onLoop(() -> {
+            try {
+                server.register(selector, SelectionKey.OP_ACCEPT);
+            } catch (IOException e) {
+                ThreadContext.logTrace(e, "/RemoteNode.bind");
+            }
+        });
+        return (InetSocketAddress) server.getLocalAddress();
+    }
+
+    /**
+     * Proxy to actor exported by a remote node.
+     * One connection per address is shared by all its proxies.
+     *
+     * @param address remote node address
+     * @param name    exported name
+     * @param type    actor class
+     * @param <A>     actor type
+     * @return proxy
+     * @throws IOException if connection fails
+     */
+    public <A> RemoteActorRef<A> connect(InetSocketAddress address, String name, Class<A> type)
+            throws IOException {
+        return new RemoteActorRef<>(connection(address), name, type);
+    }
+
+    private synchronized Connection connection(InetSocketAddress address) throws IOException {
+        if (closed)
+            throw new IllegalStateException("Closed");
+        Connection c = outgoing.get(address);
+        if (c == null || c.closed) {
+            final SocketChannel ch = SocketChannel.open(address);
+            c = new Connection(ch);
+            outgoing.put(address, c);
+            final Connection conn = c;
+            onLoop(() -> conn.register(SelectionKey.OP_READ));
+        }
+        return c;
+    }
+
+    /**
+     * @return number of messages sent
+     */
+    public long getSentCount() {
+        return sent.sum();
+    }
+
+    /**
+     * @return number of messages received and delivered
+     */
+    public long getReceivedCount() {
+        return received.sum();
+    }
+
+    /**
+     * @return number of received messages without an exported target
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Stop selector loop and close all connections;
+     * Outbound messages not yet written are lost.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        selector.wakeup();
+    }
+
+    //------------------------------------- selector loop:
+
+    private void onLoop(Runnable task) {
+        loopTasks.add(task);
+        wakeup();
+    }
+
+    private void wakeup() {
+        if (!wakeupPending.getAndSet(true))
+            selector.wakeup();
+    }
+
+    private void loop() {
+        if (closed) {
+            shutdownLoop();
+            return;
+        }
+        try {
+            selector.select(SELECT_MS);
+            wakeupPending.set(false);
+            Runnable task;
+            while ((task = loopTasks.poll()) != null)
+                task.run();
+            final Set<SelectionKey> keys = selector.selectedKeys();
+            for (SelectionKey key : keys)
+                handle(key);
+            keys.clear();
+            Connection c;
+            while ((c = flushQueue.poll()) != null) {
+                c.flushScheduled.set(false);
+                c.flush();
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            ThreadContext.logTrace(e, "/RemoteNode");
+        }
+        loopThr.execute(this::loop);
+    }
+
+    private void handle(SelectionKey key) {
+        if (!key.isValid())
+            return;
+        if (key.isAcceptable()) {
+            try {
+                SocketChannel ch = ((ServerSocketChannel) key.channel()).accept();
+                if (ch != null)
+                    new Connection(ch).register(SelectionKey.OP_READ);
+            } catch (IOException e) {
+                ThreadContext.logTrace(e, "/RemoteNode.accept");
+            }
+            return;
+        }
+        final Connection c = (Connection) key.attachment();
+        try {
+            if (key.isReadable())
+                c.read();
+            if (key.isValid() && key.isWritable())
+                c.flush();
+        } catch (IOException | RuntimeException e) {
+            ThreadContext.logTrace(e, "/RemoteNode.connection");
+            c.close();
+        }
+    }
+
+    private void deliver(int nameHash, ByteBuffer in) {
+        final Export e = exports.get(nameHash);
+        if (e == null) {
+            dropped.increment();
+            return;
+        }
+        final Consumer<Object> msg = codec.decodeMessage(in);
+        received.increment(); //before send, so the count is never behind the receiver
+        e.ref.send(msg);
+    }
+
+    private void shutdownLoop() {
+        for (SelectionKey key : selector.keys()) {
+            try {
+                if (key.attachment() instanceof Connection)
+                    ((Connection) key.attachment()).close();
+                else
+                    key.channel().close();
+            } catch (IOException ignore) {
+            }
+        }
+        for (Connection c : new ArrayList<>(connections))
+            c.close();
+        try {
+            selector.close();
+        } catch (IOException ignore) {
+        }
+        if (ownThr != null)
+            ownThr.shutdown();
+    }
+
+    /**
+     * Connection state; Outbound buffers are shared with sending threads,
+     * everything else belongs to the selector loop.
+     */
+    final class Connection {
+        final SocketChannel channel;
+        final AtomicBoolean flushScheduled = new AtomicBoolean();
+        final ArrayDeque<ByteBuffer> ready = new ArrayDeque<>(); //guarded by this; filled, in write mode
+        final ArrayDeque<ByteBuffer> writing = new ArrayDeque<>(); //loop thread; flipped
+        ByteBuffer current; //guarded by this
+        ByteBuffer readBuf;
+        SelectionKey key;
+        volatile boolean closed;
+
+        Connection(SocketChannel channel) throws IOException {
+            this.channel = channel;
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        }
+
+        void register(int ops) {
+            try {
+                key = channel.register(selector, ops, this);
+                readBuf = pool.take();
+                connections.add(this);
+                flush();
+            } catch (IOException e) {
+                ThreadContext.logTrace(e, "/RemoteNode.register");
+                close();
+            }
+        }
+
+        void enqueue(int nameHash, Object msg) {
+            if (!codec.isRegistered(msg.getClass()))
+                throw new IllegalArgumentException("Message type not registered: " + msg.getClass().getName());
+            synchronized (this) {
+                if (closed)
+                    throw new IllegalStateException("Connection closed");
+                if (current == null)
+                    current = pool.take();
+                if (!encode(nameHash, msg)) {
+                    if (current.position() == 0)
+                        throw new IllegalArgumentException("Message too large: " + msg.getClass().getName());
+                    ready.add(current);
+                    current = pool.take();
+                    if (!encode(nameHash, msg))
+                        throw new IllegalArgumentException("Message too large: " + msg.getClass().getName());
+                }
+            }
+            sent.increment();
+            if (flushScheduled.compareAndSet(false, true)) {
+                flushQueue.add(this);
+                wakeup();
+            }
+        }
+
+        private boolean encode(int nameHash, Object msg) {
+            final ByteBuffer b = current;
+            final int start = b.position();
+            if (b.remaining() > HEADER) {
+                try {
+                    b.position(start + HEADER);
+                    codec.encode(msg, b);
+                    b.putInt(start, b.position() - start - 4);
+                    b.putInt(start + 4, nameHash);
+                    return true;
+                } catch (BufferOverflowException ignore) {
+                    //continue in next buffer
+                }
+            }
+            b.position(start);
+            return false;
+        }
+
+        void flush() throws IOException {
+            if (key == null || closed)
+                return;
+            synchronized (this) {
+                if (current != null && current.position() > 0) {
+                    ready.add(current);
+                    current = null;
+                }
+                ByteBuffer b;
+                while ((b = ready.poll()) != null)
+                    writing.add(b.flip());
+            }
+            if (writing.isEmpty())
+                return;
+            if (gather.length < writing.size())
+                gather = new ByteBuffer[Integer.highestOneBit(writing.size()) << 1];
+            final ByteBuffer[] arr = writing.toArray(gather);
+            channel.write(arr, 0, writing.size());
+            Arrays.fill(arr, null);
+            while (!writing.isEmpty() && !writing.peek().hasRemaining())
+                pool.release(writing.poll());
+            final int ops = writing.isEmpty()
+                    ? SelectionKey.OP_READ
+                    : SelectionKey.OP_READ | SelectionKey.OP_WRITE;
+            if (key.interestOps() != ops)
+                key.interestOps(ops);
+        }
+
+        void read() throws IOException {
+            if (channel.read(readBuf) < 0) {
+                close();
+                return;
+            }
+            final ByteBuffer b = readBuf;
+            b.flip();
+            while (b.remaining() >= HEADER) {
+                final int pos = b.position();
+                final int len = b.getInt(pos);
+                if (len < 4 || len > b.capacity() - 4)
+                    throw new IOException("Bad frame length: " + len);
+                final int end = pos + 4 + len;
+                if (end > b.limit())
+                    break;
+                final int limit = b.limit();
+                b.position(pos + HEADER).limit(end);
+                deliver(b.getInt(pos + 4), b);
+                b.limit(limit).position(end);
+            }
+            b.compact();
+        }
+
+        void close() {
+            synchronized (this) {
+                if (closed) return;
+                closed = true;
+                if (current != null)
+                    pool.release(current);
+                current = null;
+                ByteBuffer b;
+                while ((b = ready.poll()) != null)
+                    pool.release(b);
+            }
+            ByteBuffer b;
+            while ((b = writing.poll()) != null)
+                pool.release(b);
+            if (readBuf != null)
+                pool.release(readBuf);
+            readBuf = null;
+            connections.remove(this);
+            if (key != null)
+                key.cancel();
+            try {
+                channel.close();
+            } catch (IOException ignore) {
+            }
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2026 agent
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package flc.nbl_actors.core.trace;
+
+import flc.nbl_actors.core.IGreenThr;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Export message events to the Chrome trace-event JSON format
+ * (viewable in chrome://tracing or Perfetto).
+ * <p>Each received message becomes a slice from received to done,
+ * named by target actor class (or log info); Its track is the target green thread (tid),
+ * grouped by the real thread that ran it (pid). Args hold message Id, parent Id, queue time
+ * and send-site. A flow arrow goes from the send, inside the parent's slice, to the
+ * start of the child's slice; Its length is the queueing delay.
+ * Messages still running at export become instant events.
+ * </p>
+ * <pre>
+ * Example:
+ * {@code
+ *     ChromeTraceExporter.write(buffer.toArray(), Paths.get("trace.json"));
+ * }
+ * </pre>
+ * <p>Date: 18.10.2026
+ * </p>
+ *
+ * @author agent
+ */
+public final class ChromeTraceExporter {
+
+    private ChromeTraceExporter() {
+    }
+
+    /**
+     * Write events to file.
+     *
+     * @param events message events (eg. from {@link MessageEventBuffer#toArray()})
+     * @param file   output file
+     * @throws IOException on write error
+     */
+    public static void write(IMsgEvent[] events, Path file) throws IOException {
+        try (Writer w = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            write(events, w);
+        }
+    }
+
+    /**
+     * Write events as JSON.
+     *
+     * @param events message events
+     * @param out    output
+     * @throws IOException on write error
+     */
+    public static void write(IMsgEvent[] events, Appendable out) throws IOException {
+        final Map<MsgId, MsgEventReceived> received = new LinkedHashMap<>();
+        for (IMsgEvent e : events) {
+            if (e instanceof MsgEventReceived)
+                received.put(e.id(), (MsgEventReceived) e);
+            else if (e instanceof MsgEventError)
+                received.put(e.id(), ((MsgEventError) e).received);
+        }
+        long t0 = Long.MAX_VALUE;
+        final Map<IGreenThr, Integer> greenNo = new IdentityHashMap<>();
+        final TreeMap<Integer, TreeSet<Integer>> tracks = new TreeMap<>(); //real thread -> green threads
+        for (MsgEventReceived r : received.values()) {
+            t0 = Math.min(t0, Math.min(r.sent.sentNanos, r.receivedNanos));
+            tracks.computeIfAbsent(r.toThrNo, k -> new TreeSet<>()).add(green(greenNo, r));
+        }
+        out.append("{\"traceEvents\":[");
+        String sep = "\n";
+        for (Map.Entry<Integer, TreeSet<Integer>> e : tracks.entrySet()) {
+            final String pid = Integer.toString(e.getKey());
+            out.append(sep).append("{\"name\":\"process_name\",\"ph\":\"M\",\"pid\":").append(pid)
+                    .append(",\"args\":{\"name\":\"thread ").append(pid).append("\"}}");
+            sep = ",\n";
+            for (int g : e.getValue())
+                out.append(sep).append("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":").append(pid)
+                        .append(",\"tid\":").append(Integer.toString(g))
+                        .append(",\"args\":{\"name\":\"green ").append(Integer.toString(g)).append("\"}}");
+        }
+        for (MsgEventReceived r : received.values()) {
+            final MsgEventSent s = r.sent;
+            final long done = r.doneNanos;
+            out.append(sep).append("{\"name\":");
+            string(out, name(s));
+            out.append(",\"cat\":\"msg\",\"ph\":").append(done == 0 ? "\"i\",\"s\":\"t\"" : "\"X\"")
+                    .append(",\"pid\":").append(Integer.toString(r.toThrNo))
+                    .append(",\"tid\":").append(Integer.toString(green(greenNo, r)))
+                    .append(",\"ts\":").append(micros(r.receivedNanos - t0));
+            if (done != 0)
+                out.append(",\"dur\":").append(micros(done - r.receivedNanos));
+            out.append(",\"args\":{\"id\":\"").append(s.id.toString()).append('"');
+            if (s.idParent != null)
+                out.append(",\"parent\":\"").append(s.idParent.toString()).append('"');
+            out.append(",\"queue_us\":").append(micros(r.queueNanos()));
+            if (s.source != null) {
+                out.append(",\"site\":");
+                string(out, s.source.toString());
+            }
+            out.append("}}");
+            //flow from send (in parent's slice) to receive
+            final MsgEventReceived parent = s.idParent == null ? null : received.get(s.idParent);
+            if (parent != null) {
+                flow(out, "s", s.id, parent.toThrNo, green(greenNo, parent), s.sentNanos - t0);
+                flow(out, "f", s.id, r.toThrNo, green(greenNo, r), r.receivedNanos - t0);
+            }
+        }
+        out.append("\n],\"displayTimeUnit\":\"ns\"}\n");
+    }
+
+    /**
+     * Green thread number (1..), in order of first use; 0 if unknown.
+     */
+    private static int green(Map<IGreenThr, Integer> greenNo, MsgEventReceived r) {
+        final IGreenThr thr = r.sent.targetThread;
+        return thr == null ? 0 : greenNo.computeIfAbsent(thr, t -> greenNo.size() + 1);
+    }
+
+    private static String name(MsgEventSent s) {
+        if (s.targetActor != null)
+            return s.targetActor.getActorClass().getSimpleName();
+        final String info = s.logInfo != null ? s.logInfo.get() : null;
+        return info != null ? info : "task";
+    }
+
+    private static void flow(Appendable out, String phase, MsgId id, int pid, int tid, long nanos)
+            throws IOException {
+        out.append(",\n{\"name\":\"send\",\"cat\":\"flow\",\"ph\":\"").append(phase)
+                .append(phase.equals("f") ? "\",\"bp\":\"e" : "")
+                .append("\",\"id\":\"").append(id.toString())
+                .append("\",\"pid\":").append(Integer.toString(pid))
+                .append(",\"tid\":").append(Integer.toString(tid))
+                .append(",\"ts\":").append(micros(nanos)).append('}');
+    }
+
+    private static String micros(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e3);
+    }
+
+    private static void string(Appendable out, String s) throws IOException {
+        out.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            final char c = s.charAt(i);
+            if (c == '"' || c == '\\')
+                out.append('\\').append(c);
+            else if (c < 0x20)
+                out.append(String.format("\\u%04x", (int) c));
+            else
+                out.append(c);
+        }
+        out.append('"');
+    }
+}
@@ -0,0 +1,288 @@
+/*
+ * Copyright (c) 2026 agent
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package flc.nbl_actors.core.trace;
+
+import flc.nbl_actors.core.IActorRef;
+import flc.nbl_actors.core.ThreadContext;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Message event logger storing events as fixed-size primitive records in a ring
+ * (struct-of-arrays): packed Ids ({@link MsgId#toLong()}), event kind, thread number,
+ * and symbol numbers for send-site and target actor class. Only log info and
+ * exceptions are kept as references (usually null).
+ * Event objects ({@link Event}) are created when inspected.
+ * <p>Retains about 40 bytes per event, instead of the event objects from
+ * {@link MessageRelay} (with their MsgId, thread and actor references).
+ * Multiple calls to {@link #forkListener()} returns the same (synchronized) instance.
+ * </p>
+ * <p>Date: 18.10.2026
+ * </p>
+ *
+ * @author agent
+ */
+public class CompactEventLog extends MsgEventSinkBase<CompactEventLog>
+        implements Consumer<IMsgEvent> {
+
+    /**
+     * Event kinds.
+     */
+    public static final byte SENT = 0, RECEIVED = 1, ERROR = 2;
+    private static final int NONE = -1;
+
+    private final Object lock = new Object();
+    private final int mask;
+    private final long[] ids, parentIds; //0 = no parent
+    private final byte[] kinds;
+    private final int[] thrNos, sites, actorClasses;
+    private final Object[] extras; //log info (Supplier), or exception
+    private final Symbols<StackTraceElement> siteSymbols = new Symbols<>();
+    private final Symbols<Class<?>> classSymbols = new Symbols<>();
+    private long count; //events added
+
+    private static final class Symbols<T> {
+        final Map<T, Integer> numbers = new HashMap<>();
+        final List<T> values = new ArrayList<>();
+
+        int of(T value) {
+            if (value == null)
+                return NONE;
+            Integer no = numbers.get(value);
+            if (no == null) {
+                no = values.size();
+                values.add(value);
+                numbers.put(value, no);
+            }
+            return no;
+        }
+
+        T get(int no) {
+            return no == NONE ? null : values.get(no);
+        }
+    }
+
+    /**
+     * @param capacity Max #events stored (rounded up to a power of 2)
+     */
+    public CompactEventLog(int capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("capacity < 1");
+        final int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        mask = size - 1;
+        ids = new long[size];
+        parentIds = new long[size];
+        kinds = new byte[size];
+        thrNos = new int[size];
+        sites = new int[size];
+        actorClasses = new int[size];
+        extras = new Object[size];
+    }
+
+    /**
+     * Object view of a stored event.
+     * Formatted like the corresponding {@link MsgEventSent}, {@link MsgEventReceived}
+     * or {@link MsgEventError}.
+     */
+    public static final class Event implements IMsgEvent {
+        public final byte kind;
+        public final long id, parentId;
+        /**
+         * receiving thread number (kind RECEIVED or ERROR)
+         */
+        public final int thrNo;
+        public final StackTraceElement source;
+        public final Class<?> actorClass;
+        public final Supplier<String> logInfo;
+        public final Exception exception;
+
+        Event(byte kind, long id, long parentId, int thrNo, StackTraceElement source,
+              Class<?> actorClass, Supplier<String> logInfo, Exception exception) {
+            this.kind = kind;
+            this.id = id;
+            this.parentId = parentId;
+            this.thrNo = thrNo;
+            this.source = source;
+            this.actorClass = actorClass;
+            this.logInfo = logInfo;
+            this.exception = exception;
+        }
+
+        @Override
+        public MsgId id() {
+            return MsgId.of(id);
+        }
+
+        @Override
+        public MsgId parentId() {
+            return parentId == 0 ? null : MsgId.of(parentId);
+        }
+
+        private String sentStr() {
+            return "[" + id() + "]" + parentId() + (source == null ? " " : " at " + source)
+                    + (actorClass == null ? "" : ":" + actorClass.getSimpleName())
+                    + (logInfo == null ? "" : " {" + logInfo.get() + "}");
+        }
+
+        private String errorStr() {
+            return kind == ERROR ? ThreadContext.shortTrace(exception) : "";
+        }
+
+        @Override
+        public String info() {
+            if (kind == SENT || parentId == 0)
+                return toString();
+            return " run[" + id() + "] thread:" + thrNo + errorStr();
+        }
+
+        @Override
+        public String toString() {
+            if (kind == SENT)
+                return "sent" + sentStr();
+            return "sent!" + sentStr() + " thread:" + thrNo + errorStr();
+        }
+    }
+
+    /**
+     * Store message event (synchronized).
+     *
+     * @param event message event
+     */
+    @Override
+    public void accept(IMsgEvent event) {
+        final MsgEventSent sent;
+        byte kind = SENT;
+        int thrNo = 0;
+        Object extra;
+        if (event instanceof MsgEventSent) {
+            sent = (MsgEventSent) event;
+            extra = sent.logInfo;
+        } else if (event instanceof MsgEventReceived) {
+            final MsgEventReceived rec = (MsgEventReceived) event;
+            sent = rec.sent;
+            kind = RECEIVED;
+            thrNo = rec.toThrNo;
+            extra = sent.logInfo;
+        } else if (event instanceof MsgEventError) {
+            final MsgEventError err = (MsgEventError) event;
+            sent = err.received.sent;
+            kind = ERROR;
+            thrNo = err.received.toThrNo;
+            extra = err.exception;
+        } else
+            return;
+        final IActorRef<?> actor = sent.targetActor;
+        synchronized (lock) {
+            final int i = (int) count++ & mask;
+            ids[i] = sent.id.toLong();
+            parentIds[i] = sent.idParent == null ? 0 : sent.idParent.toLong();
+            kinds[i] = kind;
+            thrNos[i] = thrNo;
+            sites[i] = siteSymbols.of(sent.source);
+            actorClasses[i] = classSymbols.of(actor == null ? null : actor.getActorClass());
+            extras[i] = extra;
+        }
+    }
+
+    @Override
+    public Consumer<IMsgEvent> forkListener() {
+        return this;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Event view(int i) {
+        final Object extra = extras[i];
+        final byte kind = kinds[i];
+        //error record holds the exception instead of log info
+        Supplier<String> info = kind == ERROR ? null : (Supplier<String>) extra;
+        return new Event(kind, ids[i], parentIds[i], thrNos[i], siteSymbols.get(sites[i]),
+                classSymbols.get(actorClasses[i]), info,
+                kind == ERROR ? (Exception) extra : null);
+    }
+
+    private int stored() {
+        return (int) Math.min(count, mask + 1);
+    }
+
+    /**
+     * @return number of stored events
+     */
+    public int size() {
+        synchronized (lock) {
+            return stored();
+        }
+    }
+
+    /**
+     * Returns views of all stored events, in arrival order.
+     * (synchronized)
+     *
+     * @return event array
+     */
+    public Event[] toArray() {
+        synchronized (lock) {
+            final int n = stored();
+            final Event[] arr = new Event[n];
+            for (int k = 0; k < n; k++)
+                arr[k] = view((int) (count - n + k) & mask);
+            return arr;
+        }
+    }
+
+    /**
+     * Perform given action on views of stored events, in arrival order.
+     *
+     * @param action Action performed for each element
+     */
+    public void forEach(Consumer<? super IMsgEvent> action) {
+        for (Event e : toArray())
+            action.accept(e);
+    }
+
+    /**
+     * View of the last element added.
+     * (synchronized)
+     *
+     * @return last event, or null if empty
+     */
+    public Event peekLast() {
+        synchronized (lock) {
+            return count == 0 ? null : view((int) (count - 1) & mask);
+        }
+    }
+
+    /**
+     * Get message trace, starting from given message Id; Scans packed Ids only,
+     * and creates views of the events in the trace.
+     * (synchronized)
+     *
+     * @param msgId    message event Id to trace from.
+     * @param consumer event consumer
+     */
+    @Override
+    public void getMessageTrace(MsgId msgId, Consumer<? super IMsgEvent> consumer) {
+        if (msgId == null) return;
+        final List<Event> trace = new ArrayList<>();
+        synchronized (lock) {
+            long id = msgId.toLong();
+            for (long k = count - 1; k >= count - stored() && id != 0; k--) {
+                final int i = (int) k & mask;
+                if (ids[i] != id)
+                    continue;
+                trace.add(view(i));
+                id = parentIds[i];
+            }
+        }
+        trace.forEach(consumer);
+    }
+}
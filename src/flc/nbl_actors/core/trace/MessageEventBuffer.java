@@ -7,30 +7,27 @@
  */
 package flc.nbl_actors.core.trace;
 
-
-import flc.nbl_actors.core.IGreenThrFactory;
-
-import java.io.*;
 import java.util.*;
 import java.util.function.Consumer;
 
 /**
  * Default message event logger, where events are added to a single synchronized ring-buffer.
  * Multiple calls to {@link #forkListener()} returns the same logger instance.
+ * Events are also indexed by message Id, so {@link #getMessageTrace} is proportional
+ * to trace length, not buffer size.
  * <p>Date 16.01.2015.
  * </p>
  *
  * @author Tor C Bekkvik
  */
-public class MessageEventBuffer
-        implements IMsgListenerFactory, Consumer<IMsgEvent>, IMsgEventTracer {
+public class MessageEventBuffer extends MsgEventSinkBase<MessageEventBuffer>
+        implements Consumer<IMsgEvent> {
 
     private final Object lock = new Object();
     private final Deque<IMsgEvent> buffer = new ArrayDeque<>();
+    private final MsgEventIndex index = new MsgEventIndex(0);
     private volatile int maxBufSize;
     private volatile Consumer<? super IMsgEvent> eventAction;
-    private volatile MessageRelay relay;
-    private volatile PrintStream errorStream = System.err;
 
     /**
      * @param maxSize Max #events stored in ring-buffer
@@ -39,34 +36,6 @@ public class MessageEventBuffer
         maxBufSize = maxSize;
     }
 
-    /**
-     * Listen to messages from thread-factory
-     * <p>({@code Data flow: IGreenThrFactory ==> MessageRelay ==> this})
-     * </p>
-     *
-     * @param threads     thread-factory
-     * @param isReduceLog true = reduce log (minimize internal per message stack-traces)
-     * @return this
-     */
-    public MessageEventBuffer listenTo(IGreenThrFactory threads, boolean isReduceLog) {
-        threads.setMessageRelay(relay = new MessageRelay(this));
-        relay.setReduceLog(isReduceLog);
-        return this;
-    }
-
-    /**
-     * Listen to messages from thread-factory.
-     * Equivalent to {@code listenTo(threads, false)}
-     * <p>({@code Data flow: IGreenThrFactory ==> MessageRelay ==> this})
-     * </p>
-     *
-     * @param threads thread-factory
-     * @return this
-     */
-    public MessageEventBuffer listenTo(IGreenThrFactory threads) {
-        return listenTo(threads, false);
-    }
-
     /**
      * Set event action, to be performed when {@link #accept(IMsgEvent)} is called.
      *
@@ -87,29 +56,6 @@ public class MessageEventBuffer
         maxBufSize = maxSize;
     }
 
-    /**
-     * Reduce logging (may help performance).
-     *
-     * @param isReduce true to reduce
-     * @see MessageRelay#setReduceLog(boolean)
-     */
-    public void setReduceLog(boolean isReduce) {
-        if (relay != null)
-            relay.setReduceLog(isReduce);
-    }
-
-    /**
-     * Disable or enable logging
-     *
-     * @param isDisabled true = disable, false = normal logging
-     * @see MessageRelay#setDisableLog(boolean)
-     */
-    public void setDisableLog(boolean isDisabled) {
-        if (relay != null)
-            relay.setDisableLog(isDisabled);
-    }
-
-
     /**
      * Accept message event (synchronized).
      *
@@ -120,12 +66,16 @@ public class MessageEventBuffer
     public void accept(IMsgEvent event) {
         synchronized (lock) {
             buffer.add(event);
+            if (event.id() != null)
+                index.put(event);
             if (eventAction != null) {
                 eventAction.accept(event);
             }
             if (maxBufSize > 0)
                 while (buffer.size() > maxBufSize) {
-                    buffer.poll();
+                    final IMsgEvent evicted = buffer.poll();
+                    if (evicted.id() != null)
+                        index.remove(evicted);
                 }
         }
     }
@@ -183,41 +133,14 @@ public class MessageEventBuffer
     public void getMessageTrace(MsgId msgId, Consumer<? super IMsgEvent> consumer) {
         if (msgId == null) return;
         synchronized (lock) {
-            Iterator<IMsgEvent> it = buffer.descendingIterator();
-            while (it.hasNext()) {
-                IMsgEvent elem = it.next();
-                if (!elem.id().equals(msgId))
-                    continue;
+            //bound by buffer size, in case of Id reuse (cycle)
+            for (int n = buffer.size(); n > 0 && msgId != null; n--) {
+                final IMsgEvent elem = index.get(msgId);
+                if (elem == null)
+                    break;
                 consumer.accept(elem);
                 msgId = elem.parentId();
             }
         }
     }
-
-    /**
-     * Set output for {@link IMsgEventTracer#onError(MsgId, RuntimeException)}
-     * (default is System.err)
-     *
-     * @param aStream output
-     */
-    public void setErrorStream(PrintStream aStream) {
-        errorStream = Objects.requireNonNull(aStream);
-    }
-
-    /**
-     * Prints stackTrace, followed by messageTrace before rethrowing.
-     *
-     * @param msgId Id of last message (for messageTrace)
-     * @param error exception
-     */
-    @Override
-    public void onError(MsgId msgId, RuntimeException error) {
-        ByteArrayOutputStream bos = new ByteArrayOutputStream();
-        final PrintStream errOut = new PrintStream(bos);
-        error.printStackTrace(errOut);
-        errOut.println("\tMessage trace:");
-        getMessageTrace(msgId, ev -> errOut.println("\t" + ev));
-        errorStream.append(bos.toString()).flush();
-        throw error;
-    }
 }
@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2026 agent
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package flc.nbl_actors.core.trace;
+
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Message event logger with one preallocated ring-buffer per listener, written without locks.
+ * <p>Each call to {@link #forkListener()} (once per message interceptor, ie. per green thread)
+ * gets its own ring, so writers never contend. An event is stored with a timestamp, and
+ * published by an ordered write of the ring's head counter; The oldest events are
+ * overwritten when the ring is full. (A write is claimed, by a second counter, before
+ * the slot is written, so readers can tell which entries a write in progress may have hit.)
+ * Queries ({@link #toArray()}, {@link #forEach}, {@link #getMessageTrace}) copy all rings,
+ * drop entries overwritten during the copy, and merge them in timestamp order.
+ * </p>
+ * <p>Compared to {@link MessageEventBuffer}, logging is cheaper, queries more costly.
+ * </p>
+ * <p>Date: 18.10.2026
+ * </p>
+ *
+ * @author agent
+ */
+public class MessageEventRings extends MsgEventSinkBase<MessageEventRings> {
+    private final int ringSize;
+    private final List<Ring> rings = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param ringSize max #events per ring (rounded up to a power of 2)
+     */
+    public MessageEventRings(int ringSize) {
+        if (ringSize < 1)
+            throw new IllegalArgumentException("ringSize < 1");
+        this.ringSize = Integer.highestOneBit(Math.max(1, ringSize - 1)) << 1;
+    }
+
+    /**
+     * Single-writer ring; Traces and errors are handled by the enclosing logger.
+     */
+    final class Ring implements Consumer<IMsgEvent>, IMsgEventTracer {
+        final IMsgEvent[] events;
+        final long[] stamps;
+        final int mask;
+        final AtomicLong head = new AtomicLong(); //next sequence number
+        final AtomicLong claimed = new AtomicLong(); //head, or head + 1 while writing
+
+        Ring(int size) {
+            events = new IMsgEvent[size];
+            stamps = new long[size];
+            mask = size - 1;
+        }
+
+        @Override
+        public void accept(IMsgEvent event) {
+            final long seq = head.get();
+            final int ix = (int) seq & mask;
+            claimed.lazySet(seq + 1);
+            VarHandle.storeStoreFence(); //claim visible before the slot is written
+            events[ix] = event;
+            stamps[ix] = System.nanoTime();
+            head.lazySet(seq + 1); //publish
+        }
+
+        /**
+         * Copy entries; Sets {@code from}, first entry not overwritten during the copy.
+         */
+        Snapshot snapshot() {
+            final long h1 = head.get();
+            final int n = (int) Math.min(h1, events.length);
+            final Snapshot snap = new Snapshot(n);
+            for (int i = 0; i < n; i++) {
+                final int ix = (int) (h1 - n + i) & mask;
+                snap.events[i] = events[ix];
+                snap.stamps[i] = stamps[ix];
+            }
+            VarHandle.acquireFence(); //copy done before reading the claim
+            //entries below (claimed - size) may have been overwritten while copying
+            snap.from = (int) Math.max(0, claimed.get() - events.length - (h1 - n));
+            return snap;
+        }
+
+        @Override
+        public void getMessageTrace(MsgId msgId, Consumer<? super IMsgEvent> consumer) {
+            MessageEventRings.this.getMessageTrace(msgId, consumer);
+        }
+
+        @Override
+        public void onError(MsgId msgId, RuntimeException error) {
+            MessageEventRings.this.onError(msgId, error);
+        }
+    }
+
+    static final class Snapshot {
+        final IMsgEvent[] events;
+        final long[] stamps;
+        int from;
+
+        Snapshot(int n) {
+            events = new IMsgEvent[n];
+            stamps = new long[n];
+        }
+    }
+
+    @Override
+    public Consumer<IMsgEvent> forkListener() {
+        final Ring ring = new Ring(ringSize);
+        rings.add(ring);
+        return ring;
+    }
+
+    /**
+     * Returns an array of all events, in time order (merged from all rings).
+     *
+     * @return event array
+     */
+    public IMsgEvent[] toArray() {
+        final List<Snapshot> snaps = new ArrayList<>();
+        int total = 0;
+        for (Ring r : rings) {
+            final Snapshot snap = r.snapshot();
+            if (snap.from < snap.events.length) {
+                snaps.add(snap);
+                total += snap.events.length - snap.from;
+            }
+        }
+        //merge; each ring is in time order
+        final IMsgEvent[] arr = new IMsgEvent[total];
+        for (int n = 0; n < total; n++) {
+            Snapshot min = null;
+            for (Snapshot snap : snaps)
+                if (snap.from < snap.events.length
+                        && (min == null || snap.stamps[snap.from] - min.stamps[min.from] < 0))
+                    min = snap;
+            //noinspection ConstantConditions
+            arr[n] = min.events[min.from++];
+        }
+        return arr;
+    }
+
+    /**
+     * Perform given action on all events, in time order.
+     *
+     * @param action Action performed for each element
+     */
+    public void forEach(Consumer<? super IMsgEvent> action) {
+        for (IMsgEvent e : toArray())
+            action.accept(e);
+    }
+
+    /**
+     * Last event added (to any ring).
+     *
+     * @return last event, or null if empty
+     */
+    public IMsgEvent peekLast() {
+        IMsgEvent last = null;
+        long lastStamp = Long.MIN_VALUE;
+        for (Ring r : rings) {
+            final long h = r.head.get();
+            if (h == 0)
+                continue;
+            final int ix = (int) (h - 1) & r.mask;
+            final IMsgEvent e = r.events[ix];
+            final long t = r.stamps[ix];
+            VarHandle.acquireFence();
+            if (r.claimed.get() - h < r.events.length && (last == null || t - lastStamp > 0)) {
+                last = e;
+                lastStamp = t;
+            }
+        }
+        return last;
+    }
+
+    /**
+     * Get message trace, starting from given message Id.
+     *
+     * @param msgId    message event Id to trace from.
+     * @param consumer event consumer
+     */
+    @Override
+    public void getMessageTrace(MsgId msgId, Consumer<? super IMsgEvent> consumer) {
+        if (msgId == null) return;
+        final IMsgEvent[] arr = toArray();
+        for (int i = arr.length - 1; i >= 0; i--) {
+            if (!arr[i].id().equals(msgId))
+                continue;
+            consumer.accept(arr[i]);
+            msgId = arr[i].parentId();
+        }
+    }
+}
@@ -13,13 +13,17 @@ import java.io.PrintStream;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
 /**
  * Standard message relay implementation.
- * Routes message events to listeners generated by given IMsgListenerFactory
+ * Routes message events to listeners generated by given IMsgListenerFactory.
+ * Events are timestamped (System.nanoTime) when a message is sent, received (dequeued)
+ * and done; See {@link MsgEventSent#sentNanos}, {@link MsgEventReceived#receivedNanos}
+ * and {@link MsgEventReceived#doneNanos}.
  * <p>Date 16.01.2015
  * </p>
  *
@@ -32,6 +36,11 @@ public class MessageRelay implements IMessageRelay {
     private final IMsgListenerFactory listenerFactory;
     private volatile boolean isReduceLog;
     private volatile boolean isDisableLog;
+    private volatile int sampleOneIn = 1;
+    private volatile int maxEventsPerSecond;
+    private volatile long rateWindow; //current second
+    private final AtomicInteger rateCount = new AtomicInteger();
+    private final LongAdder droppedRoots = new LongAdder();
 
     /**
      * @param factory Called once per thread.
@@ -48,8 +57,11 @@ public class MessageRelay implements IMessageRelay {
 
     /**
      * Reduce logging to help performance.
-     * <p>If true: avoids calling Throwable.getStackTrace() for messages
-     * where the user has supplied info via MessageRelay.logInfo().
+     * <p>If true: no send-site (source code line) is captured for any message.
+     * Messages labelled via MessageRelay.logInfo() never capture the send-site
+     * (the label identifies them), so reduce only matters for unlabelled sends.
+     * Otherwise, the send-site is found with a {@link StackWalker}, inspecting at most
+     * {@link #MAX_STACK_DEPTH} frames.
      * </p>
      *
      * @param isReduce true to reduce (default false)
@@ -67,6 +79,81 @@ public class MessageRelay implements IMessageRelay {
         isDisableLog = isDisable;
     }
 
+    /**
+     * Causal sampling; Trace 1 in N root messages (sent outside any traced message),
+     * with all their descendants (messages sent while handling a traced message).
+     * Messages of other roots are not traced, nor their descendants.
+     * The choice is made from the root's MsgId (a hash of it).
+     *
+     * @param oneInN sample rate (1 = trace all, default)
+     */
+    public void setSampling(int oneInN) {
+        if (oneInN < 1)
+            throw new IllegalArgumentException("oneInN < 1");
+        sampleOneIn = oneInN;
+    }
+
+    /**
+     * Rate limit; No new roots are traced while the events logged during the current
+     * second exceed max. Descendants of already traced roots are still logged (complete
+     * message traces), so the limit may be exceeded by their events.
+     *
+     * @param max max events per second (0 = no limit, default)
+     */
+    public void setMaxEventsPerSecond(int max) {
+        if (max < 0)
+            throw new IllegalArgumentException("max < 0");
+        maxEventsPerSecond = max;
+    }
+
+    /**
+     * Number of root messages not traced, due to sampling or rate limit.
+     *
+     * @return count
+     */
+    public long getDroppedRootCount() {
+        return droppedRoots.sum();
+    }
+
+    static long mix(long z) { //64 bit finalizer (SplitMix64)
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    //trace new root message?
+    private boolean isSampled(TContext ctx) {
+        final int oneIn = sampleOneIn;
+        if (oneIn > 1 && Long.remainderUnsigned(mix((long) ctx.thrNo << 32 | (ctx.msgNo + 1)), oneIn) != 0)
+            return false;
+        final int max = maxEventsPerSecond;
+        if (max > 0) {
+            final long second = System.nanoTime() / 1_000_000_000L;
+            if (second != rateWindow) {
+                rateWindow = second;
+                rateCount.set(0);
+            }
+            return rateCount.get() < max;
+        }
+        return true;
+    }
+
+    /**
+     * Untraced message; Its descendants are untraced too.
+     */
+    private static Runnable untraced(Runnable msg) {
+        return () -> {
+            final TContext ctx = threadContext.get();
+            final boolean prev = ctx.untraced;
+            ctx.untraced = true;
+            try {
+                msg.run();
+            } finally {
+                ctx.untraced = prev;
+            }
+        };
+    }
+
     /**
      * Set log info in a ThreadLocal variable (java.lang.ThreadLocal), to be
      * attached to next message-send log event.
@@ -97,18 +184,21 @@ public class MessageRelay implements IMessageRelay {
         return threadContext.get();
     }
 
-    private static StackTraceElement stackElement(int lev) {
-        final String coreP = "flc.nbl_actors.core";
-        int no = 0;
-        Throwable ex = new Throwable();
-//                ex.printStackTrace();
-        StackTraceElement[] trace = ex.getStackTrace();
-        for (StackTraceElement se : trace) {
-            if (++no >= lev && !se.getClassName().startsWith(coreP)) {
-                return se;
-            }
-        }
-        return null;
+    /**
+     * Max stack frames inspected per send, to find the sending (non-core) code.
+     */
+    public static final int MAX_STACK_DEPTH = 32;
+    private static final String CORE_PACKAGE = "flc.nbl_actors.core.";
+    private static final StackWalker stackWalker = StackWalker.getInstance();
+
+    //first frame outside core package; walks at most MAX_STACK_DEPTH frames, lazily
+    private static StackTraceElement stackElement() {
+        return stackWalker.walk(frames -> frames
+                .limit(MAX_STACK_DEPTH)
+                .filter(f -> !f.getClassName().startsWith(CORE_PACKAGE))
+                .findFirst()
+                .map(StackWalker.StackFrame::toStackTraceElement)
+                .orElse(null));
     }
 
     private class Interceptor implements Function<Runnable, Runnable> {
@@ -125,21 +215,30 @@ public class MessageRelay implements IMessageRelay {
             if (isDisableLog)
                 return msg;
             TContext ctx = threadContext.get();
+            if (ctx.untraced || ctx.lastReceived == null && !isSampled(ctx)) {
+                if (!ctx.untraced)
+                    droppedRoots.increment();
+                ++ctx.msgNo;
+                ctx.logInfo = null;
+                return untraced(msg);
+            }
+            if (maxEventsPerSecond > 0)
+                rateCount.addAndGet(2); //sent + received
             IActorRef targetActor = null;
             if (msg instanceof ActorMessage) {
                 ActorMessage am = (ActorMessage) msg;
                 targetActor = am.ref;
             }
             Supplier<String> info = ctx.getLogInfo();
-            StackTraceElement stackE = (isReduceLog && info != null)
-                    ? null
-                    : stackElement(3);
-            final MsgEventSent sendEvent = new MsgEventSent(
-                    ctx.nextId(), ctx.getParentId(), info, stackE, thread, targetActor);
+            StackTraceElement stackE = (isReduceLog || info != null)
+                    ? null //labelled send; info identifies it
+                    : stackElement();
+            final MsgEventSent sendEvent = new MsgEventSent(ctx.nextId(), ctx.getParentId(),
+                    info, stackE, thread, targetActor, System.nanoTime());
             ctx.sent(sendEvent);
             return () -> {
                 TContext ctx2 = threadContext.get();
-                MsgEventReceived rec = new MsgEventReceived(sendEvent, ctx2.thrNo);
+                MsgEventReceived rec = new MsgEventReceived(sendEvent, ctx2.thrNo, System.nanoTime());
                 ctx2.received(rec, listener);
                 try {
                     msg.run();
@@ -149,6 +248,7 @@ public class MessageRelay implements IMessageRelay {
                         ((IMsgEventTracer) listener).onError(rec.id(), ex);
                     }
                 } finally {
+                    rec.doneNanos = System.nanoTime();
                     ctx2.reset();
                 }
             };
@@ -197,6 +297,7 @@ public class MessageRelay implements IMessageRelay {
         private Supplier<String> logInfo;
         private Consumer<IMsgEvent> listener;
         private MsgEventReceived lastReceived;
+        private boolean untraced; //handling a message not sampled
 
         private void received(MsgEventReceived rcv, Consumer<IMsgEvent> li) {
             listener = li;
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2026 agent
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package flc.nbl_actors.core.trace;
+
+/**
+ * Open-addressing hash map from packed message Id ({@link MsgId#toLong()})
+ * to the last event added with that Id.
+ * Linear probing; Removal shifts following entries back, so there are no tombstones.
+ * Not thread-safe.
+ * <p>Date: 18.10.2026
+ * </p>
+ *
+ * @author agent
+ */
+final class MsgEventIndex {
+    private static final int MIN_CAPACITY = 16;
+    private long[] keys;
+    private IMsgEvent[] values; //null = free slot
+    private int mask, size;
+
+    MsgEventIndex(int expectedSize) {
+        alloc(capacityFor(expectedSize));
+    }
+
+    private static int capacityFor(int n) {
+        //load factor <= 0.5
+        return Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(1, n) * 2 - 1) << 1);
+    }
+
+    private void alloc(int capacity) {
+        keys = new long[capacity];
+        values = new IMsgEvent[capacity];
+        mask = capacity - 1;
+    }
+
+    private int slot(long key) {
+        return (int) MessageRelay.mix(key) & mask;
+    }
+
+    /**
+     * @return number of Ids
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Add or replace event for its Id.
+     *
+     * @param event event with non-null id
+     */
+    void put(IMsgEvent event) {
+        final long key = event.id().toLong();
+        int i = slot(key);
+        while (values[i] != null) {
+            if (keys[i] == key) {
+                values[i] = event;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = event;
+        if (++size * 2 > keys.length)
+            rehash(keys.length * 2);
+    }
+
+    /**
+     * @param msgId message Id
+     * @return last event with given Id, or null
+     */
+    IMsgEvent get(MsgId msgId) {
+        final long key = msgId.toLong();
+        for (int i = slot(key); values[i] != null; i = (i + 1) & mask)
+            if (keys[i] == key)
+                return values[i];
+        return null;
+    }
+
+    /**
+     * Remove event, if it is still the one stored for its Id
+     * (a later event with the same Id is kept).
+     *
+     * @param event evicted event
+     */
+    void remove(IMsgEvent event) {
+        final long key = event.id().toLong();
+        int i = slot(key);
+        while (values[i] != null) {
+            if (keys[i] == key) {
+                if (values[i] == event)
+                    delete(i);
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    private void delete(int hole) {
+        values[hole] = null;
+        --size;
+        //shift back entries whose probe sequence passes the hole
+        for (int i = (hole + 1) & mask; values[i] != null; i = (i + 1) & mask) {
+            final int home = slot(keys[i]);
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                keys[hole] = keys[i];
+                values[hole] = values[i];
+                values[i] = null;
+                hole = i;
+            }
+        }
+    }
+
+    private void rehash(int capacity) {
+        final long[] oldKeys = keys;
+        final IMsgEvent[] oldValues = values;
+        alloc(capacity);
+        for (int j = 0; j < oldValues.length; j++) {
+            if (oldValues[j] == null)
+                continue;
+            int i = slot(oldKeys[j]);
+            while (values[i] != null)
+                i = (i + 1) & mask;
+            keys[i] = oldKeys[j];
+            values[i] = oldValues[j];
+        }
+    }
+}
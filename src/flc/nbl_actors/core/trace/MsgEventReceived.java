@@ -16,10 +16,38 @@ package flc.nbl_actors.core.trace;
 public class MsgEventReceived implements IMsgEvent {
     public final MsgEventSent sent;
     public final int toThrNo;
+    /**
+     * System.nanoTime() when dequeued (message.run() called)
+     */
+    public final long receivedNanos;
+    /**
+     * System.nanoTime() when message.run() returned; 0 while running
+     */
+    public volatile long doneNanos;
 
     public MsgEventReceived(MsgEventSent sent, int toRealThreadNo) {
+        this(sent, toRealThreadNo, System.nanoTime());
+    }
+
+    public MsgEventReceived(MsgEventSent sent, int toRealThreadNo, long receivedNanos) {
         this.sent = sent;
         this.toThrNo = toRealThreadNo;
+        this.receivedNanos = receivedNanos;
+    }
+
+    /**
+     * @return nano seconds from sent to received (queueing delay)
+     */
+    public long queueNanos() {
+        return receivedNanos - sent.sentNanos;
+    }
+
+    /**
+     * @return nano seconds from received to done (processing time), or -1 while running
+     */
+    public long runNanos() {
+        final long done = doneNanos;
+        return done == 0 ? -1 : done - receivedNanos;
     }
 
     @Override
@@ -46,8 +46,17 @@ public class MsgEventSent implements IMsgEvent {
      * target actor, or null
      */
     public final IActorRef targetActor;
+    /**
+     * System.nanoTime() when sent
+     */
+    public final long sentNanos;
 
     public MsgEventSent(MsgId id, MsgId idParent, Supplier<String> logInfo, StackTraceElement source, IGreenThr to, IActorRef targetActor) {
+        this(id, idParent, logInfo, source, to, targetActor, System.nanoTime());
+    }
+
+    public MsgEventSent(MsgId id, MsgId idParent, Supplier<String> logInfo, StackTraceElement source, IGreenThr to, IActorRef<?> targetActor, long sentNanos) {
+        this.sentNanos = sentNanos;
         this.id = id;
         this.idParent = idParent;
         this.source = source;
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2026 agent
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package flc.nbl_actors.core.trace;
+
+import flc.nbl_actors.core.IGreenThrFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Objects;
+
+/**
+ * Common part of message event sinks: connection to a {@link MessageRelay},
+ * relay settings, and error reporting.
+ * <p>Date: 18.10.2026
+ * </p>
+ *
+ * @param <S> sink type (returned from {@link #listenTo})
+ * @author agent
+ */
+public abstract class MsgEventSinkBase<S extends MsgEventSinkBase<S>>
+        implements IMsgListenerFactory, IMsgEventTracer {
+
+    private volatile MessageRelay relay;
+    private volatile PrintStream errorStream = System.err;
+
+    /**
+     * Listen to messages from thread-factory
+     * <p>({@code Data flow: IGreenThrFactory ==> MessageRelay ==> this})
+     * </p>
+     *
+     * @param threads     thread-factory
+     * @param isReduceLog true = reduce log (no send-site capture; Labelled sends never capture it)
+     * @return this
+     */
+    @SuppressWarnings("unchecked")
+    public S listenTo(IGreenThrFactory threads, boolean isReduceLog) {
+        final MessageRelay r = new MessageRelay(this);
+        r.setReduceLog(isReduceLog);
+        threads.setMessageRelay(relay = r);
+        return (S) this;
+    }
+
+    /**
+     * Listen to messages from thread-factory.
+     * Equivalent to {@code listenTo(threads, false)}
+     * <p>({@code Data flow: IGreenThrFactory ==> MessageRelay ==> this})
+     * </p>
+     *
+     * @param threads thread-factory
+     * @return this
+     */
+    public S listenTo(IGreenThrFactory threads) {
+        return listenTo(threads, false);
+    }
+
+    /**
+     * @return relay set by listenTo, or null
+     */
+    public MessageRelay getRelay() {
+        return relay;
+    }
+
+    /**
+     * Reduce logging (may help performance).
+     *
+     * @param isReduce true to reduce
+     * @see MessageRelay#setReduceLog(boolean)
+     */
+    public void setReduceLog(boolean isReduce) {
+        if (relay != null)
+            relay.setReduceLog(isReduce);
+    }
+
+    /**
+     * Sample message traces (may help performance).
+     *
+     * @param oneInN             trace 1 in N root messages, with descendants (1 = all)
+     * @param maxEventsPerSecond no new roots traced above this rate (0 = no limit)
+     * @see MessageRelay#setSampling(int)
+     * @see MessageRelay#setMaxEventsPerSecond(int)
+     */
+    public void setSampling(int oneInN, int maxEventsPerSecond) {
+        if (relay != null) {
+            relay.setSampling(oneInN);
+            relay.setMaxEventsPerSecond(maxEventsPerSecond);
+        }
+    }
+
+    /**
+     * Disable or enable logging
+     *
+     * @param isDisabled true = disable, false = normal logging
+     * @see MessageRelay#setDisableLog(boolean)
+     */
+    public void setDisableLog(boolean isDisabled) {
+        if (relay != null)
+            relay.setDisableLog(isDisabled);
+    }
+
+    /**
+     * Set output for {@link IMsgEventTracer#onError(MsgId, RuntimeException)}
+     * (default is System.err)
+     *
+     * @param aStream output
+     */
+    public void setErrorStream(PrintStream aStream) {
+        errorStream = Objects.requireNonNull(aStream);
+    }
+
+    /**
+     * Prints stackTrace, followed by messageTrace before rethrowing.
+     *
+     * @param msgId Id of last message (for messageTrace)
+     * @param error exception
+     */
+    @Override
+    public void onError(MsgId msgId, RuntimeException error) {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        final PrintStream errOut = new PrintStream(bos);
+        error.printStackTrace(errOut);
+        errOut.println("\tMessage trace:");
+        getMessageTrace(msgId, ev -> errOut.println("\t" + ev));
+        errorStream.append(bos.toString()).flush();
+        throw error;
+    }
+}
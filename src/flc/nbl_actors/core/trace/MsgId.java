@@ -26,6 +26,21 @@ public class MsgId {
         this.messageNo = messageNo;
     }
 
+    /**
+     * @return Id packed in a long (threadNo in high bits, messageNo in low bits)
+     */
+    public long toLong() {
+        return (long) threadNo << 32 | (messageNo & 0xffffffffL);
+    }
+
+    /**
+     * @param packed Id packed by {@link #toLong()}
+     * @return message Id
+     */
+    public static MsgId of(long packed) {
+        return new MsgId((int) (packed >>> 32), (int) packed);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,256 @@
+/*
+ * Copyright (c) 2026 agent
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package flc.nbl_actors.core.trace;
+
+import flc.nbl_actors.core.trace.TraceFileReader.Record;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Offline analysis of trace files ({@link TraceFileWriter}):
+ * causal chains, slowest paths, and per actor class statistics.
+ * <p>A path is the chain from a root message to a leaf message (one that caused no other);
+ * Its time is from the first event of the root (sent, if logged) to the leaf being received.
+ * Queue time is from a message being sent to it being received.
+ * </p>
+ * <p>One run is analysed (records from one {@link TraceFileWriter}); By default the last
+ * run in the records, as files from earlier runs may share the prefix.
+ * </p>
+ * <pre>
+ * Usage:
+ *   java flc.nbl_actors.core.trace.TraceAnalyzer &lt;dir&gt; &lt;prefix&gt; [top] [msgId]
+ *     top:   number of slowest paths shown (default 10)
+ *     msgId: print causal chain of this message (threadNo.messageNo)
+ * </pre>
+ * <p>Date: 18.10.2026
+ * </p>
+ *
+ * @author agent
+ */
+public class TraceAnalyzer {
+    private static final String NO_ACTOR = "(thread task)";
+    private final Map<Long, Record> sent = new HashMap<>(), received = new HashMap<>();
+    private final Set<Long> parents = new HashSet<>(), errors = new HashSet<>();
+    private final long runId;
+    private final int count;
+
+    /**
+     * Analyse last run.
+     *
+     * @param records events, in written order
+     */
+    public TraceAnalyzer(List<Record> records) {
+        this(records, records.isEmpty() ? 0 : records.get(records.size() - 1).runId);
+    }
+
+    /**
+     * Analyse given run.
+     *
+     * @param records events, in written order
+     * @param runId   run Id ({@link Record#runId}); Other records are ignored
+     */
+    public TraceAnalyzer(List<Record> records, long runId) {
+        this.runId = runId;
+        int n = 0;
+        for (Record r : records) {
+            if (r.runId != runId)
+                continue;
+            ++n;
+            if (r.isSent())
+                sent.put(r.id, r);
+            else if (r.isError())
+                errors.add(r.id);
+            else
+                received.put(r.id, r);
+            if (r.parentId != 0)
+                parents.add(r.parentId);
+        }
+        count = n;
+    }
+
+    /**
+     * @return analysed run Id
+     */
+    public long getRunId() {
+        return runId;
+    }
+
+    /**
+     * Per actor class statistics.
+     */
+    public static final class ClassStats {
+        public final String actorClass;
+        public long messages, errors, queued, queueNanos, maxQueueNanos;
+
+        ClassStats(String actorClass) {
+            this.actorClass = actorClass;
+        }
+
+        /**
+         * @return mean queue time, of messages with both sent and received logged
+         */
+        public double meanQueueNanos() {
+            return queued == 0 ? 0 : (double) queueNanos / queued;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-40s %9d %7d %12.1f %12.1f", actorClass, messages, errors,
+                    meanQueueNanos() / 1e3, maxQueueNanos / 1e3);
+        }
+    }
+
+    /**
+     * Causal chain of a message: its last event (received, else sent),
+     * followed by those of its parent, and so on (as far as logged).
+     *
+     * @param id packed message Id
+     * @return chain, starting at given message
+     */
+    public List<Record> chain(long id) {
+        final List<Record> list = new ArrayList<>();
+        for (int n = 0; id != 0 && n <= count; n++) {
+            Record r = received.get(id);
+            if (r == null)
+                r = sent.get(id);
+            if (r == null)
+                break;
+            list.add(r);
+            id = r.parentId;
+        }
+        return list;
+    }
+
+    private long startTime(Record r) {
+        final Record s = sent.get(r.id);
+        return s == null ? r.time : s.time;
+    }
+
+    /**
+     * Time from the root of the message's chain, to the message being received.
+     *
+     * @param r received event
+     * @return nano seconds
+     */
+    public long pathNanos(Record r) {
+        final List<Record> chain = chain(r.id);
+        return r.time - startTime(chain.get(chain.size() - 1));
+    }
+
+    /**
+     * Slowest paths, by path time.
+     *
+     * @param top max number of paths
+     * @return leaf messages (received events), slowest first
+     */
+    public List<Record> slowestPaths(int top) {
+        final Map<Record, Long> times = new HashMap<>();
+        for (Record r : received.values())
+            if (!parents.contains(r.id))
+                times.put(r, pathNanos(r));
+        return times.entrySet().stream()
+                .sorted(Map.Entry.<Record, Long>comparingByValue().reversed())
+                .limit(top)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Statistics per target actor class (non-actor messages as "(thread task)").
+     *
+     * @return statistics, most messages first
+     */
+    public List<ClassStats> classStats() {
+        final Map<String, ClassStats> map = new LinkedHashMap<>();
+        for (Record r : received.values()) {
+            final ClassStats st = map.computeIfAbsent(
+                    r.actorClass == null ? NO_ACTOR : r.actorClass, ClassStats::new);
+            ++st.messages;
+            if (errors.contains(r.id))
+                ++st.errors;
+            final Record s = sent.get(r.id);
+            if (s != null) {
+                final long q = r.time - s.time;
+                ++st.queued;
+                st.queueNanos += q;
+                st.maxQueueNanos = Math.max(st.maxQueueNanos, q);
+            }
+        }
+        final List<ClassStats> list = new ArrayList<>(map.values());
+        list.sort(Comparator.comparingLong((ClassStats s) -> s.messages).reversed());
+        return list;
+    }
+
+    /**
+     * Print causal chain, with times relative to its root.
+     *
+     * @param id  packed message Id
+     * @param out output
+     */
+    public void printChain(long id, PrintStream out) {
+        final List<Record> chain = chain(id);
+        if (chain.isEmpty()) {
+            out.println("  (not found)");
+            return;
+        }
+        final long t0 = startTime(chain.get(chain.size() - 1));
+        for (Record r : chain)
+            out.printf("  %10.1f us  %s%n", (r.time - t0) / 1e3, r);
+    }
+
+    /**
+     * Print statistics and slowest paths.
+     *
+     * @param out output
+     * @param top number of slowest paths
+     */
+    public void report(PrintStream out, int top) {
+        out.printf("Run: %016x%n", runId);
+        out.printf("Events: %d, messages: %d (sent logged: %d)%n", count, received.size(), sent.size());
+        out.printf("%n%-40s %9s %7s %12s %12s%n", "Actor class", "messages", "errors",
+                "mean queue", "max queue");
+        out.printf("%-40s %9s %7s %12s %12s%n", "", "", "", "(us)", "(us)");
+        for (ClassStats st : classStats())
+            out.println(st);
+        out.printf("%nSlowest paths:%n");
+        for (Record leaf : slowestPaths(top)) {
+            out.printf("%n %.1f us, depth %d:%n", pathNanos(leaf) / 1e3, chain(leaf.id).size());
+            printChain(leaf.id, out);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: TraceAnalyzer <dir> <prefix> [top] [msgId]");
+            System.exit(1);
+        }
+        final List<Record> records = TraceFileReader.readAll(Paths.get(args[0]), args[1]);
+        final int runs = TraceFileReader.byRun(records).size();
+        if (runs > 1)
+            System.out.printf("%d runs in files; Analysing the last.%n", runs);
+        final TraceAnalyzer an = new TraceAnalyzer(records);
+        an.report(System.out, args.length > 2 ? Integer.parseInt(args[2]) : 10);
+        if (args.length > 3) {
+            final String[] no = args[3].split("\\.");
+            final MsgId id = new MsgId(Integer.parseInt(no[0]), Integer.parseInt(no[1]));
+            System.out.printf("%nMessage %s:%n", id);
+            an.printChain(id.toLong(), System.out);
+        }
+    }
+}
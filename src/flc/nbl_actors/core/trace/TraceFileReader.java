@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2026 agent
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package flc.nbl_actors.core.trace;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static flc.nbl_actors.core.trace.TraceFileWriter.*;
+
+/**
+ * Reads trace files written by {@link TraceFileWriter}.
+ * <p>Date: 18.10.2026
+ * </p>
+ *
+ * @author agent
+ */
+public final class TraceFileReader {
+
+    private TraceFileReader() {
+    }
+
+    /**
+     * Event read from a trace file.
+     */
+    public static final class Record {
+        /**
+         * run Id of the writer ({@link TraceFileWriter#getRunId()}; 0 if not known)
+         */
+        public final long runId;
+        /**
+         * {@link TraceFileWriter} record kind (sent, received or error)
+         */
+        public final byte kind;
+        /**
+         * receiving thread number (received or error)
+         */
+        public final int thrNo;
+        /**
+         * packed Ids ({@link MsgId#toLong()}); parentId 0 = no parent
+         */
+        public final long id, parentId;
+        /**
+         * System.nanoTime() when logged
+         */
+        public final long time;
+        /**
+         * send-site and target actor class name, or null
+         */
+        public final String site, actorClass;
+
+        Record(long runId, byte kind, int thrNo, long id, long parentId, long time,
+               String site, String actorClass) {
+            this.runId = runId;
+            this.kind = kind;
+            this.thrNo = thrNo;
+            this.id = id;
+            this.parentId = parentId;
+            this.time = time;
+            this.site = site;
+            this.actorClass = actorClass;
+        }
+
+        public boolean isSent() {
+            return kind == SENT;
+        }
+
+        public boolean isError() {
+            return kind == ERROR;
+        }
+
+        @Override
+        public String toString() {
+            return (kind == SENT ? "sent" : kind == RECEIVED ? "run" : "error")
+                    + "[" + MsgId.of(id) + "]" + (parentId == 0 ? null : MsgId.of(parentId))
+                    + (site == null ? "" : " at " + site)
+                    + (actorClass == null ? "" : ":" + actorClass)
+                    + (kind == SENT ? "" : " thread:" + thrNo);
+        }
+    }
+
+    /**
+     * Trace files with given prefix, in written order.
+     *
+     * @param dir    directory
+     * @param prefix file name prefix
+     * @return file paths
+     * @throws IOException on read error
+     */
+    public static List<Path> files(Path dir, String prefix) throws IOException {
+        final List<Path> list = new ArrayList<>();
+        if (!Files.isDirectory(dir))
+            return list;
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, prefix + "-*" + SUFFIX)) {
+            for (Path p : ds) {
+                final String name = p.getFileName().toString();
+                final String no = name.substring(prefix.length() + 1, name.length() - SUFFIX.length());
+                if (!no.isEmpty() && no.chars().allMatch(Character::isDigit))
+                    list.add(p);
+            }
+        }
+        //zero-padded numbers: name order
+        list.sort((a, b) -> a.getFileName().toString().compareTo(b.getFileName().toString()));
+        return list;
+    }
+
+    /**
+     * Read events of one file.
+     *
+     * @param file   trace file
+     * @param output receives events
+     * @throws IOException on read error, or not a trace file
+     */
+    public static void read(Path file, List<? super Record> output) throws IOException {
+        final ByteBuffer b = ByteBuffer.wrap(Files.readAllBytes(file));
+        if (b.remaining() < HEADER_SIZE || b.getInt() != MAGIC)
+            throw new IOException("Not a trace file: " + file);
+        final int version = b.getInt();
+        if (version < 1 || version > VERSION)
+            throw new IOException("Unsupported trace version: " + file);
+        b.getLong(); //epochMillis
+        final long runId = version >= 2 ? b.getLong() : 0;
+        final Map<Integer, String> symbols = new HashMap<>();
+        while (b.hasRemaining()) {
+            final byte kind = b.get();
+            if (kind == END)
+                break;
+            if (kind == SYMBOL) {
+                final int no = b.getInt();
+                final byte[] s = new byte[b.getShort() & 0xffff];
+                b.get(s);
+                symbols.put(no, new String(s, StandardCharsets.UTF_8));
+            } else if (kind >= SENT && kind <= ERROR) {
+                output.add(new Record(runId, kind, b.getInt(), b.getLong(), b.getLong(), b.getLong(),
+                        symbols.get(b.getInt()), symbols.get(b.getInt())));
+            } else
+                throw new IOException("Bad record kind " + kind + " at " + (b.position() - 1) + ": " + file);
+        }
+    }
+
+    /**
+     * Read events of all files with given prefix, in written order.
+     * Files from several runs (writers) may share a prefix; See {@link #byRun}.
+     *
+     * @param dir    directory
+     * @param prefix file name prefix
+     * @return events
+     * @throws IOException on read error
+     */
+    public static List<Record> readAll(Path dir, String prefix) throws IOException {
+        final List<Record> list = new ArrayList<>();
+        for (Path p : files(dir, prefix))
+            read(p, list);
+        return list;
+    }
+
+    /**
+     * Group events by run; Message Ids and times of different runs (JVMs) are unrelated.
+     *
+     * @param records events, in written order
+     * @return events per run Id, runs in written order
+     */
+    public static Map<Long, List<Record>> byRun(List<Record> records) {
+        final Map<Long, List<Record>> runs = new LinkedHashMap<>();
+        for (Record r : records)
+            runs.computeIfAbsent(r.runId, k -> new ArrayList<>()).add(r);
+        return runs;
+    }
+}
@@ -0,0 +1,288 @@
+/*
+ * Copyright (c) 2026 agent
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package flc.nbl_actors.core.trace;
+
+import flc.nbl_actors.core.IActorRef;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+/**
+ * Message event sink streaming a compact binary trace to rolling memory-mapped files.
+ * <p>Files are named {@code <prefix>-<number>.trace} in the given directory, each of fixed
+ * size; When a file is full the next is started, and the oldest is deleted beyond
+ * {@code maxFiles}. Disk use is thereby bounded by {@code fileSize * maxFiles}.
+ * Files with the same prefix, from an earlier run, are kept: Numbering continues after them,
+ * and they count toward {@code maxFiles}, so they are the first deleted when rolling.
+ * (Use another prefix, or directory, to keep them all.) Each writer has a random run Id,
+ * stored in the header of its files; Ids and times are only comparable within a run
+ * (see {@link TraceFileReader#byRun}).
+ * </p>
+ * <p>File format (big-endian): header {@code int magic, int version, long epochMillis,
+ * long runId}, followed by records, ended by a zero byte (or end of file):
+ * </p>
+ * <ul>
+ * <li>symbol: {@code byte 1, int number, short length, UTF-8 bytes}
+ * (send-site or actor class name; Numbered per file)</li>
+ * <li>event: {@code byte kind (2 sent, 3 received, 4 error), int threadNo, long id,
+ * long parentId, long nanoTime, int siteSymbol, int classSymbol}
+ * (Ids packed by {@link MsgId#toLong()}; 0 = no parent, -1 = no symbol;
+ * nanoTime of the send, receive, or error)</li>
+ * </ul>
+ * <p>Read with {@link TraceFileReader}; Analyse with {@link TraceAnalyzer}.
+ * Logging is synchronized. Write errors do not reach the message senders;
+ * Events are then dropped (see {@link #getDroppedCount()}, {@link #getError()}).
+ * </p>
+ * <p>Date: 18.10.2026
+ * </p>
+ *
+ * @author agent
+ */
+public class TraceFileWriter extends MsgEventSinkBase<TraceFileWriter>
+        implements Consumer<IMsgEvent>, AutoCloseable {
+    static final int MAGIC = 0x4E424C54; //"NBLT"
+    static final int VERSION = 2; //1: without runId
+    static final int HEADER_SIZE = 24;
+    static final byte END = 0, SYMBOL = 1, SENT = 2, RECEIVED = 3, ERROR = 4;
+    static final int EVENT_SIZE = 1 + 4 + 8 + 8 + 8 + 4 + 4;
+    static final String SUFFIX = ".trace";
+    private static final int MAX_SYMBOL_BYTES = 1024;
+
+    private final Object lock = new Object();
+    private final Path dir;
+    private final String prefix;
+    private final int fileSize, maxFiles;
+    private final long runId;
+    private final Deque<Path> files = new ArrayDeque<>();
+    private final Map<String, Integer> symbols = new HashMap<>(); //of current file
+    private MappedByteBuffer buf;
+    private int fileNo;
+    private long written, dropped;
+    private IOException error;
+    private boolean closed;
+
+    /**
+     * Create writer, and the first file (numbered after existing files with the same prefix).
+     *
+     * @param dir      directory
+     * @param prefix   file name prefix
+     * @param fileSize bytes per file (&gt;= 4096)
+     * @param maxFiles max number of files kept (&gt;= 1)
+     * @throws IOException if a file could not be created
+     */
+    public TraceFileWriter(Path dir, String prefix, int fileSize, int maxFiles) throws IOException {
+        if (fileSize < 4096)
+            throw new IllegalArgumentException("fileSize < 4096");
+        if (maxFiles < 1)
+            throw new IllegalArgumentException("maxFiles < 1");
+        this.dir = dir;
+        this.prefix = prefix;
+        this.fileSize = fileSize;
+        this.maxFiles = maxFiles;
+        long id;
+        do {
+            id = ThreadLocalRandom.current().nextLong();
+        } while (id == 0); //0: no run Id (version 1)
+        runId = id;
+        Files.createDirectories(dir);
+        for (Path p : TraceFileReader.files(dir, prefix)) {
+            files.add(p);
+            fileNo = Math.max(fileNo, number(p));
+        }
+        nextFile();
+    }
+
+    private int number(Path file) {
+        final String name = file.getFileName().toString();
+        return Integer.parseInt(name.substring(prefix.length() + 1, name.length() - SUFFIX.length()));
+    }
+
+    private void nextFile() throws IOException {
+        if (buf != null) {
+            buf.put(END);
+            buf.force();
+        }
+        buf = null;
+        symbols.clear();
+        final Path path = dir.resolve(String.format("%s-%06d%s", prefix, ++fileNo, SUFFIX));
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            buf = ch.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+        }
+        buf.putInt(MAGIC).putInt(VERSION).putLong(System.currentTimeMillis()).putLong(runId);
+        files.add(path);
+        while (files.size() > maxFiles)
+            Files.deleteIfExists(files.poll());
+    }
+
+    private static byte[] utf8(String s) {
+        final byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        return b.length <= MAX_SYMBOL_BYTES ? b : Arrays.copyOf(b, MAX_SYMBOL_BYTES);
+    }
+
+    private int symbolSize(String s) {
+        return s == null || symbols.containsKey(s) ? 0 : 1 + 4 + 2 + utf8(s).length;
+    }
+
+    private int symbol(String s) {
+        if (s == null)
+            return -1;
+        Integer no = symbols.get(s);
+        if (no == null) {
+            no = symbols.size();
+            symbols.put(s, no);
+            final byte[] b = utf8(s);
+            buf.put(SYMBOL).putInt(no).putShort((short) b.length).put(b);
+        }
+        return no;
+    }
+
+    /**
+     * Write message event (synchronized).
+     *
+     * @param event message event
+     */
+    @Override
+    public void accept(IMsgEvent event) {
+        long time = System.nanoTime();
+        final MsgEventSent sent;
+        final byte kind;
+        final int thrNo;
+        if (event instanceof MsgEventSent) {
+            sent = (MsgEventSent) event;
+            kind = SENT;
+            thrNo = 0;
+            time = sent.sentNanos;
+        } else if (event instanceof MsgEventReceived) {
+            sent = ((MsgEventReceived) event).sent;
+            kind = RECEIVED;
+            thrNo = ((MsgEventReceived) event).toThrNo;
+            time = ((MsgEventReceived) event).receivedNanos;
+        } else if (event instanceof MsgEventError) {
+            sent = ((MsgEventError) event).received.sent;
+            kind = ERROR;
+            thrNo = ((MsgEventError) event).received.toThrNo;
+        } else
+            return;
+        final String site = sent.source == null ? null : sent.source.toString();
+        final IActorRef<?> actor = sent.targetActor;
+        final String actorClass = actor == null ? null : actor.getActorClass().getName();
+        synchronized (lock) {
+            if (closed || error != null) {
+                ++dropped;
+                return;
+            }
+            try {
+                //event and its symbols in same file; one byte left for END
+                if (buf.remaining() < symbolSize(site) + symbolSize(actorClass) + EVENT_SIZE + 1)
+                    nextFile();
+                final int siteNo = symbol(site);
+                final int classNo = symbol(actorClass);
+                buf.put(kind).putInt(thrNo)
+                        .putLong(sent.id.toLong())
+                        .putLong(sent.idParent == null ? 0 : sent.idParent.toLong())
+                        .putLong(time)
+                        .putInt(siteNo).putInt(classNo);
+                ++written;
+            } catch (IOException e) {
+                error = e;
+                ++dropped;
+            }
+        }
+    }
+
+    @Override
+    public Consumer<IMsgEvent> forkListener() {
+        return this;
+    }
+
+    /**
+     * @return run Id, written in each file header
+     */
+    public long getRunId() {
+        return runId;
+    }
+
+    /**
+     * @return number of events written
+     */
+    public long getWrittenCount() {
+        synchronized (lock) {
+            return written;
+        }
+    }
+
+    /**
+     * @return number of events dropped (after close or write error)
+     */
+    public long getDroppedCount() {
+        synchronized (lock) {
+            return dropped;
+        }
+    }
+
+    /**
+     * @return first write error, or null
+     */
+    public IOException getError() {
+        synchronized (lock) {
+            return error;
+        }
+    }
+
+    /**
+     * Trace is not available from the files while writing.
+     *
+     * @param msgId    message event Id to trace from.
+     * @param consumer event consumer
+     */
+    @Override
+    public void getMessageTrace(MsgId msgId, Consumer<? super IMsgEvent> consumer) {
+    }
+
+    /**
+     * Flush current file to disk.
+     */
+    public void flush() {
+        synchronized (lock) {
+            if (buf != null)
+                buf.force();
+        }
+    }
+
+    /**
+     * Flush, and stop writing; Later events are dropped.
+     */
+    @Override
+    public void close() {
+        synchronized (lock) {
+            if (closed)
+                return;
+            closed = true;
+            if (buf != null) {
+                if (buf.hasRemaining())
+                    buf.put(END);
+                buf.force();
+                buf = null;
+            }
+        }
+    }
+}
@@ -58,14 +58,15 @@ public class ForkJoinExample {
     // Recursively split a string to left/right halves until small enough (Fork),
     // and then merge the strings back together (Join).
     // Future result string should be equal to original.
-    static IASync<String> splitMerge(IGreenThrFactory tf, String original) {
+    // AdaptiveSplit decides if each half is forked to another thread, or run inline.
+    static IASync<String> splitMerge(AdaptiveSplit split, String original) {
         if (original.length() < 6) return new ASyncDirect<>(original);
         ForkJoin<String> fj = new ForkJoin<>("");
         int count = 0;
         for (String str : strSplit(original, 2)) { //only handles binary split
             final boolean isLeft = count++ == 0;
-            fj.callAsync(tf.newThread()
-                    , () -> splitMerge(tf, str)
+            fj.callAsync(split
+                    , () -> splitMerge(split, str)
                     , (val, ret) -> isLeft ? ret + val : val + ret
                     //merge strings again (ForkJoin result updated)
             );
@@ -79,8 +80,9 @@ public class ForkJoinExample {
         log("Original string:\n " + origString);
         IGreenThr thr = factory.newThread();
         log("\nAlgorithm 1 ..");
+        final AdaptiveSplit split = new AdaptiveSplit(factory);
         thr.execute(
-                () -> splitMerge(factory, origString)
+                () -> splitMerge(split, origString)
                         .result(res -> {
                             log("Resulting string:\n " + res);
                             assert origString.equals(res);
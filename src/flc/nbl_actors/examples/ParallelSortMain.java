@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2026 agent
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package flc.nbl_actors.examples;
+
+import flc.nbl_actors.core.*;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Benchmark; {@link ParallelSort} vs {@link Arrays#parallelSort} and {@link Arrays#sort}.
+ * <p>Date: 18.10.2026
+ * </p>
+ *
+ * @author agent
+ */
+public class ParallelSortMain {
+
+    interface Sort<A> {
+        void sort(A a) throws InterruptedException, ExecutionException;
+    }
+
+    static <T> T get(IASync<T> async) throws InterruptedException, ExecutionException {
+        final CompletableFuture<T> f = new CompletableFuture<>();
+        async.result(f::complete);
+        return f.get();
+    }
+
+    static <A> void timed(String label, A data, Sort<A> sort, A copy) throws InterruptedException, ExecutionException {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.arraycopy(data, 0, copy, 0, java.lang.reflect.Array.getLength(data));
+            final long t0 = System.nanoTime();
+            sort.sort(copy);
+            best = Math.min(best, System.nanoTime() - t0);
+        }
+        System.out.printf("  %-22s %8.2f ms%n", label, best * 1e-6);
+    }
+
+    public static void main(String[] args) throws InterruptedException, ExecutionException {
+        final int n = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        final Random random = new Random(1);
+        final int[] ints = random.ints(n).toArray();
+        final double[] doubles = random.doubles(n).toArray();
+        final Integer[] boxed = new Integer[n / 5];
+        for (int i = 0; i < boxed.length; i++)
+            boxed[i] = ints[i];
+        try (IGreenThrFactory factory = new GreenThrFactory_single(Runtime.getRuntime().availableProcessors())) {
+            final ParallelSort sorter = new ParallelSort(factory);
+            System.out.println(" int[" + n + "]:");
+            timed("Arrays.sort", ints, Arrays::sort, new int[n]);
+            timed("Arrays.parallelSort", ints, Arrays::parallelSort, new int[n]);
+            timed("ParallelSort", ints, a -> get(sorter.sort(a)), new int[n]);
+            System.out.println(" double[" + n + "]:");
+            timed("Arrays.sort", doubles, Arrays::sort, new double[n]);
+            timed("Arrays.parallelSort", doubles, Arrays::parallelSort, new double[n]);
+            timed("ParallelSort", doubles, a -> get(sorter.sort(a)), new double[n]);
+            System.out.println(" Integer[" + boxed.length + "]:");
+            timed("Arrays.sort", boxed, Arrays::sort, new Integer[boxed.length]);
+            timed("Arrays.parallelSort", boxed, Arrays::parallelSort, new Integer[boxed.length]);
+            timed("ParallelSort", boxed, a -> get(sorter.sort(a)), new Integer[boxed.length]);
+        }
+    }
+}
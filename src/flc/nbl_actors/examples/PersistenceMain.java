@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2026 agent
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package flc.nbl_actors.examples;
+
+import flc.nbl_actors.core.*;
+import flc.nbl_actors.core.persist.SnapshottingActorBase;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Event-sourced actor; persist throughput and recovery time.
+ * <p>Date: 18.10.2026
+ * </p>
+ *
+ * @author agent
+ */
+public class PersistenceMain {
+
+    static class Account extends SnapshottingActorBase<Account, Long> {
+        long balance, replayed;
+
+        Account(Path dir) {
+            super(dir);
+        }
+
+        //persist 'count' events, in batches of 1000 (one group commit per batch)
+        void deposit(long count, Runnable done) {
+            final long n = Math.min(count, 1000);
+            for (long i = 0; i < n; i++)
+                persist(i, null);
+            if (count > n)
+                self().send(a -> a.deposit(count - n, done));
+            else
+                persist(0L, done);
+        }
+
+        @Override
+        protected void applyEvent(Long amount) {
+            balance += amount;
+        }
+
+        @Override
+        protected void encodeEvent(Long amount, ByteBuffer out) {
+            out.putLong(amount);
+        }
+
+        @Override
+        protected Long decodeEvent(ByteBuffer in) {
+            return in.getLong();
+        }
+
+        @Override
+        protected void saveState(ByteBuffer out) {
+            out.putLong(balance);
+        }
+
+        @Override
+        protected void loadState(ByteBuffer in) {
+            balance = in.getLong();
+        }
+
+        @Override
+        protected void onRecovered(long replayed) {
+            this.replayed = replayed;
+        }
+    }
+
+    static long[] run(Path dir, long events, long snapshotInterval) throws Exception {
+        CompletableFuture<long[]> fut = new CompletableFuture<>();
+        try (IGreenThrFactory threads = new GreenThrFactory_single(1)) {
+            Account account = new Account(dir);
+            account.setSnapshotInterval(snapshotInterval);
+            account.init(threads).send(a -> a.deposit(events, () -> {
+                a.close();
+                fut.complete(new long[]{a.balance, a.replayed});
+            }));
+            return fut.get();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        final long N = 5_000_000;
+        Path dir = Files.createTempDirectory("nbl_persist");
+        System.out.println("journal: " + dir);
+        for (int i = 0; i < 3; i++) {
+            long t0 = System.nanoTime();
+            long[] r = run(dir, N, 2_000_000);
+            double sec = (System.nanoTime() - t0) * 1e-9;
+            System.out.printf("  persisted %d events: %6.3f s, %,.0f events/s   (balance %d, replayed %d)%n",
+                    N, sec, N / sec, r[0], r[1]);
+        }
+        long t0 = System.nanoTime();
+        long[] r = run(dir, 0, 0);
+        System.out.printf("  recovery: %6.3f s  (balance %d, replayed %d)%n",
+                (System.nanoTime() - t0) * 1e-9, r[0], r[1]);
+    }
+}
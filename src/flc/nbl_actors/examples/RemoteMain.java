@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2026 agent
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package flc.nbl_actors.examples;
+
+import flc.nbl_actors.core.*;
+import flc.nbl_actors.core.codec.CodecRegistry;
+import flc.nbl_actors.core.remote.IpcChannel;
+import flc.nbl_actors.core.remote.RemoteNode;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Consumer;
+
+/**
+ * Remote actor send over loopback TCP and shared memory, compared with in-process send.
+ * <p>Date: 18.10.2026
+ * </p>
+ *
+ * @author agent
+ */
+public class RemoteMain {
+
+    static class Counter {
+        long sum, count, expected;
+        CountDownLatch done;
+    }
+
+    static final class Add implements Consumer<Counter> {
+        final long value;
+
+        Add(long value) {
+            this.value = value;
+        }
+
+        @Override
+        public void accept(Counter c) {
+            c.sum += value;
+            if (++c.count == c.expected)
+                c.done.countDown();
+        }
+    }
+
+    static double run(IActorRef<Counter> ref, long n) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        ref.send(c -> {
+            c.count = 0;
+            c.expected = n;
+            c.done = done;
+        });
+        long t0 = System.nanoTime();
+        for (long i = 0; i < n; i++)
+            ref.send(new Add(i));
+        done.await();
+        return n / ((System.nanoTime() - t0) * 1e-9);
+    }
+
+    //setup messages are lambdas (not encodable), so they go via the local ref
+    static IActorRef<Counter> via(IActorRef<Counter> remote, IActorRef<Counter> local) {
+        return new IActorRef<Counter>() {
+            @Override
+            public void send(Consumer<Counter> msg) {
+                if (msg instanceof Add)
+                    remote.send(msg);
+                else
+                    local.send(msg);
+            }
+
+            @Override
+            public Class<Counter> getActorClass() {
+                return Counter.class;
+            }
+        };
+    }
+
+    public static void main(String[] args) throws Exception {
+        final long N = 5_000_000;
+        final CodecRegistry registry = new CodecRegistry()
+                .register(1, Add.class,
+                        (a, out) -> out.putLong(a.value),
+                        in -> new Add(in.getLong()));
+        final GreenThr_single thr = new GreenThr_single(), ipcThr = new GreenThr_single();
+        final Counter counter = new Counter();
+        final IActorRef<Counter> local = new ActorRef<>(counter, thr);
+        try (RemoteNode server = new RemoteNode(registry);
+             RemoteNode client = new RemoteNode(registry)) {
+            server.export("counter", local);
+            InetSocketAddress addr = server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            IActorRef<Counter> remote = client.connect(addr, "counter", Counter.class);
+            IActorRef<Counter> viaRemote = via(remote, local);
+            //shared memory ring; both ends in this JVM, through separate mappings
+            Path file = Files.createTempFile("nbl_ipc", ".ring");
+            try (IpcChannel in = IpcChannel.open(file, 1 << 20, registry);
+                 IpcChannel out = IpcChannel.open(file, 1 << 20, registry)) {
+                in.export("counter", local);
+                in.startReceiver(ipcThr);
+                IActorRef<Counter> viaIpc = via(out.proxy("counter", Counter.class), local);
+                for (int i = 0; i < 3; i++) {
+                    System.out.printf("  in-process:    %,14.0f msg/s%n", run(local, N));
+                    System.out.printf("  loopback TCP:  %,14.0f msg/s%n", run(viaRemote, N));
+                    System.out.printf("  shared memory: %,14.0f msg/s%n", run(viaIpc, N));
+                }
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        } finally {
+            thr.shutdown();
+            ipcThr.shutdown();
+        }
+    }
+}
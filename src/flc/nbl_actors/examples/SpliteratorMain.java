@@ -45,37 +45,60 @@ public class SpliteratorMain {
         void consume(Spliterator<T> data);
     }
 
-    static <T> void parallel(IGreenThrFactory factory, Spliterator<T> data, SpConsumer<T> consumer) {
+    //fixed granularity; splits all the way down to splitSize
+    static <T> void parallelFixed(IGreenThrFactory factory, Spliterator<T> data, SpConsumer<T> consumer) {
         Spliterator<T> data2 = data.estimateSize() > consumer.splitSize() ? data.trySplit() : null;
         if (data2 != null) {
-            factory.newThread().execute(() -> parallel(factory, data, consumer));
-            parallel(factory, data2, consumer);
+            factory.newThread().execute(() -> parallelFixed(factory, data, consumer));
+            parallelFixed(factory, data2, consumer);
         } else
             consumer.consume(data);
     }
 
-    public static void main(String[] args) throws InterruptedException, ExecutionException {
-        class Sum implements SpConsumer<Float> {
-            float value;
+    //adaptive granularity; splits only while other threads need work
+    static <T> void parallel(IGreenThrFactory factory, Spliterator<T> data, SpConsumer<T> consumer) {
+        new AdaptiveSplit(factory).split(data, consumer.splitSize(), consumer::consume);
+    }
 
-            float getValue() {
-                return value;
-            }
+    static float timedSum(IGreenThrFactory factory, List<Float> values, boolean adaptive)
+            throws InterruptedException {
+        final Sum sum = new Sum();
+        final long t0 = System.nanoTime();
+        factory.newThread().execute(() -> {
+            if (adaptive)
+                parallel(factory, values.spliterator(), sum);
+            else
+                parallelFixed(factory, values.spliterator(), sum);
+        });
+        factory.await(0); //all splits done
+        float value = sum.getValue();
+        System.out.printf("  %s: %7.2f ms%n", adaptive ? "adaptive" : "fixed   ", (System.nanoTime() - t0) * 1e-6);
+        return value;
+    }
 
-            @Override
-            public int splitSize() {
-                return 5;
-            }
+    static class Sum implements SpConsumer<Float> {
+        float value;
+
+        float getValue() {
+            return value;
+        }
+
+        @Override
+        public int splitSize() {
+            return 5;
+        }
 
-            @Override
-            public void consume(Spliterator<Float> data) {
-                float[] val = {0};
-                data.forEachRemaining(v -> val[0] += v);
-                synchronized (this) {
-                    value += val[0];
-                }
+        @Override
+        public void consume(Spliterator<Float> data) {
+            float[] val = {0};
+            data.forEachRemaining(v -> val[0] += v);
+            synchronized (this) {
+                value += val[0];
             }
         }
+    }
+
+    public static void main(String[] args) throws InterruptedException, ExecutionException {
         try (IGreenThrFactory factory = new GreenThrFactory_single(4, false)) {
             final Sum sum = new Sum();
             parallel(factory, randomValues(20).spliterator(), sum);
@@ -84,6 +107,24 @@ public class SpliteratorMain {
                 result.complete(sum.getValue());
             });
             System.out.println(" sum: " + result.get());
+
+            final List<Float> values = new ArrayList<>();
+            final Random random = new Random();
+            for (int i = 0; i < 2_000_000; i++)
+                values.add(random.nextFloat());
+            System.out.println(" sum of " + values.size() + " values:");
+            for (int i = 0; i < 3; i++) {
+                timedSum(factory, values, false);
+                timedSum(factory, values, true);
+                //same, with GreenStream; partial sums combined without locks
+                final CompletableFuture<Float> streamSum = new CompletableFuture<>();
+                final long t0 = System.nanoTime();
+                GreenStream.of(factory, values)
+                        .reduce(0f, Float::sum)
+                        .result(streamSum::complete);
+                streamSum.get();
+                System.out.printf("  stream:   %7.2f ms%n", (System.nanoTime() - t0) * 1e-6);
+            }
         }
     }
 }
@@ -8,6 +8,7 @@
 package flc.nbl_actors.experimental;
 
 import flc.nbl_actors.core.*;
+import flc.nbl_actors.core.flow.ActorIterator;
 import flc.nbl_actors.examples.Fibonacci;
 
 import java.math.BigInteger;
@@ -17,7 +18,8 @@ import java.util.concurrent.SynchronousQueue;
 import static java.lang.System.out;
 
 /**
- * Iterate over actor output via blocking queue.
+ * Iterate over actor output via blocking queue (one hand-off per element),
+ * compared with {@link ActorIterator} (batches, with demand back to the producer).
  * Date: 16.08.14
  *
  * @author Tor C Bekkvik
@@ -64,11 +66,54 @@ public class ActorIteratorMain
         return queue.take();
     }
 
+    /**
+     * Fibonacci generator; Produces until the sink has no more demand,
+     * and continues from there when resumed.
+     */
+    static class FibGen extends ActorBase<FibGen> {
+        BigInteger a = BigInteger.ONE, b = BigInteger.ONE;
+
+        void produce(ActorIterator.Sink<BigInteger> sink) {
+            boolean more;
+            do {
+                more = sink.offer(a);
+                final BigInteger c = a.add(b);
+                a = b;
+                b = c;
+            } while (more);
+        }
+    }
+
+    static ActorIterator<BigInteger> fibonacci(IGreenThr thr) {
+        final IActorRef<FibGen> ref = new FibGen().initThread(thr);
+        return new ActorIterator<>(8, 256, sink -> ref.send(g -> g.produce(sink)));
+    }
+
+    static void timed(String label, Iterator<BigInteger> src, int count) {
+        final long t0 = System.nanoTime();
+        BigInteger last = null;
+        for (int i = 0; i < count; i++)
+            last = src.next();
+        final double sec = (System.nanoTime() - t0) * 1e-9;
+        out.printf("  %-16s %8.0f elements/s  (bits: %d)%n", label, count / sec, last.bitLength());
+    }
+
     public static void main(String[] args) {
         out.print("Fibonacci: ");
         Iterator<BigInteger> src = new ActorIteratorMain();
         for (int i = 0; i < 10; i++)
             out.print(" " + src.next());
         out.println();
+        out.print("Fibonacci: ");
+        try (ActorIterator<BigInteger> it = fibonacci(new GreenThr_single())) {
+            it.stream().limit(10).forEach(v -> out.print(" " + v));
+        }
+        out.println();
+
+        final int count = 20_000;
+        timed("blocking queue", new ActorIteratorMain(), count);
+        try (ActorIterator<BigInteger> it = fibonacci(new GreenThr_single())) {
+            timed("ActorIterator", it, count);
+        }
     }
 }
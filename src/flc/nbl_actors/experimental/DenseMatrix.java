@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2026 agent
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package flc.nbl_actors.experimental;
+
+import flc.nbl_actors.core.*;
+
+import java.util.Objects;
+import java.util.function.IntConsumer;
+
+/**
+ * Dense matrix, stored as one flat row-major array, with a parallel tiled multiply.
+ * <p>Multiply C = A x B:
+ * B is first packed into column panels of {@value #TILE_COLS} columns (each panel contiguous,
+ * row by row), so the inner loop streams through one panel row and one C row segment
+ * (c[i, j..] += a[i, k] * b[k, j..]; a loop the JIT vectorizes).
+ * The unit of parallel work is an output tile of {@value #TILE_ROWS} x {@value #TILE_COLS}
+ * cells, computed over k in blocks of {@value #TILE_DEPTH}, so the B block in use stays in cache.
+ * Tiles are forked recursively over {@link ForkJoin} with {@link AdaptiveSplit},
+ * giving a few messages per thread instead of one per cell (as in {@link MatrixMain#calculate}).
+ * </p>
+ * <p>Date: 18.10.2026
+ * </p>
+ *
+ * @author agent
+ */
+public class DenseMatrix implements IMatrix {
+    static final int TILE_ROWS = 64, TILE_COLS = 256, TILE_DEPTH = 128;
+    private static final IASync<Object> DONE = new ASyncDirect<>(null);
+
+    final int nRows, nCols;
+    final double[] data;
+
+    /**
+     * Zero matrix.
+     *
+     * @param nRows rows
+     * @param nCols columns
+     */
+    public DenseMatrix(int nRows, int nCols) {
+        this(nRows, nCols, new double[Math.multiplyExact(nRows, nCols)]);
+    }
+
+    /**
+     * Wrap row-major data (not copied).
+     *
+     * @param nRows rows
+     * @param nCols columns
+     * @param data  values; [row * nCols + col]
+     */
+    public DenseMatrix(int nRows, int nCols, double[] data) {
+        if (nRows < 0 || nCols < 0 || data.length != (long) nRows * nCols)
+            throw new IllegalArgumentException("size mismatch");
+        this.nRows = nRows;
+        this.nCols = nCols;
+        this.data = data;
+    }
+
+    /**
+     * Copy of any matrix.
+     *
+     * @param m matrix
+     * @return new dense matrix
+     */
+    public static DenseMatrix copyOf(IMatrix m) {
+        final DenseMatrix d = new DenseMatrix(m.noRows(), m.noCols());
+        for (int r = 0; r < d.nRows; r++)
+            for (int c = 0; c < d.nCols; c++)
+                d.data[r * d.nCols + c] = m.value(r, c);
+        return d;
+    }
+
+    @Override
+    public int noRows() {return nRows;}
+
+    @Override
+    public int noCols() {return nCols;}
+
+    @Override
+    public double value(int row, int col) {return data[row * nCols + col];}
+
+    public void set(int row, int col, double val) {
+        data[row * nCols + col] = val;
+    }
+
+    /**
+     * @return row-major values (not a copy)
+     */
+    public double[] getData() {
+        return data;
+    }
+
+    /**
+     * @return new transposed matrix
+     */
+    public DenseMatrix transpose() {
+        final DenseMatrix t = new DenseMatrix(nCols, nRows);
+        for (int r0 = 0; r0 < nRows; r0 += 32) //blocked; both sides stay in cache
+            for (int c0 = 0; c0 < nCols; c0 += 32)
+                for (int r = r0, r1 = Math.min(r0 + 32, nRows); r < r1; r++)
+                    for (int c = c0, c1 = Math.min(c0 + 32, nCols); c < c1; c++)
+                        t.data[c * nRows + r] = data[r * nCols + c];
+        return t;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("DenseMatrix,  rows: %d   cols: %d", nRows, nCols);
+    }
+
+    /**
+     * Parallel matrix product.
+     *
+     * @param a       left matrix (n x m)
+     * @param b       right matrix (m x p)
+     * @param factory thread factory
+     * @return async product (n x p)
+     */
+    public static IASync<DenseMatrix> multiply(DenseMatrix a, DenseMatrix b, IGreenThrFactory factory) {
+        if (a.nCols != b.nRows)
+            throw new IllegalArgumentException("matrix size mismatch");
+        Objects.requireNonNull(factory);
+        final DenseMatrix c = new DenseMatrix(a.nRows, b.nCols);
+        final ASyncValue<DenseMatrix> result = new ASyncValue<>();
+        final AdaptiveSplit split = new AdaptiveSplit(factory);
+        factory.newThread().execute(() -> {
+            final int panels = (b.nCols + TILE_COLS - 1) / TILE_COLS;
+            final double[] packed = new double[b.data.length];
+            forRange(split, 0, panels, p -> pack(b, p, packed)).result(ignore -> {
+                final int rowTiles = (a.nRows + TILE_ROWS - 1) / TILE_ROWS;
+                forRange(split, 0, rowTiles * panels, t -> tile(a, packed, c, t / panels, t % panels))
+                        .result(done -> result.accept(c));
+            });
+        });
+        return result;
+    }
+
+    /**
+     * Sample covariance of the columns of x (rows are observations).
+     *
+     * @param x       data (n x p, n &gt; 1)
+     * @param factory thread factory
+     * @return async covariance matrix (p x p)
+     */
+    public static IASync<DenseMatrix> covariance(DenseMatrix x, IGreenThrFactory factory) {
+        final int n = x.nRows, p = x.nCols;
+        if (n < 2)
+            throw new IllegalArgumentException("need at least two rows");
+        final double[] mean = new double[p];
+        for (int r = 0; r < n; r++)
+            for (int c = 0; c < p; c++)
+                mean[c] += x.data[r * p + c];
+        for (int c = 0; c < p; c++)
+            mean[c] /= n;
+        final DenseMatrix centered = new DenseMatrix(n, p);
+        for (int r = 0; r < n; r++)
+            for (int c = 0; c < p; c++)
+                centered.data[r * p + c] = x.data[r * p + c] - mean[c];
+        final ASyncValue<DenseMatrix> result = new ASyncValue<>();
+        multiply(centered.transpose(), centered, factory).result(cov -> {
+            final double scale = 1.0 / (n - 1);
+            for (int i = 0; i < cov.data.length; i++)
+                cov.data[i] *= scale;
+            result.accept(cov);
+        });
+        return result;
+    }
+
+    //-------------------------------------
+
+    /**
+     * Run body(i) for i in [from, to), forked recursively.
+     */
+    private static IASync<Object> forRange(AdaptiveSplit split, int from, int to, IntConsumer body) {
+        if (to - from <= 1) {
+            if (from < to)
+                body.accept(from);
+            return DONE;
+        }
+        final int mid = (from + to) >>> 1;
+        final ForkJoin<Object> fj = new ForkJoin<>();
+        fj.callAsync(split, () -> forRange(split, from, mid, body), ignore -> {
+        });
+        fj.callAsync(split, () -> forRange(split, mid, to, body), ignore -> {
+        });
+        return fj.resultAsync();
+    }
+
+    /**
+     * Copy columns of panel p into packed[m * p0 ..], row by row (m rows x width).
+     */
+    private static void pack(DenseMatrix b, int p, double[] packed) {
+        final int p0 = p * TILE_COLS, width = Math.min(TILE_COLS, b.nCols - p0);
+        int dst = b.nRows * p0;
+        for (int k = 0, src = p0; k < b.nRows; k++, src += b.nCols, dst += width)
+            System.arraycopy(b.data, src, packed, dst, width);
+    }
+
+    /**
+     * Compute output tile (row tile ti, column panel p).
+     */
+    private static void tile(DenseMatrix a, double[] packed, DenseMatrix c, int ti, int p) {
+        final int m = a.nCols, n = c.nCols;
+        final int i0 = ti * TILE_ROWS, i1 = Math.min(i0 + TILE_ROWS, a.nRows);
+        final int p0 = p * TILE_COLS, width = Math.min(TILE_COLS, n - p0);
+        final int panel = m * p0;
+        final double[] ad = a.data, cd = c.data;
+        for (int k0 = 0; k0 < m; k0 += TILE_DEPTH) {
+            final int k1 = Math.min(k0 + TILE_DEPTH, m);
+            for (int i = i0; i < i1; i++) {
+                final int cRow = i * n + p0, aRow = i * m;
+                for (int k = k0; k < k1; k++) {
+                    final double aik = ad[aRow + k];
+                    final int bRow = panel + k * width;
+                    for (int j = 0; j < width; j++)
+                        cd[cRow + j] += aik * packed[bRow + j];
+                }
+            }
+        }
+    }
+}
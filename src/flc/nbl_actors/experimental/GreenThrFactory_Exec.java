@@ -9,6 +9,7 @@ package flc.nbl_actors.experimental;
 
 import flc.nbl_actors.core.IGreenThr;
 import flc.nbl_actors.core.IGreenThrFactory;
+import flc.nbl_actors.core.SchedulerMetrics;
 import flc.nbl_actors.core.ThreadActivity;
 import flc.nbl_actors.core.ThreadContext;
 
@@ -27,11 +28,18 @@ public class GreenThrFactory_Exec implements IGreenThrFactory {
 
     private final ExecutorService service;
     private final ExBuf exBuf;
+    private final SchedulerMetrics metrics;
 
     public GreenThrFactory_Exec(ExecutorService service) {
         ThreadContext.get().setFactory(this);
         this.service = service;
         exBuf = new ExBuf(service);
+        metrics = new SchedulerMetrics("GreenThrFactory_Exec", exBuf.queue::size,
+                () -> service instanceof ThreadPoolExecutor
+                        ? ((ThreadPoolExecutor) service).getActiveCount()
+                        : exBuf.jobCount.get(), //running or queued
+                service::isShutdown);
+        exBuf.metrics = metrics;
         _start();
     }
 
@@ -40,6 +48,15 @@ public class GreenThrFactory_Exec implements IGreenThrFactory {
         return new GreenThr_Exec(exBuf);
     }
 
+    /**
+     * Runtime metrics; Queue length counts green threads waiting for a real thread.
+     *
+     * @return metrics
+     */
+    public SchedulerMetrics getMetrics() {
+        return metrics;
+    }
+
     private void _start() {
         exBuf.isStarted = true;
         exBuf.pump();
@@ -57,11 +74,13 @@ public class GreenThrFactory_Exec implements IGreenThrFactory {
 
     @Override
     public void shutdown() {
+        metrics.unregister();
         service.shutdown();
     }
 
     @Override
     public void shutdownNow() {
+        metrics.unregister();
         service.shutdownNow();
         exBuf.isShutdownNow = true;
         exBuf.queue.clear();
@@ -91,6 +110,7 @@ public class GreenThrFactory_Exec implements IGreenThrFactory {
         final AtomicBoolean isPumping = new AtomicBoolean();
         final ExecutorService service;
         volatile boolean isStarted, isReverse, isShutdownNow;
+        SchedulerMetrics metrics;
 
         ExBuf(ExecutorService exe) {
             this.service = exe;
@@ -152,10 +172,12 @@ public class GreenThrFactory_Exec implements IGreenThrFactory {
             while (sz-- > 0 && (msg = messages.poll()) != null) {
                 try {
                     tc.beforeRun();
+                    exBuf.metrics.onExecuted();
                     msg.run();
                     if (exBuf.isShutdownNow)
                         messages.clear();
                 } catch (RuntimeException e) {
+                    exBuf.metrics.onException();
                     e.printStackTrace();
                 }
             }
@@ -28,11 +28,18 @@ public class GreenThrFactory_Q implements IGreenThrFactory {
     private final GreenT[] greens;
     private int greenIx;
     private volatile boolean isShutdown, isShutdownNow;
+    private final SchedulerMetrics metrics;
 
     private GreenThrFactory_Q(IThreads threads, int greenCount) {
         this.threads = threads;
-        threads.init(this);
         greens = new GreenT[greenCount];
+        metrics = new SchedulerMetrics("GreenThrFactory_Q", () -> {
+            int n = 0;
+            for (GreenT g : greens)
+                n += g.msgQueue.size();
+            return n;
+        }, threads::activeCount, () -> isShutdown);
+        threads.init(this);
         for (int i = 0; i < greens.length; i++) {
             greens[i] = new GreenT(this);
         }
@@ -48,6 +55,13 @@ public class GreenThrFactory_Q implements IGreenThrFactory {
         this(new ExService(service), greenCount);
     }
 
+    /**
+     * @return runtime metrics
+     */
+    public SchedulerMetrics getMetrics() {
+        return metrics;
+    }
+
     @Override
     public IGreenThr newThread() {
         synchronized (greens) {
@@ -64,12 +78,14 @@ public class GreenThrFactory_Q implements IGreenThrFactory {
     @Override
     public void shutdown() {
         isShutdown = true;
+        metrics.unregister();
         threads.shutdown();
     }
 
     @Override
     public void shutdownNow() {
         isShutdown = isShutdownNow = true;
+        metrics.unregister();
         threads.shutdownNow();
     }
 
@@ -85,18 +101,23 @@ public class GreenThrFactory_Q implements IGreenThrFactory {
         }
 
         void init(IGreenThrFactory parent);
+
+        /**
+         * @return number of busy real threads
+         */
+        int activeCount();
     }
 
     static class ExThreads implements IThreads {
         private final ThreadActivity active = new ThreadActivity();
         private final BlockingQueue<Runnable> queue = new LinkedBlockingQueue<>();
         private final Thread[] realThreads; //queue consumers
+        private final AtomicInteger busyCount = new AtomicInteger();
         private volatile boolean isShutdown;
         private volatile IGreenThrFactory myFactory;
 
         public ExThreads(int numThr) {
             realThreads = new Thread[numThr];
-            final AtomicInteger busyCount = new AtomicInteger();
             class R implements Runnable {
                 boolean isBusy;
 
@@ -141,6 +162,11 @@ public class GreenThrFactory_Q implements IGreenThrFactory {
                 t.start();
         }
 
+        @Override
+        public int activeCount() {
+            return busyCount.get();
+        }
+
         @Override
         public void execute(Runnable command) {
             if (!isShutdown) {
@@ -203,6 +229,13 @@ public class GreenThrFactory_Q implements IGreenThrFactory {
             myFactory = parent;
         }
 
+        @Override
+        public int activeCount() {
+            return service instanceof ThreadPoolExecutor
+                    ? ((ThreadPoolExecutor) service).getActiveCount()
+                    : count.get(); //running or queued
+        }
+
         @Override
         public void execute(Runnable msg) {
             count.incrementAndGet();
@@ -267,6 +300,12 @@ public class GreenThrFactory_Q implements IGreenThrFactory {
             return !msgQueue.isEmpty();
         }
 
+        @Override
+        public void onException(RuntimeException e) {
+            pool.metrics.onException();
+            super.onException(e);
+        }
+
         @Override
         protected void processMessages() {
             ThreadContext ctx = ThreadContext.get();
@@ -276,6 +315,7 @@ public class GreenThrFactory_Q implements IGreenThrFactory {
             //fairness / avoid livelock (r.run -> execute -> r.run .. )ok??
             while (--limit >= 0 && (r = msgQueue.poll()) != null) {
                 ctx.beforeRun();
+                pool.metrics.onExecuted();
                 r.run();
                 if (pool.isShutdownNow)
                     msgQueue.clear();
@@ -12,7 +12,7 @@ package flc.nbl_actors.experimental;
  *
  * @author Tor C Bekkvik
  */
-interface IMatrix {
+public interface IMatrix {
     int noRows();
     int noCols();
     double value(int row, int col);
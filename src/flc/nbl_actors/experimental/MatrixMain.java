@@ -11,7 +11,6 @@ import flc.nbl_actors.core.*;
 
 import java.util.Random;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Date: 15.08.13
@@ -76,25 +75,18 @@ public class MatrixMain {
         return sum;
     }
 
-    @SuppressWarnings("UnnecessaryLocalVariable")
+    //one task per matrix cell; replies are combined in a tree (TreeJoin),
+    // so the caller thread gets a few messages instead of one per cell.
     public static IASync<IMatrix> calculate(final IMatrix A, final IMatrix B, IGreenThrFactory gf) {
         final Matrix matrix = new Matrix(A.noRows(), B.noCols());
-        final AtomicInteger rest = new AtomicInteger(matrix.noRows() * matrix.noCols());
-        ForkJoin<IMatrix> fj = new ForkJoin<>((IMatrix) matrix);
-        for (int r = 0; r < matrix.noRows(); r++) {
-            final int row = r;
-            for (int c = 0; c < matrix.noCols(); c++) {
-                final int col = c;
-                //green threads forked here..
-                fj.call(gf.newThread(), () ->
-                        vectorProduct(A, B, row, col),
-                        prod -> {
-                            matrix.set(row, col, prod);
-                            rest.decrementAndGet();
-                        });
-            }
-        }
-        return fj.resultAsync();
+        final int cols = matrix.noCols();
+        return new TreeJoin(gf).fanOut(matrix.noRows() * cols,
+                ix -> {
+                    final int row = ix / cols, col = ix % cols;
+                    matrix.set(row, col, vectorProduct(A, B, row, col));
+                    return (IMatrix) matrix;
+                },
+                (m1, m2) -> m1);
     }
 
 
@@ -108,8 +100,18 @@ public class MatrixMain {
         }
     }
 
+    //flat storage, packed B, one task per output tile
+    static IMatrix matrixProductTiled(IMatrix A, IMatrix B) throws Exception {
+        try (IGreenThrFactory factory = new GreenThrFactory_single(4)) {
+            CompletableFuture<IMatrix> fut = new CompletableFuture<>();
+            DenseMatrix.multiply(DenseMatrix.copyOf(A), DenseMatrix.copyOf(B), factory)
+                    .result(fut::complete);
+            return fut.get();
+        }
+    }
+
     public static void main(String[] args) throws Exception {
-        int k = 1; //max 1500? (-Xmx2000m)
+        int k = args.length > 0 ? Integer.parseInt(args[0]) : 1; //max 1500? (-Xmx2000m)
         @SuppressWarnings("UnnecessaryLocalVariable")
         final int II = k, JJ = 2 * k, KK = II + 6;
         IMatrix aa = makeMatrix(II, JJ);
@@ -144,6 +146,10 @@ public class MatrixMain {
                     , sec, ok
                     , sum(aa), sum(bb), sum(prev)
             ));
+            t0 = System.currentTimeMillis();
+            IMatrix tiled = matrixProductTiled(aa, bb);
+            dt = System.currentTimeMillis() - t0;
+            log(String.format("  tiled dSeconds: %6.3f  ok:%s", dt / 1000., isEqual(prev, tiled, 1e-5)));
         }
 
     }
@@ -0,0 +1,304 @@
+/*
+ * Copyright (c) 2026 agent
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package flc.nbl_actors.experimental;
+
+import flc.nbl_actors.core.*;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Sparse matrix in CSR (compressed sparse row) form, with parallel multiply.
+ * <p>Row r holds columns {@code colIdx[rowPtr[r] .. rowPtr[r+1])} with the matching values,
+ * sorted by column. The CSC (compressed sparse column) form is the CSR form of the
+ * transpose; see {@link #transpose()}.
+ * </p>
+ * <p>Matrix-vector and sparse-dense products split the rows in parts of about equal
+ * number of non-zeros (not equal number of rows), so parts take about the same time,
+ * also when a few rows hold most of the entries (power-law). Parts run in parallel via
+ * {@link TreeJoin}; each writes its own rows of the result.
+ * </p>
+ * <pre>
+ * Example:
+ * {@code
+ *     SparseMatrix.Builder b = new SparseMatrix.Builder(n, n);
+ *     b.add(0, 5, 1.5);
+ *     ...
+ *     b.build().multiply(x, factory).result(y -> ...);
+ * }
+ * </pre>
+ * <p>Date: 18.10.2026
+ * </p>
+ *
+ * @author agent
+ */
+public class SparseMatrix implements IMatrix {
+    private static final int MIN_PART_NNZ = 1 << 12;
+
+    final int nRows, nCols;
+    final int[] rowPtr, colIdx;
+    final double[] values;
+
+    SparseMatrix(int nRows, int nCols, int[] rowPtr, int[] colIdx, double[] values) {
+        this.nRows = nRows;
+        this.nCols = nCols;
+        this.rowPtr = rowPtr;
+        this.colIdx = colIdx;
+        this.values = values;
+    }
+
+    /**
+     * Collects (row, col, value) entries; Duplicates are summed.
+     */
+    public static class Builder {
+        private final int nRows, nCols;
+        private int[] rows = new int[16], cols = new int[16];
+        private double[] vals = new double[16];
+        private int size;
+
+        /**
+         * @param nRows rows
+         * @param nCols columns
+         */
+        public Builder(int nRows, int nCols) {
+            if (nRows < 0 || nCols < 0)
+                throw new IllegalArgumentException("negative size");
+            this.nRows = nRows;
+            this.nCols = nCols;
+        }
+
+        /**
+         * Add value at (row, col).
+         *
+         * @param row   row
+         * @param col   column
+         * @param value value (added to any earlier value at same position)
+         * @return this builder
+         */
+        public Builder add(int row, int col, double value) {
+            if (row < 0 || row >= nRows || col < 0 || col >= nCols)
+                throw new IndexOutOfBoundsException("(" + row + ", " + col + ")");
+            if (size == vals.length) {
+                rows = Arrays.copyOf(rows, size * 2);
+                cols = Arrays.copyOf(cols, size * 2);
+                vals = Arrays.copyOf(vals, size * 2);
+            }
+            rows[size] = row;
+            cols[size] = col;
+            vals[size++] = value;
+            return this;
+        }
+
+        /**
+         * @return new matrix
+         */
+        public SparseMatrix build() {
+            //bucket by row, then sort each row by (col, insertion index)
+            final int[] rowPtr = new int[nRows + 1];
+            for (int i = 0; i < size; i++)
+                rowPtr[rows[i] + 1]++;
+            for (int r = 0; r < nRows; r++)
+                rowPtr[r + 1] += rowPtr[r];
+            final int[] next = Arrays.copyOf(rowPtr, nRows);
+            final long[] order = new long[size];
+            for (int i = 0; i < size; i++)
+                order[next[rows[i]]++] = (long) cols[i] << 31 | i;
+            final int[] colIdx = new int[size];
+            final double[] v = new double[size];
+            int n = 0;
+            for (int r = 0; r < nRows; r++) {
+                final int from = rowPtr[r], to = rowPtr[r + 1];
+                Arrays.sort(order, from, to);
+                rowPtr[r] = n;
+                for (int k = from; k < to; k++) {
+                    final int col = (int) (order[k] >>> 31), i = (int) order[k] & Integer.MAX_VALUE;
+                    if (n > rowPtr[r] && colIdx[n - 1] == col)
+                        v[n - 1] += vals[i]; //duplicate
+                    else {
+                        colIdx[n] = col;
+                        v[n++] = vals[i];
+                    }
+                }
+            }
+            rowPtr[nRows] = n;
+            return new SparseMatrix(nRows, nCols, rowPtr, Arrays.copyOf(colIdx, n), Arrays.copyOf(v, n));
+        }
+    }
+
+    /**
+     * Copy non-zero values of any matrix.
+     *
+     * @param m matrix
+     * @return new sparse matrix
+     */
+    public static SparseMatrix copyOf(IMatrix m) {
+        final Builder b = new Builder(m.noRows(), m.noCols());
+        for (int r = 0; r < m.noRows(); r++)
+            for (int c = 0; c < m.noCols(); c++) {
+                final double v = m.value(r, c);
+                if (v != 0)
+                    b.add(r, c, v);
+            }
+        return b.build();
+    }
+
+    @Override
+    public int noRows() {return nRows;}
+
+    @Override
+    public int noCols() {return nCols;}
+
+    @Override
+    public double value(int row, int col) {
+        final int ix = Arrays.binarySearch(colIdx, rowPtr[row], rowPtr[row + 1], col);
+        return ix < 0 ? 0 : values[ix];
+    }
+
+    /**
+     * @return number of stored (non-zero) values
+     */
+    public int nnz() {
+        return values.length;
+    }
+
+    /**
+     * Transpose; Also the CSC form of this matrix (column pointers, row indexes).
+     *
+     * @return new matrix
+     */
+    public SparseMatrix transpose() {
+        final int[] ptr = new int[nCols + 1];
+        for (int c : colIdx)
+            ptr[c + 1]++;
+        for (int c = 0; c < nCols; c++)
+            ptr[c + 1] += ptr[c];
+        final int[] next = Arrays.copyOf(ptr, nCols);
+        final int[] rows = new int[values.length];
+        final double[] v = new double[values.length];
+        for (int r = 0; r < nRows; r++)
+            for (int i = rowPtr[r]; i < rowPtr[r + 1]; i++) {
+                final int dst = next[colIdx[i]]++;
+                rows[dst] = r;
+                v[dst] = values[i];
+            }
+        return new SparseMatrix(nCols, nRows, ptr, rows, v);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SparseMatrix,  rows: %d   cols: %d   nnz: %d", nRows, nCols, nnz());
+    }
+
+    //------------------------------------- multiply:
+
+    /**
+     * Parallel matrix-vector product (SpMV).
+     *
+     * @param x       vector (length = #columns)
+     * @param factory thread factory
+     * @return async product (length = #rows)
+     */
+    public IASync<double[]> multiply(double[] x, IGreenThrFactory factory) {
+        return multiply(x, factory, partitionByNnz(defaultParts()));
+    }
+
+    IASync<double[]> multiply(double[] x, IGreenThrFactory factory, int[] bounds) {
+        if (x.length != nCols)
+            throw new IllegalArgumentException("vector size mismatch");
+        final double[] y = new double[nRows];
+        return forParts(factory, bounds, y, (r0, r1) -> {
+            for (int r = r0; r < r1; r++) {
+                double sum = 0;
+                for (int i = rowPtr[r], end = rowPtr[r + 1]; i < end; i++)
+                    sum += values[i] * x[colIdx[i]];
+                y[r] = sum;
+            }
+        });
+    }
+
+    /**
+     * Parallel sparse-dense product.
+     *
+     * @param b       dense matrix (#rows = #columns of this)
+     * @param factory thread factory
+     * @return async product (dense)
+     */
+    public IASync<DenseMatrix> multiply(DenseMatrix b, IGreenThrFactory factory) {
+        if (b.nRows != nCols)
+            throw new IllegalArgumentException("matrix size mismatch");
+        final int p = b.nCols;
+        final DenseMatrix c = new DenseMatrix(nRows, p);
+        return forParts(factory, partitionByNnz(defaultParts()), c, (r0, r1) -> {
+            for (int r = r0; r < r1; r++) {
+                final int cRow = r * p;
+                for (int i = rowPtr[r], end = rowPtr[r + 1]; i < end; i++) {
+                    final double v = values[i];
+                    final int bRow = colIdx[i] * p;
+                    for (int j = 0; j < p; j++)
+                        c.data[cRow + j] += v * b.data[bRow + j];
+                }
+            }
+        });
+    }
+
+    /**
+     * Row bounds of {@code parts} ranges with about equal number of non-zeros.
+     *
+     * @param parts max number of parts
+     * @return bounds; part i is rows [bounds[i], bounds[i+1])
+     */
+    int[] partitionByNnz(int parts) {
+        final int nnz = nnz();
+        final int[] bounds = new int[parts + 1];
+        int n = 1;
+        for (int p = 1; p < parts; p++) {
+            final int target = (int) ((long) nnz * p / parts);
+            int r = Arrays.binarySearch(rowPtr, target); //first row starting at or after target
+            if (r < 0)
+                r = -r - 1;
+            else
+                while (r > 0 && rowPtr[r - 1] == target) r--;
+            if (r > bounds[n - 1] && r < nRows)
+                bounds[n++] = r;
+        }
+        bounds[n++] = nRows;
+        return Arrays.copyOf(bounds, n);
+    }
+
+    /**
+     * Row bounds of {@code parts} ranges with equal number of rows (for comparison).
+     */
+    int[] partitionByRows(int parts) {
+        final int n = Math.max(1, Math.min(parts, nRows));
+        final int[] bounds = new int[n + 1];
+        for (int p = 0; p <= n; p++)
+            bounds[p] = (int) ((long) nRows * p / n);
+        return bounds;
+    }
+
+    private int defaultParts() {
+        final int byCpu = 4 * Runtime.getRuntime().availableProcessors();
+        return Math.max(1, Math.min(byCpu, nnz() / MIN_PART_NNZ));
+    }
+
+    interface RowRange {
+        void run(int fromRow, int toRow);
+    }
+
+    private static <R> IASync<R> forParts(IGreenThrFactory factory, int[] bounds, R result, RowRange task) {
+        Objects.requireNonNull(factory);
+        final ASyncValue<R> async = new ASyncValue<>();
+        factory.newThread().execute(() -> new TreeJoin(factory)
+                .fanOut(bounds.length - 1, i -> {
+                    task.run(bounds[i], bounds[i + 1]);
+                    return result;
+                }, (a, b) -> a)
+                .result(r -> async.accept(result)));
+        return async;
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2026 agent
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package flc.nbl_actors.experimental;
+
+import flc.nbl_actors.core.*;
+
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Benchmark; {@link SparseMatrix} multiply on a synthetic power-law matrix
+ * (row lengths Pareto distributed: most rows short, a few very long),
+ * with rows partitioned by non-zero count vs. by row count.
+ * <p>Date: 18.10.2026
+ * </p>
+ *
+ * @author agent
+ */
+public class SparseMatrixMain {
+
+    static SparseMatrix powerLaw(int n, double alpha, int maxRow, Random random) {
+        final SparseMatrix.Builder b = new SparseMatrix.Builder(n, n);
+        for (int r = 0; r < n; r++) {
+            final int len = (int) Math.min(maxRow, Math.pow(1 - random.nextDouble(), -1 / alpha));
+            for (int i = 0; i < len; i++)
+                b.add(r, random.nextInt(n), random.nextDouble());
+        }
+        return b.build();
+    }
+
+    static double timed(String label, IASyncRun run) throws Exception {
+        long best = Long.MAX_VALUE;
+        double check = 0;
+        for (int i = 0; i < 5; i++) {
+            final long t0 = System.nanoTime();
+            final CompletableFuture<double[]> f = new CompletableFuture<>();
+            run.get().result(f::complete);
+            final double[] y = f.get();
+            best = Math.min(best, System.nanoTime() - t0);
+            check = y[y.length / 2];
+        }
+        System.out.printf("  %-20s %8.2f ms%n", label, best * 1e-6);
+        return check;
+    }
+
+    interface IASyncRun {
+        IASync<double[]> get();
+    }
+
+    public static void main(String[] args) throws Exception {
+        final int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        final Random random = new Random(1);
+        final long t0 = System.nanoTime();
+        final SparseMatrix m = powerLaw(n, 1.2, n / 10, random);
+        System.out.printf(" %s, built in %.0f ms%n", m, (System.nanoTime() - t0) * 1e-6);
+        final double[] x = random.doubles(n).toArray();
+        final int cpus = Runtime.getRuntime().availableProcessors();
+        try (IGreenThrFactory factory = new GreenThrFactory_single(cpus)) {
+            final int parts = 4 * cpus;
+            timed("SpMV by nnz", () -> m.multiply(x, factory, m.partitionByNnz(parts)));
+            timed("SpMV by rows", () -> m.multiply(x, factory, m.partitionByRows(parts)));
+            timed("SpMV 1 part", () -> m.multiply(x, factory, m.partitionByRows(1)));
+            final SparseMatrix t = m.transpose();
+            timed("SpMV transposed", () -> t.multiply(x, factory));
+        }
+    }
+}
@@ -46,10 +46,24 @@ public class Utils {
         return lst;
     }
 
-    //for demo only (inefficient)
+    /**
+     * Merge sorted list {@code a} into sorted list {@code b} (linear; b first on equal elements).
+     * For large arrays, see {@link flc.nbl_actors.core.ParallelSort}.
+     *
+     * @param a    sorted list
+     * @param b    sorted list; receives result
+     * @param comp order
+     * @param <T>  type
+     */
     public static <T> void merge(List<T> a, List<T> b, Comparator<T> comp) {
-        b.addAll(a);
-        b.sort(comp);
+        final List<T> bb = new ArrayList<>(b);
+        final int na = a.size(), nb = bb.size();
+        b.clear();
+        int i = 0, j = 0;
+        while (i < na && j < nb)
+            b.add(comp.compare(a.get(i), bb.get(j)) < 0 ? a.get(i++) : bb.get(j++));
+        b.addAll(a.subList(i, na));
+        b.addAll(bb.subList(j, nb));
     }
 
 }
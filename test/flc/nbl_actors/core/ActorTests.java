@@ -10,6 +10,7 @@ package flc.nbl_actors.core;
 import java.util.*;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 //Run with java 8
@@ -272,6 +273,47 @@ public class ActorTests {
         factories.loop(4, ActorTests::tst_FactoryEmptyListeners);
     }
 
+    static void tstSnapshotActorRef(IGreenThrFactory threads) throws InterruptedException {
+        log("tstSnapshotActorRef(" + className(threads) + ")..");
+        class Counter extends ActorBase<Counter> {
+            int count;
+
+            @Override
+            protected ActorRef<Counter> initActorRef(IGreenThr thr) {
+                return new SnapshotActorRef<>(this, thr, a -> a.count);
+            }
+        }
+        @SuppressWarnings("unchecked")
+        final SnapshotActorRef<Counter, Integer> ref
+                = (SnapshotActorRef<Counter, Integer>) new Counter().init(threads);
+        assertEquals(0, (int) ref.snapshot());
+        final int N = 100;
+        final AtomicInteger maxRead = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(N);
+        for (int n = 0; n < N; ++n) {
+            ref.send(a -> ++a.count);
+            threads.newThread().execute(() -> ref.readAsync(
+                    c -> c,
+                    c -> {
+                        maxRead.accumulateAndGet(c, Math::max);
+                        latch.countDown();
+                    }));
+        }
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        final CountDownLatch empty = new CountDownLatch(1);
+        threads.setEmptyListener(empty::countDown);
+        assertTrue(empty.await(10, TimeUnit.SECONDS));
+        assertEquals(N, (int) ref.snapshot());
+        assertEquals(N * 2, (int) ref.read(c -> c * 2));
+        assertTrue(maxRead.get() <= N);
+        log(" OK: tstSnapshotActorRef");
+    }
+
+    @Test
+    public void testSnapshotActorRef() throws InterruptedException {
+        factories.loop(4, ActorTests::tstSnapshotActorRef);
+    }
+
     @Test
     public void testThreadContext_threadsSet() throws InterruptedException {
         factories.loop(4, fact -> {
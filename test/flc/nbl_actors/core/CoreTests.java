@@ -9,10 +9,28 @@ package flc.nbl_actors.core;
 
 import org.junit.*;
 
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 import static org.junit.Assert.*;
 
@@ -141,4 +159,568 @@ public class CoreTests {
             assertEquals(i, lisK.no);
         }
     }
+
+    static class Received extends ActorBase<Received> {
+        final List<Integer> values = new ArrayList<>();
+    }
+
+    static class AddValue implements Consumer<Received> {
+        final int value;
+
+        AddValue(int value) {
+            this.value = value;
+        }
+
+        @Override
+        public void accept(Received r) {
+            r.values.add(value);
+        }
+    }
+
+    @Test
+    public void testSpillMailbox() throws Exception {
+        final IMessageCodec codec = new IMessageCodec() {
+            @Override
+            public boolean encode(Object msg, ByteBuffer out) {
+                if (!(msg instanceof AddValue)) return false;
+                out.putInt(((AddValue) msg).value);
+                return true;
+            }
+
+            @Override
+            public Object decode(ByteBuffer in) {
+                return new AddValue(in.getInt());
+            }
+        };
+        final int N = 20000;
+        final Path dir = Files.createTempDirectory("nbl_spill");
+        final CountDownLatch start = new CountDownLatch(1), done = new CountDownLatch(1);
+        final GreenThr_single thr = new GreenThr_single();
+        final AtomicInteger plain = new AtomicInteger();
+        final IGreenThr target = msg -> { //relays see actor messages
+            if (!(msg instanceof ActorMessage))
+                plain.incrementAndGet();
+            thr.execute(msg);
+        };
+        try (SpillMailbox mailbox = new SpillMailbox(target, codec, 10, dir, 4096)) {
+            final Received rec = new Received();
+            final IActorRef<Received> ref = rec.initThread(mailbox);
+            ref.send(r -> {
+                try {
+                    start.await();
+                } catch (InterruptedException ignore) {
+                }
+            });
+            for (int i = 0; i < N; i++) {
+                final int value = i;
+                ref.send(i % 7 == 0
+                        ? r -> r.values.add(value) //plain lambda; kept on heap
+                        : new AddValue(value));
+            }
+            ref.send(r -> done.countDown());
+            assertTrue(mailbox.getSpilledCount() > N / 2);
+            start.countDown();
+            done.await();
+            assertEquals(0, mailbox.getSpilledCount());
+            assertEquals(N, rec.values.size());
+            for (int i = 0; i < N; i++)
+                assertEquals(i, (int) rec.values.get(i));
+            assertEquals(0, plain.get());
+        } finally {
+            thr.shutdown();
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    static class ChainReceiver extends ActorBase<ChainReceiver> {
+        final List<Integer> values = new ArrayList<>();
+        final CountDownLatch ends;
+
+        ChainReceiver(int chains) {
+            ends = new CountDownLatch(chains);
+        }
+    }
+
+    static class Chain implements Consumer<ChainReceiver> {
+        final int value, step, max;
+
+        Chain(int value, int step, int max) {
+            this.value = value;
+            this.step = step;
+            this.max = max;
+        }
+
+        @Override
+        public void accept(ChainReceiver r) {
+            r.values.add(value);
+            if (value + step < max)
+                r.self().send(new Chain(value + step, step, max));
+            else
+                r.ends.countDown();
+        }
+    }
+
+    @Test
+    public void testSpillMailbox_overload() throws Exception {
+        final IMessageCodec codec = new IMessageCodec() {
+            @Override
+            public boolean encode(Object msg, ByteBuffer out) {
+                if (!(msg instanceof Chain)) return false;
+                final Chain c = (Chain) msg;
+                out.putInt(c.value).putInt(c.step).putInt(c.max);
+                return true;
+            }
+
+            @Override
+            public Object decode(ByteBuffer in) {
+                final Chain c = new Chain(in.getInt(), in.getInt(), in.getInt());
+                if (c.value == 13)
+                    throw new IllegalArgumentException("bad value");
+                return c;
+            }
+        };
+        //backlog of B messages, each replaced by a new one when processed
+        final int B = 1000, N = 50_000, chunk = 4096;
+        final Path dir = Files.createTempDirectory("nbl_spill");
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<RuntimeException> errors = new ArrayList<>();
+        final GreenThr_single thr = new GreenThr_single();
+        try (SpillMailbox mailbox = new SpillMailbox(thr, codec, 10, dir, chunk)) {
+            final ChainReceiver rec = new ChainReceiver(B - 1); //one chain fails
+            final ActorRef<ChainReceiver> ref = (ActorRef<ChainReceiver>) rec.initThread(mailbox);
+            ref.setExceptionHandler(errors::add);
+            ref.send(r -> {
+                try {
+                    start.await();
+                } catch (InterruptedException ignore) {
+                }
+            });
+            for (int i = 0; i < B; i++)
+                ref.send(new Chain(i, B, N));
+            assertEquals(B - 9, mailbox.getSpilledCount());
+            final long peak = mailbox.getFileSize();
+            start.countDown();
+            assertTrue(rec.ends.await(30, TimeUnit.SECONDS));
+            assertEquals(N - (N - 13 + B - 1) / B, rec.values.size());
+            assertTrue("file size " + mailbox.getFileSize() + " > " + peak + " + 1 chunk",
+                    mailbox.getFileSize() <= peak + chunk);
+            assertEquals(1, errors.size());
+            assertTrue(errors.get(0).getCause() instanceof IllegalArgumentException);
+        } finally {
+            thr.shutdown();
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    static IASync<Long> rangeSum(AdaptiveSplit split, long from, long to) {
+        if (to - from <= 4) {
+            long sum = 0;
+            for (long i = from; i < to; i++)
+                sum += i;
+            return new ASyncDirect<>(sum);
+        }
+        final long mid = (from + to) >>> 1;
+        final ForkJoin<Long> fj = new ForkJoin<>(0L);
+        fj.callAsync(split, () -> rangeSum(split, from, mid), (v, r) -> v + r);
+        fj.callAsync(split, () -> rangeSum(split, mid, to), (v, r) -> v + r);
+        return fj.resultAsync();
+    }
+
+    @Test
+    public void testAdaptiveSplit() throws Exception {
+        final long N = 1_000_000;
+        final GreenThrFactory_single factory = new GreenThrFactory_single(4);
+        try {
+            final AdaptiveSplit split = new AdaptiveSplit(factory, 8);
+            final CompletableFuture<Long> result = new CompletableFuture<>();
+            factory.newThread().execute(() -> rangeSum(split, 0, N).result(result::complete));
+            assertEquals(N * (N - 1) / 2, (long) result.get());
+            assertTrue(split.getForkCount() > 0);
+            assertTrue(split.getForkCount() < N / 40); //far fewer than leaves
+
+            final AtomicLong sum = new AtomicLong();
+            final CountDownLatch done = new CountDownLatch(1);
+            final AdaptiveSplit split2 = new AdaptiveSplit(factory, 8);
+            factory.newThread().execute(() -> split2.split(
+                    LongStream.range(0, N).spliterator(), 100,
+                    part -> {
+                        long[] s = {0};
+                        part.forEachRemaining((Consumer<Long>) v -> s[0] += v);
+                        sum.addAndGet(s[0]);
+                    }));
+            factory.setEmptyListener(done::countDown);
+            done.await();
+            assertEquals(N * (N - 1) / 2, sum.get());
+            assertEquals(0, split2.getSurplus());
+        } finally {
+            factory.shutdown();
+        }
+    }
+
+    static <T> T get(IASync<T> async) throws Exception {
+        final CompletableFuture<T> f = new CompletableFuture<>();
+        async.result(f::complete);
+        return f.get();
+    }
+
+    @Test
+    public void testGreenStream() throws Exception {
+        final int N = 200_000;
+        final List<Integer> data = new ArrayList<>();
+        for (int i = 0; i < N; i++)
+            data.add(i);
+        final GreenThrFactory_single factory = new GreenThrFactory_single(4);
+        try {
+            assertEquals(N * (N - 1L) / 2, (long) get(GreenStream.of(factory, data)
+                    .map(Integer::longValue)
+                    .reduce(0L, Long::sum)));
+            assertEquals(N / 3 + 1, (long) get(GreenStream.of(factory, data)
+                    .filter(i -> i % 3 == 0)
+                    .count()));
+            //encounter order is kept
+            List<String> strings = get(GreenStream.of(factory, data)
+                    .filter(i -> i % 2 == 1)
+                    .map(String::valueOf)
+                    .collect(Collectors.toList()));
+            assertEquals(N / 2, strings.size());
+            for (int i = 0; i < strings.size(); i++)
+                assertEquals(String.valueOf(2 * i + 1), strings.get(i));
+            StringBuilder sb = get(GreenStream.of(factory, data.subList(0, 1000))
+                    .grain(10)
+                    .collect(StringBuilder::new, StringBuilder::append, StringBuilder::append));
+            assertEquals(data.subList(0, 1000).stream().map(String::valueOf).collect(Collectors.joining()),
+                    sb.toString());
+            assertEquals(N, (int) get(GreenStream.of(factory, data)
+                    .reduce(0, (n, i) -> n + 1, Integer::sum)));
+            final AtomicLong sum = new AtomicLong();
+            get(GreenStream.of(factory, data).forEach(sum::addAndGet));
+            assertEquals(N * (N - 1L) / 2, sum.get());
+            assertEquals(0, (long) get(GreenStream.of(factory, new ArrayList<Integer>()).count()));
+        } finally {
+            factory.shutdown();
+        }
+    }
+
+    static void awaitCancel() {
+        final CancelToken token = CancelToken.current();
+        while (!token.isCancelled()) {
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    @Test
+    public void testForkJoinCancel() throws Exception {
+        final GreenThrFactory_single factory = new GreenThrFactory_single(4);
+        try {
+            //short-circuit: first result decides; nested ForkJoin is cancelled too
+            final CountDownLatch nestedStarted = new CountDownLatch(1), nestedCancelled = new CountDownLatch(1);
+            final CompletableFuture<Integer> result = new CompletableFuture<>();
+            final AtomicBoolean late = new AtomicBoolean();
+            final GreenThr_single outerThr = new GreenThr_single(), nestedThr = new GreenThr_single();
+            factory.newThread().execute(() -> {
+                final ForkJoin<Integer> fj = new ForkJoin<>(0);
+                fj.call(outerThr, () -> {
+                    final ForkJoin<Integer> nested = new ForkJoin<>(0);
+                    nested.call(nestedThr, () -> {
+                        nestedStarted.countDown();
+                        awaitCancel();
+                        nestedCancelled.countDown();
+                        return 1;
+                    }, (Consumer<Integer>) v -> {
+                    });
+                    awaitCancel();
+                    return -1;
+                }, (Consumer<Integer>) v -> late.set(true));
+                fj.call(factory.newThread(), () -> {
+                    try {
+                        nestedStarted.await();
+                    } catch (InterruptedException ignore) {
+                    }
+                    return 42;
+                }, (Consumer<Integer>) fj::complete);
+                fj.result(result::complete);
+            });
+            assertEquals(42, (int) result.get());
+            assertTrue(nestedCancelled.await(10, TimeUnit.SECONDS));
+            Thread.sleep(20);
+            assertFalse(late.get());
+            outerThr.shutdown();
+            nestedThr.shutdown();
+
+            //failed call cancels the rest; the failure handler is called instead of the result
+            final CompletableFuture<RuntimeException> failed = new CompletableFuture<>();
+            final AtomicBoolean resultCalled = new AtomicBoolean();
+            final List<ForkJoin<Integer>> failedFj = new ArrayList<>();
+            factory.newThread().execute(() -> {
+                final ForkJoin<Integer> fj = new ForkJoin<>(7);
+                failedFj.add(fj);
+                fj.call(factory.newThread(), () -> {
+                    awaitCancel();
+                    return 1;
+                }, (BiFunction<Integer, Integer, Integer>) Integer::sum);
+                fj.call(factory.newThread(), () -> {
+                    throw new IllegalStateException("test");
+                }, (BiFunction<Integer, Integer, Integer>) Integer::sum);
+                fj.onFailure(failed::complete);
+                fj.result(v -> resultCalled.set(true));
+            });
+            assertTrue(failed.get(10, TimeUnit.SECONDS) instanceof IllegalStateException);
+            final ForkJoin<Integer> fj = failedFj.get(0);
+            assertTrue(fj.isCancelled());
+            assertTrue(fj.getFailure() instanceof IllegalStateException);
+            assertEquals(7, (int) fj.getValue());
+            Thread.sleep(20);
+            assertFalse(resultCalled.get());
+
+            //failure in a nested ForkJoin reaches the enclosing one
+            final CompletableFuture<RuntimeException> nestedFailed = new CompletableFuture<>();
+            factory.newThread().execute(() -> {
+                final ForkJoin<Integer> outer = new ForkJoin<>(0);
+                outer.callAsync(factory.newThread(), () -> {
+                    final ForkJoin<Integer> inner = new ForkJoin<>(0);
+                    inner.call(factory.newThread(), () -> {
+                        throw new IllegalArgumentException("deep");
+                    }, (BiFunction<Integer, Integer, Integer>) Integer::sum);
+                    return inner.resultAsync();
+                }, (BiFunction<Integer, Integer, Integer>) Integer::sum);
+                outer.onFailure(nestedFailed::complete);
+                outer.result(v -> nestedFailed.completeExceptionally(new AssertionError("result " + v)));
+            });
+            assertTrue(nestedFailed.get(10, TimeUnit.SECONDS) instanceof IllegalArgumentException);
+
+            //GreenStream.anyMatch
+            final List<Integer> data = new ArrayList<>();
+            for (int i = 0; i < 100_000; i++)
+                data.add(i);
+            final AtomicLong tested = new AtomicLong();
+            assertTrue(get(GreenStream.of(factory, data).anyMatch(i -> {
+                tested.incrementAndGet();
+                return i == 10;
+            })));
+            assertFalse(get(GreenStream.of(factory, data).anyMatch(i -> i < 0)));
+
+            //failing stream function: no result, the exception reaches the thread's handler
+            final CompletableFuture<Exception> streamFailed = new CompletableFuture<>();
+            factory.setExceptionHandler(streamFailed::complete);
+            final CompletableFuture<Integer> sum = new CompletableFuture<>();
+            GreenStream.of(factory, data).map(i -> {
+                if (i == 50_000)
+                    throw new IllegalStateException("map");
+                return i;
+            }).reduce(0, Integer::sum).result(sum::complete);
+            assertTrue(streamFailed.get(10, TimeUnit.SECONDS) instanceof IllegalStateException);
+            Thread.sleep(20);
+            assertFalse(sum.isDone());
+        } finally {
+            factory.shutdown();
+        }
+    }
+
+    @Test
+    public void testTreeJoin() throws Exception {
+        final GreenThrFactory_single factory = new GreenThrFactory_single(4);
+        try {
+            for (int leafSize : new int[]{1, 7}) {
+                final int N = 10_000;
+                final CompletableFuture<Long> sum = new CompletableFuture<>();
+                factory.newThread().execute(() -> new TreeJoin(factory, 4, leafSize)
+                        .fanOut(N, i -> (long) i * i, Long::sum)
+                        .result(sum::complete));
+                assertEquals((long) (N - 1) * N * (2 * N - 1) / 6, (long) sum.get());
+            }
+            //merge order follows index order (associative, not commutative)
+            final CompletableFuture<String> str = new CompletableFuture<>();
+            factory.newThread().execute(() -> new TreeJoin(factory, 3, 2)
+                    .fanOut(26, i -> String.valueOf((char) ('a' + i)), String::concat)
+                    .result(str::complete));
+            assertEquals("abcdefghijklmnopqrstuvwxyz", str.get());
+            final CompletableFuture<String> none = new CompletableFuture<>();
+            factory.newThread().execute(() -> new TreeJoin(factory)
+                    .fanOut(0, String::valueOf, String::concat)
+                    .result(none::complete));
+            assertNull(none.get());
+        } finally {
+            factory.shutdown();
+        }
+    }
+
+    static IASyncLong longSum(AdaptiveSplit split, long from, long to) {
+        if (to - from <= 16) {
+            long sum = 0;
+            for (long i = from; i < to; i++)
+                sum += i;
+            return IASyncLong.of(sum);
+        }
+        final long mid = (from + to) >>> 1;
+        final LongForkJoin fj = new LongForkJoin(0);
+        fj.callAsync(split, () -> longSum(split, from, mid), (v, r) -> v + r);
+        fj.callAsync(split, () -> longSum(split, mid, to), (v, r) -> v + r);
+        return fj.resultAsync();
+    }
+
+    @Test
+    public void testPrimitiveForkJoin() throws Exception {
+        final GreenThrFactory_single factory = new GreenThrFactory_single(4);
+        try {
+            final long N = 1_000_000;
+            final AdaptiveSplit split = new AdaptiveSplit(factory);
+            final CompletableFuture<Long> sum = new CompletableFuture<>();
+            factory.newThread().execute(() -> longSum(split, 0, N).result(sum::complete));
+            assertEquals(N * (N - 1) / 2, (long) sum.get());
+
+            final CompletableFuture<Double> max = new CompletableFuture<>();
+            final CompletableFuture<Integer> count = new CompletableFuture<>();
+            final IActorRef<Received> ref = new ActorRef<>(factory, new Received());
+            factory.newThread().execute(() -> {
+                final DoubleForkJoin dfj = new DoubleForkJoin(Double.NEGATIVE_INFINITY);
+                final IntForkJoin ifj = new IntForkJoin(0);
+                for (int i = 0; i < 100; i++) {
+                    final double x = Math.sin(i);
+                    dfj.call(factory.newThread(), () -> x, Math::max);
+                    ifj.call(ref, r -> {
+                        r.values.add(1);
+                        return 1;
+                    }, Integer::sum);
+                }
+                dfj.result(max::complete);
+                ifj.resultAsync().result(count::complete);
+            });
+            double expected = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < 100; i++)
+                expected = Math.max(expected, Math.sin(i));
+            assertEquals(expected, max.get(), 0);
+            assertEquals(100, (int) count.get());
+
+            //short-circuit
+            final CompletableFuture<Integer> first = new CompletableFuture<>();
+            factory.newThread().execute(() -> {
+                final IntForkJoin fj = new IntForkJoin(-1);
+                fj.call(factory.newThread(), () -> 5, (v, r) -> {
+                    fj.complete(r);
+                    return r;
+                });
+                fj.callAsync(factory.newThread(), ASyncInt::new, (v, r) -> r); //never completes
+                fj.result(first::complete);
+            });
+            assertEquals(5, (int) first.get());
+
+            //failure in inline call
+            final CompletableFuture<RuntimeException> failed = new CompletableFuture<>();
+            final CountDownLatch busy = new CountDownLatch(1);
+            factory.newThread().execute(() -> {
+                final AdaptiveSplit one = new AdaptiveSplit(factory, 1);
+                final IntForkJoin fj = new IntForkJoin(0);
+                fj.onFailure(e -> {
+                    failed.complete(e);
+                    busy.countDown();
+                });
+                fj.call(one, () -> { //forked: no surplus left, so next call runs inline
+                    try {
+                        busy.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return 1;
+                }, Integer::sum);
+                fj.call(one, () -> {
+                    throw new IllegalStateException("inline");
+                }, Integer::sum);
+                fj.result(v -> failed.completeExceptionally(new AssertionError("result " + v)));
+            });
+            assertEquals("inline", failed.get(10, TimeUnit.SECONDS).getMessage());
+        } finally {
+            factory.shutdown();
+        }
+    }
+
+    @Test
+    public void testParallelSort() throws Exception {
+        final GreenThrFactory_single factory = new GreenThrFactory_single(4);
+        try {
+            final ParallelSort sorter = new ParallelSort(factory);
+            final Random random = new Random(7);
+            for (int n : new int[]{0, 1, 31, 100_000, 1000}) { //last reuses work buffers
+                final int[] ints = random.ints(n, -1000, 1000).toArray();
+                final int[] intsRef = ints.clone();
+                Arrays.sort(intsRef);
+                assertSame(ints, get(sorter.sort(ints)));
+                assertArrayEquals(intsRef, ints);
+                final long[] longs = random.longs(n).toArray();
+                final long[] longsRef = longs.clone();
+                Arrays.sort(longsRef);
+                assertArrayEquals(longsRef, get(sorter.sort(longs)));
+                final double[] doubles = random.doubles(n).toArray();
+                if (n > 2) {
+                    doubles[0] = Double.NaN;
+                    doubles[1] = -0.0;
+                    doubles[2] = 0.0;
+                }
+                final double[] doublesRef = doubles.clone();
+                Arrays.sort(doublesRef);
+                assertArrayEquals(doublesRef, get(sorter.sort(doubles)), 0);
+            }
+            //stable: equal keys keep their order
+            final int N = 50_000;
+            final Integer[] keys = new Integer[N];
+            for (int i = 0; i < N; i++)
+                keys[i] = i;
+            final Comparator<Integer> byBucket = Comparator.comparingInt(i -> (i * 7919) % 100);
+            final Integer[] ref = keys.clone();
+            Arrays.sort(ref, byBucket);
+            assertArrayEquals(ref, get(sorter.sort(keys, byBucket)));
+            final List<Integer> list = new ArrayList<>(Arrays.asList(keys));
+            Collections.shuffle(list, random);
+            get(sorter.sort(list, Comparator.naturalOrder()));
+            for (int i = 0; i < N; i++)
+                assertEquals(i, (int) list.get(i));
+        } finally {
+            factory.shutdown();
+        }
+    }
+
+    @Test
+    public void testSchedulerMetrics() throws Exception {
+        final GreenThrFactory_single factory = new GreenThrFactory_single(2);
+        final SchedulerMetrics metrics = factory.getMetrics();
+        assertEquals(2, metrics.getParts().size());
+        factory.setExceptionHandler(e -> {
+        });
+        final int n = 1000;
+        final CountDownLatch done = new CountDownLatch(n);
+        for (int i = 0; i < n; i++)
+            factory.newThread().execute(done::countDown);
+        factory.newThread().execute(() -> {
+            throw new IllegalStateException("test");
+        });
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        final CountDownLatch idle = new CountDownLatch(1);
+        factory.setEmptyListener(idle::countDown);
+        assertTrue(idle.await(10, TimeUnit.SECONDS));
+        assertEquals(n + 1, metrics.getMessagesExecuted());
+        assertEquals(1, metrics.getExceptions());
+        assertEquals(0, metrics.getQueueLength());
+        assertEquals(0, metrics.getActiveThreads());
+
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        final List<ObjectName> names = new ArrayList<>();
+        names.add(metrics.getObjectName());
+        for (SchedulerMetrics p : metrics.getParts())
+            names.add(p.getObjectName());
+        metrics.register(true);
+        try {
+            assertEquals((long) n + 1, server.getAttribute(metrics.getObjectName(), "MessagesExecuted"));
+            for (ObjectName on : names)
+                assertTrue(on.toString(), server.isRegistered(on));
+            factory.shutdown(); //unregisters
+            assertTrue(metrics.isShutdown());
+        } finally {
+            metrics.unregister();
+        }
+        for (ObjectName on : names)
+            assertFalse(on.toString(), server.isRegistered(on));
+    }
 }
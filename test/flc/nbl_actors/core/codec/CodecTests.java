@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2026 agent
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package flc.nbl_actors.core.codec;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.*;
+
+/**
+ * <p>Date: 18.10.2026
+ * </p>
+ *
+ * @author agent
+ */
+public class CodecTests {
+
+    static class Account {
+        long balance;
+        String owner;
+    }
+
+    static final class Deposit implements Consumer<Account> {
+        final long amount;
+
+        Deposit(long amount) {
+            this.amount = amount;
+        }
+
+        @Override
+        public void accept(Account a) {
+            a.balance += amount;
+        }
+    }
+
+    static final class Rename implements Consumer<Account> {
+        final String owner;
+
+        Rename(String owner) {
+            this.owner = owner;
+        }
+
+        @Override
+        public void accept(Account a) {
+            a.owner = owner;
+        }
+    }
+
+    static CodecRegistry registry() {
+        return new CodecRegistry()
+                .register(1, Deposit.class,
+                        (d, out) -> Codecs.putVarSigned(out, d.amount),
+                        in -> new Deposit(Codecs.getVarSigned(in)))
+                .register(2, Rename.class,
+                        (r, out) -> Codecs.putString(out, r.owner),
+                        in -> new Rename(Codecs.getString(in)));
+    }
+
+    @Test
+    public void testRoundTrip() {
+        final CodecRegistry reg = registry();
+        final ByteBuffer buf = ByteBuffer.allocate(256);
+        assertTrue(reg.encode(new Deposit(-5), buf));
+        assertTrue(reg.encode(new Rename("\u00C6rlig \u20AC"), buf));
+        assertTrue(reg.encode(new Deposit(1L << 40), buf));
+        assertFalse(reg.encode((Consumer<Account>) a -> a.balance = 0, buf));
+        buf.flip();
+        final Account acc = new Account();
+        while (buf.hasRemaining()) {
+            Consumer<Account> msg = reg.decodeMessage(buf);
+            msg.accept(acc);
+        }
+        assertEquals((1L << 40) - 5, acc.balance);
+        assertEquals("\u00C6rlig \u20AC", acc.owner);
+    }
+
+    @Test
+    public void testRegister() {
+        final CodecRegistry reg = registry();
+        assertTrue(reg.isRegistered(Deposit.class));
+        assertEquals(2, reg.typeId(Rename.class));
+        assertEquals(0, reg.typeId(String.class));
+        try {
+            reg.register(1, String.class, (s, out) -> {
+            }, in -> "");
+            fail();
+        } catch (IllegalArgumentException ignore) {
+        }
+        try {
+            reg.register(3, Deposit.class, (d, out) -> {
+            }, in -> null);
+            fail();
+        } catch (IllegalArgumentException ignore) {
+        }
+        final ByteBuffer buf = ByteBuffer.allocate(8);
+        buf.putShort((short) 9).flip();
+        try {
+            reg.decode(buf);
+            fail();
+        } catch (IllegalArgumentException ignore) {
+        }
+    }
+
+    @Test
+    public void testVarInt() {
+        final ByteBuffer buf = ByteBuffer.allocate(1024);
+        final long[] values = {0, 1, -1, 63, -64, 64, 127, 128, Integer.MAX_VALUE, Integer.MIN_VALUE,
+                Long.MAX_VALUE, Long.MIN_VALUE};
+        for (long v : values) {
+            Codecs.putVarSigned(buf, v);
+            Codecs.putVarLong(buf, v);
+        }
+        final String text = "a\u00e6\u20ac\ud83d\ude00b";
+        Codecs.putString(buf, null);
+        Codecs.putString(buf, "");
+        final int start = buf.position();
+        Codecs.putString(buf, text);
+        final byte[] utf8 = new byte[buf.position() - start - 1];
+        final ByteBuffer written = buf.duplicate();
+        written.position(start + 1);
+        written.get(utf8);
+        assertArrayEquals(text.getBytes(StandardCharsets.UTF_8), utf8);
+        Codecs.putString(buf, "x\ud800");
+        buf.flip();
+        for (long v : values) {
+            assertEquals(v, Codecs.getVarSigned(buf));
+            assertEquals(v, Codecs.getVarLong(buf));
+        }
+        assertNull(Codecs.getString(buf));
+        assertEquals("", Codecs.getString(buf));
+        assertEquals(text, Codecs.getString(buf));
+        assertEquals("x?", Codecs.getString(buf));
+        assertFalse(buf.hasRemaining());
+
+        //length beyond remaining bytes: rejected before allocating
+        buf.clear();
+        Codecs.putVarLong(buf, Integer.MAX_VALUE);
+        buf.put((byte) 'a').flip();
+        try {
+            Codecs.getString(buf);
+            fail();
+        } catch (IllegalArgumentException ignore) {
+        }
+
+        buf.clear();
+        Codecs.putVarSigned(buf, -3);
+        assertEquals(1, buf.position());
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2026 agent
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package flc.nbl_actors.core.flow;
+
+import flc.nbl_actors.core.ActorRef;
+import flc.nbl_actors.core.GreenThrFactory_single;
+import flc.nbl_actors.core.IASync;
+import flc.nbl_actors.core.IActorRef;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+/**
+ * <p>Date: 18.10.2026
+ * </p>
+ *
+ * @author agent
+ */
+public class FlowTests {
+
+    static <T> T get(IASync<T> async) throws Exception {
+        final CompletableFuture<T> f = new CompletableFuture<>();
+        async.result(f::complete);
+        return f.get();
+    }
+
+    @Test
+    public void testPipeline() throws Exception {
+        final GreenThrFactory_single factory = new GreenThrFactory_single(4);
+        try {
+            final List<Integer> data = IntStream.range(0, 10_000).boxed().collect(Collectors.toList());
+            //single-worker stages keep order
+            final List<String> out = new ArrayList<>();
+            final Pipeline<Integer> ordered = Pipeline.<Integer>builder(factory)
+                    .filter(i -> i % 2 == 0)
+                    .map(i -> i / 2)                    //fused
+                    .map(String::valueOf).async().batchSize(7).bufferSize(50)
+                    .<String>flatMap((s, down) -> {
+                        down.accept(s);
+                        down.accept("-");
+                    })                                  //fused
+                    .to(out::add);                      //fused
+            assertEquals(2, ordered.stageCount());
+            get(ordered.run(data));
+            assertEquals(10_000, out.size());
+            for (int i = 0; i < 5_000; i++) {
+                assertEquals(String.valueOf(i), out.get(2 * i));
+                assertEquals("-", out.get(2 * i + 1));
+            }
+
+            //parallel stage; all elements arrive
+            final AtomicLong sum = new AtomicLong();
+            final Pipeline<Integer> parallel = Pipeline.<Integer>builder(factory)
+                    .map(i -> (long) i * i).parallelism(4).batchSize(16)
+                    .to(sum::addAndGet);
+            assertEquals(2, parallel.stageCount());
+            get(parallel.run(data));
+            assertEquals(IntStream.range(0, 10_000).mapToLong(i -> (long) i * i).sum(), sum.get());
+
+            //empty source
+            get(parallel.run(new ArrayList<>()));
+        } finally {
+            factory.shutdown();
+        }
+    }
+
+    @Test
+    public void testBackPressure() throws Exception {
+        final GreenThrFactory_single factory = new GreenThrFactory_single(4);
+        try {
+            final int N = 2_000;
+            final AtomicInteger pulled = new AtomicInteger(), sunk = new AtomicInteger();
+            final AtomicInteger maxInFlight = new AtomicInteger();
+            final Iterator<Integer> source = new Iterator<Integer>() {
+                @Override
+                public boolean hasNext() {
+                    return pulled.get() < N;
+                }
+
+                @Override
+                public Integer next() {
+                    final int inFlight = pulled.incrementAndGet() - sunk.get();
+                    maxInFlight.accumulateAndGet(inFlight, Math::max);
+                    return inFlight;
+                }
+            };
+            final Pipeline<Integer> slow = Pipeline.<Integer>builder(factory)
+                    .map(i -> i).bufferSize(20).batchSize(5)
+                    .map(i -> i).async().bufferSize(10).batchSize(5)
+                    .to(i -> {
+                        if (sunk.get() % 100 == 0)
+                            Thread.yield();
+                        sunk.incrementAndGet();
+                    });
+            assertEquals(2, slow.stageCount());
+            get(slow.run(source));
+            assertEquals(N, sunk.get());
+            //bounded by buffers (20 + 10) plus one batch held per stage
+            assertTrue("in flight: " + maxInFlight.get(), maxInFlight.get() <= 20 + 10 + 2 * 5);
+        } finally {
+            factory.shutdown();
+        }
+    }
+
+    @Test
+    public void testPipelineFailure() throws Exception {
+        final GreenThrFactory_single factory = new GreenThrFactory_single(4);
+        try {
+            final AtomicInteger pulled = new AtomicInteger(), sunk = new AtomicInteger();
+            final Iterator<Integer> endless = Stream.iterate(0, i -> i + 1)
+                    .peek(i -> pulled.incrementAndGet()).iterator();
+            final Pipeline<Integer> failing = Pipeline.<Integer>builder(factory)
+                    .map(i -> {
+                        if (i == 500)
+                            throw new IllegalStateException("stage " + i);
+                        return i;
+                    }).parallelism(2).batchSize(10).bufferSize(40)
+                    .to(i -> sunk.incrementAndGet());
+            final Pipeline.Completion run = failing.run(endless);
+            get(run); //completes, though the source is endless
+            assertEquals("stage 500", run.getFailure().getMessage());
+            Thread.sleep(50); //let a pull in progress finish
+            final int n = pulled.get();
+            Thread.sleep(50);
+            assertEquals("source stopped", n, pulled.get());
+            assertTrue(sunk.get() < n);
+
+            //source failure
+            final Pipeline<Integer> pass = Pipeline.<Integer>builder(factory).to(i -> {
+            });
+            final Pipeline.Completion run2 = pass.run(Stream.iterate(0, i -> i + 1)
+                    .map(i -> 10 / (100 - i)).iterator());
+            get(run2);
+            assertTrue(run2.getFailure() instanceof ArithmeticException);
+        } finally {
+            factory.shutdown();
+        }
+    }
+
+    static class Counter {
+        long next;
+        int resumed;
+
+        void produce(ActorIterator.Sink<Long> sink, long last) {
+            ++resumed;
+            while (next < last)
+                if (!sink.offer(next++))
+                    return;
+            sink.complete();
+        }
+    }
+
+    @Test
+    public void testActorIterator() throws Exception {
+        final GreenThrFactory_single factory = new GreenThrFactory_single(2);
+        try {
+            final long N = 100_000;
+            final Counter counter = new Counter();
+            final IActorRef<Counter> ref = new ActorRef<>(factory, counter);
+            final ActorIterator<Long> it = new ActorIterator<>(4, 100,
+                    sink -> ref.send(c -> c.produce(sink, N)));
+            long expect = 0;
+            while (it.hasNext())
+                assertEquals(expect++, (long) it.next());
+            assertEquals(N, expect);
+            assertFalse(it.hasNext());
+            assertTrue("demand rounds: " + counter.resumed, counter.resumed > 1);
+
+            //stream, closed early; producer stops
+            final Counter c2 = new Counter();
+            final IActorRef<Counter> ref2 = new ActorRef<>(factory, c2);
+            final ActorIterator<Long> it2 = new ActorIterator<>(2, 10,
+                    sink -> ref2.send(c -> c.produce(sink, Long.MAX_VALUE)));
+            try (Stream<Long> stream = it2.stream()) {
+                assertEquals(45, stream.limit(10).mapToLong(Long::longValue).sum());
+            }
+            assertFalse(it2.hasNext());
+
+            //failure
+            final ActorIterator<Long> it3 = new ActorIterator<>(2, 10, sink -> ref.send(c -> {
+                sink.offer(1L);
+                sink.fail(new IllegalArgumentException("test"));
+            }));
+            assertEquals(1L, (long) it3.next());
+            try {
+                it3.hasNext();
+                fail();
+            } catch (IllegalArgumentException e) {
+                assertEquals("test", e.getMessage());
+            }
+        } finally {
+            factory.shutdown();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2026 agent
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package flc.nbl_actors.core.metrics;
+
+import flc.nbl_actors.core.*;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Date: 18.10.2026
+ *
+ * @author agent
+ */
+public class MetricsTests {
+
+    @Test
+    public void testHistogram() {
+        //buckets: contiguous, covering all values
+        assertEquals(0, Histogram.lowest(0));
+        for (int i = 1; i < Histogram.BUCKETS; i++) {
+            assertEquals(Histogram.highest(i - 1) + 1, Histogram.lowest(i));
+            assertEquals(i, Histogram.index(Histogram.lowest(i)));
+            assertEquals(i, Histogram.index(Histogram.highest(i)));
+        }
+        assertEquals(Long.MAX_VALUE, Histogram.highest(Histogram.BUCKETS - 1));
+
+        final Random rnd = new Random(3);
+        final long[] values = new long[100_000];
+        final Histogram h = new Histogram(), h2 = new Histogram();
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (long) Math.exp(rnd.nextDouble() * 20); //1 .. 5e8
+            (i % 2 == 0 ? h : h2).record(values[i]);
+        }
+        h.add(h2);
+        Arrays.sort(values);
+        assertEquals(values.length, h.getCount());
+        assertEquals(values[values.length - 1], h.getMax());
+        for (double p : new double[]{50, 90, 99, 99.9}) {
+            final long exact = values[(int) Math.ceil(p / 100 * values.length) - 1];
+            final long v = h.getValueAtPercentile(p);
+            assertTrue(p + ": " + v + " vs " + exact, v >= exact && v <= exact + exact / 16);
+        }
+    }
+
+    static class Echo extends ActorBase<Echo> {
+        void ping(int n, CountDownLatch done) {
+            if (n == 0)
+                done.countDown();
+            else
+                self().send(e -> e.ping(n - 1, done));
+        }
+    }
+
+    @Test
+    public void testLatencyRelay() throws InterruptedException {
+        final int n = 1000;
+        final LatencyRelay relay;
+        try (IGreenThrFactory gf = new GreenThrFactory_single(2)) {
+            relay = new LatencyRelay().attach(gf);
+            final CountDownLatch done = new CountDownLatch(2);
+            final IActorRef<Echo> ref = new Echo().init(gf);
+            gf.newThread().execute(() -> ref.send(e -> e.ping(n, done)));
+            gf.newThread().execute(done::countDown);
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+            //handlers are recorded after they return; wait until idle
+            assertTrue(gf.await(10_000));
+        }
+        final LatencySnapshot snap = relay.snapshot();
+        final LatencySnapshot.Entry echo = snap.getByActorClass().get(Echo.class.getName());
+        assertEquals(n + 1, echo.run.getCount());
+        assertEquals(n + 1, echo.wait.getCount());
+        assertEquals(2, snap.getByActorClass().get(LatencySnapshot.NO_ACTOR).run.getCount());
+        long total = 0;
+        for (LatencySnapshot.Entry e : snap.getByThread().values())
+            total += e.run.getCount();
+        assertEquals(n + 3, total);
+        final String text = LatencyReporter.format(snap);
+        assertTrue(text, text.contains(Echo.class.getName()) && text.contains("green-thread 1"));
+    }
+}
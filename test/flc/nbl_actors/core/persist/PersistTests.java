@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2026 agent
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package flc.nbl_actors.core.persist;
+
+import flc.nbl_actors.core.*;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+/**
+ * <p>Date: 18.10.2026
+ * </p>
+ *
+ * @author agent
+ */
+public class PersistTests {
+
+    static class Counter extends SnapshottingActorBase<Counter, Long> {
+        long sum, replayed;
+
+        Counter(Path dir, int segmentSize) {
+            super(dir, segmentSize);
+        }
+
+        void add(long v) {
+            persist(v, null);
+        }
+
+        @Override
+        protected void applyEvent(Long v) {
+            sum += v;
+        }
+
+        @Override
+        protected void encodeEvent(Long v, ByteBuffer out) {
+            out.putLong(v);
+        }
+
+        @Override
+        protected Long decodeEvent(ByteBuffer in) {
+            return in.getLong();
+        }
+
+        @Override
+        protected void saveState(ByteBuffer out) {
+            out.putLong(sum);
+        }
+
+        @Override
+        protected void loadState(ByteBuffer in) {
+            sum = in.getLong();
+        }
+
+        @Override
+        protected void onRecovered(long replayed) {
+            this.replayed = replayed;
+        }
+    }
+
+    static Path tempDir() throws IOException {
+        return Files.createTempDirectory("nbl_persist");
+    }
+
+    static void delete(Path dir) throws IOException {
+        try (Stream<Path> s = Files.walk(dir)) {
+            s.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    /**
+     * Run counter actor: recover, add values, close.
+     *
+     * @return {sum, #replayed, lastSeq}
+     */
+    static long[] runCounter(Path dir, long snapshotInterval, long from, long to) throws Exception {
+        CompletableFuture<long[]> fut = new CompletableFuture<>();
+        try (IGreenThrFactory f = new GreenThrFactory_single(1)) {
+            Counter c = new Counter(dir, 1024);
+            c.setSnapshotInterval(snapshotInterval);
+            IActorRef<Counter> ref = c.init(f);
+            for (long v = from; v <= to; v++) {
+                final long val = v;
+                ref.send(a -> a.add(val));
+            }
+            ref.send(a -> {
+                a.close();
+                fut.complete(new long[]{a.sum, a.replayed, a.lastSeq()});
+            });
+            return fut.get();
+        }
+    }
+
+    @Test
+    public void testJournal_appendReplay() throws IOException {
+        Path dir = tempDir();
+        try {
+            try (Journal j = new Journal(dir, 256)) {
+                for (int i = 1; i <= 100; i++)
+                    assertEquals(i, j.append(i, (v, b) -> b.putInt(v).putInt(-v)));
+                j.sync();
+            }
+            try (Journal j = new Journal(dir, 256)) {
+                assertEquals(101, j.nextSeq());
+                List<Integer> list = new ArrayList<>();
+                long n = j.replay(40, (seq, b) -> {
+                    int v = b.getInt();
+                    assertEquals(-v, b.getInt());
+                    assertEquals((long) seq, v);
+                    list.add(v);
+                });
+                assertEquals(61, n);
+                assertEquals(40, (int) list.get(0));
+                assertEquals(100, (int) list.get(60));
+                assertTrue(j.deleteUpTo(50) > 0);
+                assertEquals(50, j.replay(51, (seq, b) -> {}));
+            }
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test
+    public void testPersistentActor_recover() throws Exception {
+        Path dir = tempDir();
+        try {
+            long[] r = runCounter(dir, 0, 1, 100);
+            assertEquals(5050, r[0]);
+            assertEquals(0, r[1]);
+            assertEquals(100, r[2]);
+            r = runCounter(dir, 0, 101, 200);
+            assertEquals(100, r[1]); //replayed all
+            assertEquals(20100, r[0]);
+            assertEquals(200, r[2]);
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test
+    public void testPersistentActor_snapshot() throws Exception {
+        Path dir = tempDir();
+        try {
+            long[] r = runCounter(dir, 30, 1, 100);
+            assertEquals(5050, r[0]);
+            r = runCounter(dir, 0, 1, 0);
+            assertEquals(5050, r[0]);
+            assertTrue("replay only tail: " + r[1], r[1] < 100);
+            assertEquals(100, r[2]);
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test
+    public void testPersistentActor_corruptRecord() throws Exception {
+        Path dir = tempDir();
+        try {
+            runCounter(dir, 0, 1, 10);
+            //torn tail: last record fails its checksum, and is dropped
+            final Path seg;
+            try (Stream<Path> s = Files.list(dir)) {
+                seg = s.filter(p -> p.toString().endsWith(".seg")).max(Comparator.naturalOrder()).get();
+            }
+            final byte[] bytes = Files.readAllBytes(seg);
+            bytes[9 * (Journal.HEADER + 8) + Journal.HEADER] ^= 1;
+            Files.write(seg, bytes);
+            long[] r = runCounter(dir, 0, 1, 0);
+            assertEquals(45, r[0]);
+            assertEquals(9, r[2]);
+
+            //valid record that can not be decoded: recovery fails, and writes are refused
+            try (Journal j = new Journal(dir, 1024)) {
+                assertEquals(10, j.append(7, (v, b) -> b.putInt(v)));
+            }
+            final CompletableFuture<Counter> fut = new CompletableFuture<>();
+            try (IGreenThrFactory f = new GreenThrFactory_single(1)) {
+                IActorRef<Counter> ref = new Counter(dir, 1024).init(f);
+                ref.send(a -> {
+                    try {
+                        a.add(100);
+                        fut.completeExceptionally(new AssertionError("persist after failed recovery"));
+                    } catch (IllegalStateException e) {
+                        a.close();
+                        fut.complete(a);
+                    }
+                });
+                Counter c = fut.get();
+                assertTrue(c.getRecoveryFailure() instanceof BufferUnderflowException);
+                assertEquals(45, c.sum);
+                assertEquals(9, c.lastSeq());
+            }
+            try (Journal j = new Journal(dir, 1024)) {
+                assertEquals("nothing appended", 11, j.nextSeq());
+            }
+        } finally {
+            delete(dir);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2026 agent
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package flc.nbl_actors.core.remote;
+
+import flc.nbl_actors.core.*;
+import flc.nbl_actors.core.codec.Codecs;
+import flc.nbl_actors.core.codec.CodecRegistry;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.*;
+
+/**
+ * <p>Date: 18.10.2026
+ * </p>
+ *
+ * @author agent
+ */
+public class RemoteTests {
+
+    static class Received {
+        final List<Integer> values = new ArrayList<>();
+        CountDownLatch done;
+        int expected;
+    }
+
+    static final class Add implements Consumer<Received> {
+        final int value;
+        final String text;
+
+        Add(int value, String text) {
+            this.value = value;
+            this.text = text;
+        }
+
+        @Override
+        public void accept(Received r) {
+            r.values.add(value);
+            assertEquals("v" + value, text);
+            if (r.values.size() == r.expected)
+                r.done.countDown();
+        }
+    }
+
+    static CodecRegistry registry() {
+        return new CodecRegistry().register(1, Add.class,
+                (a, out) -> {
+                    out.putInt(a.value);
+                    Codecs.putString(out, a.text);
+                },
+                in -> new Add(in.getInt(), Codecs.getString(in)));
+    }
+
+    @Test
+    public void testLoopback() throws Exception {
+        final int N = 100_000;
+        final GreenThr_single thr = new GreenThr_single();
+        try (RemoteNode server = new RemoteNode(null, registry(), 1024);
+             RemoteNode client = new RemoteNode(registry())) {
+            final Received rec = new Received();
+            rec.expected = N;
+            rec.done = new CountDownLatch(1);
+            server.export("rec", new ActorRef<>(rec, thr));
+            try {
+                server.export("rec", new ActorRef<>(rec, thr));
+                fail();
+            } catch (IllegalArgumentException ignore) {
+            }
+            InetSocketAddress addr = server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            RemoteActorRef<Received> ref = client.connect(addr, "rec", Received.class);
+            assertEquals(Received.class, ref.getActorClass());
+            try {
+                ref.send(r -> r.values.add(-1));
+                fail();
+            } catch (IllegalArgumentException ignore) {
+            }
+            //two sending threads; order per sender is kept
+            Thread other = new Thread(() -> {
+                for (int i = 1; i < N; i += 2)
+                    ref.send(new Add(i, "v" + i));
+            });
+            other.start();
+            for (int i = 0; i < N; i += 2)
+                ref.send(new Add(i, "v" + i));
+            other.join();
+            assertTrue(rec.done.await(30, TimeUnit.SECONDS));
+            CountDownLatch read = new CountDownLatch(1);
+            thr.execute(read::countDown);
+            assertTrue(read.await(10, TimeUnit.SECONDS));
+            assertEquals(N, rec.values.size());
+            int even = 0, odd = 1;
+            for (int v : rec.values) {
+                if (v % 2 == 0) {
+                    assertEquals(even, v);
+                    even += 2;
+                } else {
+                    assertEquals(odd, v);
+                    odd += 2;
+                }
+            }
+            assertEquals(N, client.getSentCount());
+            assertEquals(N, server.getReceivedCount());
+
+            //unknown target
+            client.connect(addr, "nobody", Received.class).send(new Add(0, "v0"));
+            for (int i = 0; i < 500 && server.getDroppedCount() == 0; i++)
+                Thread.sleep(10);
+            assertEquals(1, server.getDroppedCount());
+        } finally {
+            thr.shutdown();
+        }
+    }
+
+    @Test
+    public void testIpcChannel() throws Exception {
+        final int N = 200_000;
+        final Path file = Files.createTempFile("nbl_ipc", ".ring");
+        final GreenThrFactory_single factory = new GreenThrFactory_single(2);
+        try (IpcChannel in = IpcChannel.open(file, 4096, registry());
+             IpcChannel out = IpcChannel.open(file, 1 << 20, registry())) {
+            assertEquals(4096, out.getCapacity()); //existing file keeps capacity
+            final Received rec = new Received();
+            rec.expected = N;
+            rec.done = new CountDownLatch(1);
+            in.export("rec", new ActorRef<>(rec, factory.newThread()));
+            in.startReceiver(factory);
+            final IActorRef<Received> ref = out.proxy("rec", Received.class);
+            try {
+                ref.send(r -> r.values.add(-1));
+                fail();
+            } catch (IllegalArgumentException ignore) {
+            }
+            //two producers, small ring: wrap-around and back pressure
+            Thread other = new Thread(() -> {
+                for (int i = 1; i < N; i += 2)
+                    ref.send(new Add(i, "v" + i));
+            });
+            other.start();
+            for (int i = 0; i < N; i += 2)
+                ref.send(new Add(i, "v" + i));
+            other.join();
+            assertTrue(rec.done.await(30, TimeUnit.SECONDS));
+            int even = 0, odd = 1;
+            for (int v : rec.values) {
+                if (v % 2 == 0) {
+                    assertEquals(even, v);
+                    even += 2;
+                } else {
+                    assertEquals(odd, v);
+                    odd += 2;
+                }
+            }
+            assertEquals(N, out.getSentCount());
+            assertEquals(N, in.getReceivedCount());
+        } finally {
+            factory.shutdown();
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -10,12 +10,21 @@ package flc.nbl_actors.core.trace;
 import flc.nbl_actors.core.*;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -185,6 +194,358 @@ public class TraceTests {
         log("done testMessageRelay_1thread_messageChain");
     }
 
+    @Test
+    public void testSendSite() {
+        final List<MsgEventSent> sent = new ArrayList<>();
+        final MessageRelay relay = new MessageRelay(() -> e -> {
+            if (e instanceof MsgEventSent)
+                sent.add((MsgEventSent) e);
+        });
+        final Function<Runnable, Runnable> intercept = relay.newInterceptor(Runnable::run);
+        final Runnable sends = () -> { //sends are logged from a received message
+            //send-site is first frame outside core package (here: inside java.util)
+            Collections.singletonList(1).forEach(i -> intercept.apply(() -> {
+            }));
+            MessageRelay.logInfo("label");
+            intercept.apply(() -> {
+            });
+        };
+        intercept.apply(sends).run();
+        assertTrue(sent.get(0).source.getClassName().startsWith("java.util."));
+        //labelled send: no stack capture
+        assertNull(sent.get(1).source);
+        assertEquals("label", sent.get(1).logInfo.get());
+        //reduced log: no stack capture at all
+        relay.setReduceLog(true);
+        sent.clear();
+        intercept.apply(sends).run();
+        assertNull(sent.get(0).source);
+        assertNull(sent.get(1).source);
+    }
+
+    @Test
+    public void testSampling() {
+        final List<IMsgEvent> events = new ArrayList<>();
+        final MessageRelay relay = new MessageRelay(() -> events::add);
+        final Function<Runnable, Runnable> intercept = relay.newInterceptor(Runnable::run);
+        relay.setSampling(10);
+        final int roots = 2000;
+        for (int i = 0; i < roots; i++)
+            intercept.apply(() -> //root
+                    intercept.apply(() -> //child
+                            intercept.apply(() -> { //grandchild
+                            }).run()
+                    ).run()
+            ).run();
+        //root sent events are not logged (no receiving context); 5 events per sampled chain
+        assertEquals(0, events.size() % 5);
+        final int sampled = events.size() / 5;
+        assertEquals(roots - sampled, relay.getDroppedRootCount());
+        assertTrue("sampled: " + sampled, sampled > roots / 20 && sampled < roots / 5);
+        for (IMsgEvent e : events) //descendants kept; parent is a traced message
+            if (e.parentId() != null)
+                assertTrue(events.stream().anyMatch(p -> p.id().equals(e.parentId())));
+
+        //rate limit
+        events.clear();
+        relay.setSampling(1);
+        relay.setMaxEventsPerSecond(100);
+        for (int i = 0; i < roots; i++)
+            intercept.apply(() -> {
+            }).run();
+        assertTrue("events: " + events.size(), events.size() >= 50 && events.size() <= 2 * 100);
+    }
+
+    @Test
+    public void testEventIndex() {
+        //random put/remove, compared with HashMap
+        final MsgEventIndex index = new MsgEventIndex(0);
+        final Map<MsgId, IMsgEvent> expected = new HashMap<>();
+        final Random rnd = new Random(7);
+        for (int i = 0; i < 20000; i++) {
+            final MsgId id = new MsgId(rnd.nextInt(4), rnd.nextInt(500) - 250);
+            final IMsgEvent e = new MsgEventSent(id, null, null, null, null, null);
+            if (rnd.nextInt(3) > 0) {
+                index.put(e);
+                expected.put(id, e);
+            } else if (expected.containsKey(id)) {
+                index.remove(e); //not stored instance: kept
+                assertTrue(index.get(id) == expected.get(id));
+                index.remove(expected.remove(id));
+            }
+            assertEquals(expected.size(), index.size());
+        }
+        for (int t = 0; t < 4; t++)
+            for (int m = -250; m < 250; m++)
+                assertTrue(index.get(new MsgId(t, m)) == expected.get(new MsgId(t, m)));
+
+        //trace via index equals scan of buffer; chain longer than buffer
+        final MessageEventBuffer buffer = new MessageEventBuffer(100);
+        final Function<Runnable, Runnable> intercept
+                = new MessageRelay(buffer).newInterceptor(Runnable::run);
+        class Chain {
+            void call(int n) {
+                intercept.apply(() -> {
+                    if (n > 0)
+                        call(n - 1);
+                }).run();
+            }
+        }
+        new Chain().call(300);
+        final List<IMsgEvent> trace = new ArrayList<>();
+        final IMsgEvent last = buffer.peekLast();
+        buffer.getMessageTrace(last.id(), trace::add);
+        final List<IMsgEvent> scan = new ArrayList<>();
+        final IMsgEvent[] arr = buffer.toArray();
+        MsgId id = last.id();
+        for (int i = arr.length - 1; i >= 0; i--)
+            if (arr[i].id().equals(id)) {
+                scan.add(arr[i]);
+                id = arr[i].parentId();
+            }
+        assertEquals(scan, trace);
+        assertEquals(50, trace.size()); //2 events per message in buffer
+    }
+
+    @Test
+    public void testCompactEventLog() {
+        final MessageEventBuffer buffer = new MessageEventBuffer(64);
+        final CompactEventLog compact = new CompactEventLog(64);
+        final Function<Runnable, Runnable> intercept = new MessageRelay(() -> e -> {
+            buffer.accept(e);
+            compact.accept(e);
+        }).newInterceptor(Runnable::run);
+        class Chain {
+            void call(int n) {
+                if (n % 3 == 0)
+                    MessageRelay.logInfo("n" + n);
+                intercept.apply(() -> {
+                    if (n > 0)
+                        call(n - 1);
+                    else
+                        throw new IllegalStateException("end");
+                }).run();
+            }
+        }
+        new Chain().call(50); //error logged (listener is not a tracer; not rethrown)
+        assertEquals(64, compact.size());
+        final IMsgEvent[] expected = buffer.toArray();
+        final CompactEventLog.Event[] views = compact.toArray();
+        assertEquals(expected.length, views.length);
+        for (int i = 0; i < views.length - 1; i++) { //last: error
+            assertEquals(expected[i].toString(), views[i].toString());
+            assertEquals(expected[i].id(), views[i].id());
+            assertEquals(expected[i].parentId(), views[i].parentId());
+        }
+        final CompactEventLog.Event last = compact.peekLast();
+        assertEquals(CompactEventLog.ERROR, last.kind);
+        assertTrue(last.exception instanceof IllegalStateException);
+        final List<IMsgEvent> trace = new ArrayList<>(), trace2 = new ArrayList<>();
+        buffer.getMessageTrace(last.id(), trace::add);
+        compact.getMessageTrace(last.id(), trace2::add);
+        assertEquals(trace.size(), trace2.size());
+        for (int i = 0; i < trace.size(); i++)
+            assertEquals(trace.get(i).id(), trace2.get(i).id());
+    }
+
+    static class Hop extends ActorBase<Hop> {
+        void hop(int n, CountDownLatch done) {
+            if (n == 0)
+                done.countDown();
+            else
+                self().send(h -> h.hop(n - 1, done));
+        }
+    }
+
+    @Test
+    public void testTraceFile() throws Exception {
+        final Path dir = Files.createTempDirectory("nbl_trace");
+        try {
+            final int fileSize = 4096, maxFiles = 3;
+            final TraceFileWriter writer = new TraceFileWriter(dir, "run", fileSize, maxFiles);
+            final CountDownLatch done = new CountDownLatch(1);
+            final int hops = 1000;
+            try (IGreenThrFactory gf = new GreenThrFactory_single(2)) {
+                writer.listenTo(gf, true);
+                final IActorRef<Hop> ref = new Hop().init(gf);
+                gf.newThread().execute(() -> ref.send(h -> h.hop(hops, done)));
+                assertTrue(done.await(10, TimeUnit.SECONDS));
+            }
+            writer.close();
+            assertEquals(0, writer.getDroppedCount());
+            assertNull(writer.getError());
+            final List<Path> files = TraceFileReader.files(dir, "run");
+            assertEquals(maxFiles, files.size()); //rolled; oldest deleted
+            long disk = 0;
+            for (Path p : files)
+                disk += Files.size(p);
+            assertTrue(disk <= (long) fileSize * maxFiles);
+
+            final List<TraceFileReader.Record> records = TraceFileReader.readAll(dir, "run");
+            assertTrue(records.size() > 100 && records.size() < writer.getWrittenCount());
+            final TraceFileReader.Record last = records.get(records.size() - 1);
+            assertEquals(Hop.class.getName(), last.actorClass);
+            final TraceAnalyzer an = new TraceAnalyzer(records);
+            //one chain: the last message is the only leaf, its path is all kept messages
+            final List<TraceFileReader.Record> slowest = an.slowestPaths(5);
+            assertEquals(1, slowest.size());
+            assertEquals(last.id, slowest.get(0).id);
+            final List<TraceFileReader.Record> chain = an.chain(last.id);
+            assertTrue(chain.size() > 50);
+            for (int i = 1; i < chain.size(); i++)
+                assertEquals(chain.get(i - 1).parentId, chain.get(i).id);
+            final TraceAnalyzer.ClassStats st = an.classStats().get(0);
+            assertEquals(Hop.class.getName(), st.actorClass);
+            assertTrue(st.queued > 0 && st.maxQueueNanos >= st.meanQueueNanos());
+            an.report(new PrintStream(new ByteArrayOutputStream()), 3);
+
+            assertEquals(writer.getRunId(), an.getRunId());
+
+            //next run: numbering continues; earlier files kept within maxFiles
+            final TraceFileWriter writer2 = new TraceFileWriter(dir, "run", fileSize, maxFiles);
+            final CountDownLatch done2 = new CountDownLatch(1);
+            try (IGreenThrFactory gf = new GreenThrFactory_single(2)) {
+                writer2.listenTo(gf, true);
+                final IActorRef<Hop> ref = new Hop().init(gf);
+                gf.newThread().execute(() -> ref.send(h -> h.hop(5, done2)));
+                assertTrue(done2.await(10, TimeUnit.SECONDS));
+            }
+            writer2.close();
+            final List<Path> files2 = TraceFileReader.files(dir, "run");
+            assertEquals(maxFiles, files2.size());
+            assertEquals(files.subList(1, maxFiles), files2.subList(0, maxFiles - 1));
+            final String newest = files.get(maxFiles - 1).getFileName().toString();
+            assertEquals(String.format("run-%06d.trace", Integer.parseInt(newest.substring(4, 10)) + 1),
+                    files2.get(maxFiles - 1).getFileName().toString());
+            //runs kept apart; last run analysed by default
+            final List<TraceFileReader.Record> records2 = TraceFileReader.readAll(dir, "run");
+            final Map<Long, List<TraceFileReader.Record>> runs = TraceFileReader.byRun(records2);
+            assertEquals(Arrays.asList(writer.getRunId(), writer2.getRunId()), new ArrayList<>(runs.keySet()));
+            final TraceAnalyzer an2 = new TraceAnalyzer(records2);
+            assertEquals(writer2.getRunId(), an2.getRunId());
+            assertEquals(1, an2.slowestPaths(5).size());
+            assertEquals(7, an2.chain(an2.slowestPaths(1).get(0).id).size()); //task, hop(5) .. hop(0)
+            assertEquals(writer.getRunId(), new TraceAnalyzer(records2, writer.getRunId()).getRunId());
+        } finally {
+            try (Stream<Path> s = Files.walk(dir)) {
+                s.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+            }
+        }
+    }
+
+    @Test
+    public void testChromeTrace() throws Exception {
+        final MessageEventBuffer buffer = new MessageEventBuffer(1000);
+        final Function<Runnable, Runnable> intercept
+                = new MessageRelay(buffer).newInterceptor(Runnable::run);
+        final int n = 10;
+        class Chain {
+            void call(int k) {
+                if (k == 5)
+                    MessageRelay.logInfo(() -> null);
+                else
+                    MessageRelay.logInfo("k\"" + k);
+                intercept.apply(() -> {
+                    if (k > 0)
+                        call(k - 1);
+                }).run();
+            }
+        }
+        new Chain().call(n - 1);
+        int received = 0;
+        for (IMsgEvent e : buffer.toArray())
+            if (e instanceof MsgEventReceived) {
+                final MsgEventReceived r = (MsgEventReceived) e;
+                assertTrue(r.queueNanos() >= 0);
+                assertTrue(r.runNanos() >= 0);
+                ++received;
+            }
+        assertEquals(n, received);
+        final StringBuilder json = new StringBuilder();
+        ChromeTraceExporter.write(buffer.toArray(), json);
+        final String str = json.toString();
+        assertTrue(str.startsWith("{\"traceEvents\":["));
+        assertTrue(str.endsWith("}\n"));
+        assertEquals(n, count(str, "\"ph\":\"X\""));
+        assertEquals(n - 1, count(str, "\"ph\":\"s\"")); //no flow to root
+        assertEquals(n - 1, count(str, "\"ph\":\"f\""));
+        assertTrue(str.contains("\"name\":\"k\\\"3\"")); //escaped
+        assertEquals(1, count(str, "\"name\":\"task\"")); //null log info
+        assertEquals(1, count(str, "\"name\":\"process_name\""));
+        assertEquals(1, count(str, "\"name\":\"thread_name\""));
+    }
+
+    private static int count(String s, String part) {
+        int n = 0;
+        for (int i = s.indexOf(part); i >= 0; i = s.indexOf(part, i + 1))
+            ++n;
+        return n;
+    }
+
+    @Test
+    public void testEventRings() throws InterruptedException {
+        final MessageEventRings rings = new MessageEventRings(50); //-> 64 per ring
+        final Function<Runnable, Runnable> intercept
+                = new MessageRelay(rings).newInterceptor(Runnable::run);
+        assertNull(rings.peekLast());
+        class Chain {
+            IMsgEvent last;
+
+            void call(int n) {
+                intercept.apply(() -> {
+                    last = MessageRelay.getContext().getLastReceived();
+                    if (n > 0)
+                        call(n - 1);
+                }).run();
+            }
+        }
+        final Chain chain = new Chain();
+        chain.call(9);
+        //root sent event not logged; 2 events per other message
+        assertEquals(19, rings.toArray().length);
+        assertEquals(chain.last, rings.peekLast());
+        final List<IMsgEvent> trace = new ArrayList<>();
+        rings.getMessageTrace(chain.last.id(), trace::add);
+        assertEquals(10, trace.size()); //one per message
+        assertEquals(chain.last, trace.get(0));
+
+        //ring is a tracer: message trace while handling, errors reported and rethrown
+        final ByteArrayOutputStream err = new ByteArrayOutputStream();
+        rings.setErrorStream(new PrintStream(err));
+        final List<IMsgEvent> handlerTrace = new ArrayList<>();
+        IllegalStateException thrown = null;
+        try {
+            intercept.apply(() -> intercept.apply(() -> {
+                handlerTrace.addAll(MessageRelay.getMessageTrace());
+                throw new IllegalStateException("in handler");
+            }).run()).run();
+        } catch (IllegalStateException e) {
+            thrown = e;
+        }
+        assertNotNull(thrown);
+        assertEquals("in handler", thrown.getMessage());
+        assertTrue(err.toString().contains("Message trace"));
+        assertEquals(2, handlerTrace.size());
+        chain.call(100);
+        //oldest overwritten; a full ring, without writer, shows all its entries
+        assertEquals(64, rings.toArray().length);
+
+        //concurrent writers; one ring each, merged in time order
+        final MessageEventRings rings2 = new MessageEventRings(1 << 12);
+        final int nThreads = 4, perThread = 1000;
+        final List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < nThreads; t++) {
+            final Consumer<IMsgEvent> listener = rings2.forkListener();
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < perThread; i++)
+                    listener.accept(new MsgEventSent(null, null, null, null, null, null));
+            }));
+        }
+        for (Thread t : threads) t.start();
+        for (Thread t : threads) t.join();
+        assertEquals(nThreads * perThread, rings2.toArray().length);
+    }
+
     private static void log(Object o) {
         System.out.println(o);
     }
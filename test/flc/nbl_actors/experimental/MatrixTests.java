@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2026 agent
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package flc.nbl_actors.experimental;
+
+import flc.nbl_actors.core.GreenThrFactory_single;
+import flc.nbl_actors.core.IASync;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.*;
+
+/**
+ * Date: 18.10.2026
+ *
+ * @author agent
+ */
+public class MatrixTests {
+
+    static <T> T get(IASync<T> async) throws Exception {
+        final CompletableFuture<T> f = new CompletableFuture<>();
+        async.result(f::complete);
+        return f.get();
+    }
+
+    static DenseMatrix random(Random random, int rows, int cols) {
+        final DenseMatrix m = new DenseMatrix(rows, cols);
+        for (int i = 0; i < m.data.length; i++)
+            m.data[i] = random.nextInt(18) - 8;
+        return m;
+    }
+
+    @Test
+    public void testDenseMultiply() throws Exception {
+        final Random random = new Random(3);
+        final GreenThrFactory_single factory = new GreenThrFactory_single(4);
+        try {
+            //sizes not multiple of tile sizes
+            for (int[] s : new int[][]{{1, 1, 1}, {3, 5, 2}, {70, 300, 260}, {130, 129, 513}}) {
+                final DenseMatrix a = random(random, s[0], s[1]), b = random(random, s[1], s[2]);
+                final DenseMatrix c = get(DenseMatrix.multiply(a, b, factory));
+                assertEquals(s[0], c.noRows());
+                assertEquals(s[2], c.noCols());
+                for (int i = 0; i < s[0]; i++)
+                    for (int k = 0; k < s[2]; k++)
+                        assertEquals(MatrixMain.vectorProduct(a, b, i, k), c.value(i, k), 0);
+            }
+            assertTrue(MatrixMain.isEqual(random(new Random(1), 40, 30).transpose().transpose(),
+                    random(new Random(1), 40, 30), 0));
+
+            final DenseMatrix x = new DenseMatrix(4, 2, new double[]{1, 2, 2, 4, 3, 6, 4, 8});
+            final DenseMatrix cov = get(DenseMatrix.covariance(x, factory));
+            assertEquals(5 / 3.0, cov.value(0, 0), 1e-12);
+            assertEquals(10 / 3.0, cov.value(0, 1), 1e-12);
+            assertEquals(10 / 3.0, cov.value(1, 0), 1e-12);
+            assertEquals(20 / 3.0, cov.value(1, 1), 1e-12);
+        } finally {
+            factory.shutdown();
+        }
+    }
+
+    @Test
+    public void testSparse() throws Exception {
+        final Random random = new Random(5);
+        final GreenThrFactory_single factory = new GreenThrFactory_single(4);
+        try {
+            final int N = 300, P = 7;
+            final SparseMatrix.Builder builder = new SparseMatrix.Builder(N, N);
+            final DenseMatrix dense = new DenseMatrix(N, N);
+            for (int i = 0; i < 20 * N; i++) {
+                final int r = random.nextInt(10) == 0 ? 3 : random.nextInt(N); //one long row
+                final int c = random.nextInt(N), v = random.nextInt(9) - 4;
+                builder.add(r, c, v); //duplicates are summed
+                dense.set(r, c, dense.value(r, c) + v);
+            }
+            final SparseMatrix sparse = builder.build();
+            assertTrue(MatrixMain.isEqual(dense, sparse, 0));
+            assertTrue(MatrixMain.isEqual(dense.transpose(), sparse.transpose(), 0));
+            assertTrue(MatrixMain.isEqual(sparse, SparseMatrix.copyOf(dense), 0));
+
+            final double[] x = new double[N];
+            for (int i = 0; i < N; i++)
+                x[i] = random.nextInt(5);
+            final DenseMatrix xm = new DenseMatrix(N, 1, x.clone());
+            final double[] y = get(sparse.multiply(x, factory));
+            final double[] y2 = get(sparse.multiply(x, factory, sparse.partitionByNnz(8)));
+            for (int r = 0; r < N; r++) {
+                assertEquals(MatrixMain.vectorProduct(dense, xm, r, 0), y[r], 0);
+                assertEquals(y[r], y2[r], 0);
+            }
+            final DenseMatrix b = random(random, N, P);
+            assertTrue(MatrixMain.isEqual(get(DenseMatrix.multiply(dense, b, factory)),
+                    get(sparse.multiply(b, factory)), 0));
+
+            //balanced by nnz; parts exceed the average by at most one row
+            final int[] bounds = sparse.partitionByNnz(8);
+            assertEquals(0, bounds[0]);
+            assertEquals(N, bounds[bounds.length - 1]);
+            int maxRow = 0;
+            for (int r = 0; r < N; r++)
+                maxRow = Math.max(maxRow, sparse.rowPtr[r + 1] - sparse.rowPtr[r]);
+            for (int i = 1; i < bounds.length; i++) {
+                assertTrue(bounds[i] > bounds[i - 1]);
+                assertTrue(sparse.rowPtr[bounds[i]] - sparse.rowPtr[bounds[i - 1]] <= sparse.nnz() / 8 + maxRow);
+            }
+        } finally {
+            factory.shutdown();
+        }
+    }
+}